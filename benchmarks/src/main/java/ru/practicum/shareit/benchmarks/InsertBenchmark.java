@@ -0,0 +1,104 @@
+package ru.practicum.shareit.benchmarks;
+
+import org.h2.tools.Server;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.ShareItServer;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пакетная вставка вещей через JPA: прежние IDENTITY-id против последовательностей с пакетами JDBC.
+ * H2 поднимается TCP-сервером, чтобы каждый запрос стоил сетевого обмена, как с PostgreSQL.
+ * Результат — время на одну вставленную строку.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InsertBenchmark {
+    private static final int ROWS = 500;
+
+    /**
+     * identity — id от базы, Hibernate вставляет строки по одной;
+     * sequence — id из user_seq/item_seq блоками по 50, INSERT уходят пакетами.
+     */
+    @Param({"identity", "sequence"})
+    private String ids;
+    private Server database;
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate transaction;
+    private ItemRepository itemRepository;
+    private JdbcTemplate jdbc;
+    private User owner;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        database = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:tcp://localhost:" + database.getPort()
+                        + "/mem:insert-benchmarks;DB_CLOSE_DELAY=-1",
+                "--spring.jpa.properties.hibernate.generate_statistics=false",
+                "--logging.level.root=WARN",
+                "--logging.level.ru.practicum.shareit=WARN",
+                "--logging.level.org.springframework.transaction.interceptor=WARN",
+                "--logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN"));
+        if (ids.equals("identity")) {
+            args.add("--spring.jpa.mapping-resources=META-INF/identity-ids.xml");
+        }
+        context = new SpringApplicationBuilder(ShareItServer.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(String[]::new));
+        transaction = context.getBean(TransactionTemplate.class);
+        itemRepository = context.getBean(ItemRepository.class);
+        jdbc = context.getBean(JdbcTemplate.class);
+        owner = context.getBean(UserRepository.class).save(new User(null, "owner", "owner@ya.ru"));
+    }
+
+    @TearDown(Level.Iteration)
+    public void clearItems() {
+        jdbc.update("DELETE FROM items");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        database.stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<Item> saveAllItems() {
+        List<Item> items = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            items.add(new Item(null, "Вещь " + i, "Описание вещи " + i, true, null, owner));
+        }
+        return transaction.execute(status -> itemRepository.saveAll(items));
+    }
+}
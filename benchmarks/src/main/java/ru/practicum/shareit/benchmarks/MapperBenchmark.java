@@ -0,0 +1,101 @@
+package ru.practicum.shareit.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Sort;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingForItemDto;
+import ru.practicum.shareit.booking.dto.BookingShortDto;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemCommentDto;
+import ru.practicum.shareit.item.mapper.CommentMapper;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.FromSizeRequest;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Мапперы и разбор параметров, через которые проходит каждый ответ сервера.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapperBenchmark {
+    @Param({"10", "100"})
+    private int size;
+    private List<Booking> bookings;
+    private List<Comment> comments;
+    private List<CommentDto> commentDtos;
+    private Item item;
+    private BookingForItemDto lastBooking;
+    private BookingForItemDto nextBooking;
+    private BookingShortDto newBooking;
+
+    @Setup
+    public void setUp() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        User owner = new User(1L, "owner", "owner@ya.ru");
+        item = new Item(1L, "Дрель", "Простая дрель", true, null, owner);
+        bookings = new ArrayList<>(size);
+        comments = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            User booker = new User(i + 2L, "booker" + i, "booker" + i + "@ya.ru");
+            bookings.add(new Booking((long) i, now.plusDays(i), now.plusDays(i + 1), item, booker, BookingStatus.APPROVED));
+            comments.add(new Comment((long) i, "Отличная дрель, спасибо " + i, item, booker, now.minusDays(i)));
+        }
+        commentDtos = CommentMapper.toCommentDto(comments);
+        lastBooking = BookingMapper.toBookingForItemDto(bookings.get(0));
+        nextBooking = BookingMapper.toBookingForItemDto(bookings.get(size - 1));
+        newBooking = new BookingShortDto(now.plusDays(1).toString(), now.plusDays(2).toString(), 1L);
+    }
+
+    @Benchmark
+    public List<BookingDto> bookingToDtoList() {
+        return BookingMapper.toBookingDto(bookings);
+    }
+
+    @Benchmark
+    public ItemCommentDto itemToCommentDto() {
+        return ItemMapper.toItemCommentDto(item, lastBooking, nextBooking, commentDtos);
+    }
+
+    @Benchmark
+    public List<CommentDto> commentToDtoList() {
+        return CommentMapper.toCommentDto(comments);
+    }
+
+    @Benchmark
+    public FromSizeRequest fromSizeRequest() {
+        return FromSizeRequest.of(size * 3, size, Sort.unsorted());
+    }
+
+    /**
+     * Разбор дат нового бронирования — тот же LocalDateTime.parse, что в BookingValidator шлюза.
+     */
+    @Benchmark
+    public Booking parseNewBookingDates() {
+        return BookingMapper.toNewBooking(newBooking, item, item.getOwner());
+    }
+}
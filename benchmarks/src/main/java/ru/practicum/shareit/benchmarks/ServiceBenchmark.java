@@ -0,0 +1,136 @@
+package ru.practicum.shareit.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.ShareItServer;
+import ru.practicum.shareit.booking.BookingService;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.ItemCommentDto;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сервисы целиком, от транзакции до DTO, на встроенной H2 с данными масштаба рабочей базы.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ServiceBenchmark {
+    private static final int USERS = 1000;
+    private static final int OWNERS = 100;
+    private static final int ITEMS_PER_OWNER = 20;
+    private static final int BOOKINGS_PER_ITEM = 25;
+    private static final int COMMENTS_PER_ITEM = 5;
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"ALL", "WAITING"})
+    private String state;
+    private ConfigurableApplicationContext context;
+    private ItemService itemService;
+    private BookingService bookingService;
+    private long nextOwner;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(ShareItServer.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmarks;DB_CLOSE_DELAY=-1",
+                        "--logging.level.root=WARN",
+                        "--logging.level.ru.practicum.shareit=WARN",
+                        "--logging.level.org.springframework.transaction.interceptor=WARN",
+                        "--logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN");
+        seed(context.getBean(JdbcTemplate.class));
+        itemService = context.getBean(ItemService.class);
+        bookingService = context.getBean(BookingService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Slice<ItemCommentDto> getItems() {
+        return itemService.getItems(nextOwner(), 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Slice<BookingDto> getAllOwnerBookings() {
+        return bookingService.getAllOwnerBookings(nextOwner(), state, 0, PAGE_SIZE);
+    }
+
+    private long nextOwner() {
+        nextOwner = nextOwner % OWNERS + 1;
+        return nextOwner;
+    }
+
+    /**
+     * Пакетная вставка в обход JPA: 1000 пользователей, 2000 вещей, 50 000 бронирований, 10 000 отзывов.
+     * Бронирования только в будущем — этого требует CHECK в схеме.
+     */
+    private static void seed(JdbcTemplate jdbc) {
+        List<Object[]> users = new ArrayList<>();
+        for (long id = 1; id <= USERS; id++) {
+            users.add(new Object[]{id, "user" + id, "user" + id + "@ya.ru"});
+        }
+        jdbc.batchUpdate("INSERT INTO users (id, name, email) VALUES (?, ?, ?)", users);
+
+        List<Object[]> items = new ArrayList<>();
+        for (long owner = 1; owner <= OWNERS; owner++) {
+            for (int i = 0; i < ITEMS_PER_OWNER; i++) {
+                long id = (owner - 1) * ITEMS_PER_OWNER + i + 1;
+                items.add(new Object[]{id, "Вещь " + id, "Описание вещи " + id, true, owner});
+            }
+        }
+        jdbc.batchUpdate("INSERT INTO items (id, name, description, available, owner_id) VALUES (?, ?, ?, ?, ?)", items);
+
+        LocalDateTime base = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+        BookingStatus[] statuses = BookingStatus.values();
+        List<Object[]> bookings = new ArrayList<>();
+        List<Object[]> comments = new ArrayList<>();
+        long bookingId = 1;
+        long commentId = 1;
+        for (long item = 1; item <= (long) OWNERS * ITEMS_PER_OWNER; item++) {
+            long owner = (item - 1) / ITEMS_PER_OWNER + 1;
+            for (int i = 0; i < BOOKINGS_PER_ITEM; i++) {
+                LocalDateTime start = base.plusDays(i * 2L).plusHours(item % 24);
+                long booker = OWNERS + (bookingId % (USERS - OWNERS)) + 1;
+                bookings.add(new Object[]{bookingId++, Timestamp.valueOf(start), Timestamp.valueOf(start.plusDays(1)),
+                        item, booker, owner, statuses[(int) (bookingId % statuses.length)].name()});
+            }
+            for (int i = 0; i < COMMENTS_PER_ITEM; i++) {
+                long author = OWNERS + (commentId % (USERS - OWNERS)) + 1;
+                comments.add(new Object[]{commentId++, "Отзыв " + commentId, item, author});
+            }
+        }
+        jdbc.batchUpdate("INSERT INTO bookings (id, start_datetime, end_datetime, item_id, booker_id, owner_id, status) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?)", bookings);
+        jdbc.batchUpdate("INSERT INTO comments (id, text, item_id, author_id) VALUES (?, ?, ?, ?)", comments);
+    }
+}
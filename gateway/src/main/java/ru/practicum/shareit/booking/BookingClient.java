@@ -1,60 +1,95 @@
 package ru.practicum.shareit.booking;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.booking.dto.BookingShortDto;
 import ru.practicum.shareit.booking.dto.BookingState;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.ServerClientFactory;
 
+import java.io.IOException;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 
 @Service
 public class BookingClient extends BaseClient {
     private static final String API_PREFIX = "/bookings";
+    private static final String ITEMS_PREFIX = "/items/";
+    private final ObjectMapper mapper;
 
+    /**
+     * Бронирование меняет lastBooking/nextBooking только у своего предмета, поэтому запись
+     * сбрасывает из кэша ответы по этому предмету, а не по всем /items/.
+     */
     @Autowired
-    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
-        super(
-                builder
-                        .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
-        );
+    public BookingClient(@Value("${shareit-server.url}") String serverUrl, ServerClientFactory clients,
+                         ObjectMapper mapper) {
+        super(clients.restTemplate(serverUrl + API_PREFIX), clients.webClient(serverUrl + API_PREFIX),
+                clients.responseCache());
+        this.mapper = mapper;
     }
 
-    public ResponseEntity<Object> createBooking(BookingShortDto bookingShortDto, long userId) {
-        return post("", bookingShortDto, userId);
+    public Mono<ResponseEntity<Object>> createBooking(BookingShortDto bookingShortDto, long userId) {
+        return post("", bookingShortDto, userId)
+                .doFinally(signal -> invalidateCached(ITEMS_PREFIX + bookingShortDto.getItemId()));
     }
 
-    public ResponseEntity<Object> approveOrDenyBooking(long bookingId, long userId, boolean approved) {
-        return patch("/" + bookingId + "?approved=" + approved, userId);
+    public Mono<ResponseEntity<Object>> approveOrDenyBooking(long bookingId, long userId, boolean approved) {
+        return patch("/" + bookingId + "?approved=" + approved, userId)
+                .doOnNext(response -> bookedItemId(response).ifPresent(itemId -> invalidateCached(ITEMS_PREFIX + itemId)));
     }
 
-    public ResponseEntity<Object> getBooking(long bookingId, long userId) {
+    public Mono<ResponseEntity<Object>> getBooking(long bookingId, long userId) {
         return get("/" + bookingId, userId);
     }
 
 
-    public ResponseEntity<Object> getAllUserBookings(long userId, BookingState state, int from, int size) {
-        Map<String, Object> parameters = Map.of(
+    public Mono<ResponseEntity<Object>> getAllUserBookings(long userId, BookingState state, int from, int size,
+                                                     String after, boolean withTotal) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "state", state.name(),
                 "from", from,
                 "size", size
-        );
-        return get("?state={state}&from={from}&size={size}", userId, parameters);
+        ));
+        return get("?state={state}&from={from}&size={size}" + pageParameters(after, withTotal, parameters), userId, parameters);
     }
 
-    public ResponseEntity<Object> getAllOwnerBookings(long userId, BookingState state, int from, int size) {
-        Map<String, Object> parameters = Map.of(
+    public Mono<ResponseEntity<Object>> getAllOwnerBookings(long userId, BookingState state, int from, int size,
+                                                      String after, boolean withTotal) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "state", state.name(),
                 "from", from,
                 "size", size
+        ));
+        return get("/owner?state={state}&from={from}&size={size}" + pageParameters(after, withTotal, parameters), userId, parameters);
+    }
+
+    public Mono<ResponseEntity<Object>> exportOwnerBookings(long userId, BookingState state, String format) {
+        Map<String, Object> parameters = Map.of(
+                "state", state.name(),
+                "format", format
         );
-        return get("/owner?state={state}&from={from}&size={size}", userId, parameters);
+        return getStream("/owner/export?state={state}&format={format}", userId, parameters);
+    }
+
+    /**
+     * id предмета из ответа сервера с бронированием (item.id), если запись удалась.
+     */
+    private Optional<Long> bookedItemId(ResponseEntity<Object> response) {
+        if (!response.getStatusCode().is2xxSuccessful() || !(response.getBody() instanceof byte[])) {
+            return Optional.empty();
+        }
+        try {
+            JsonNode itemId = mapper.readTree((byte[]) response.getBody()).path("item").path("id");
+            return itemId.isNumber() ? Optional.of(itemId.asLong()) : Optional.empty();
+        } catch (IOException exception) {
+            return Optional.empty();
+        }
     }
 }
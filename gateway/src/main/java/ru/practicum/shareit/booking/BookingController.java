@@ -8,6 +8,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.booking.dto.BookingShortDto;
 import ru.practicum.shareit.booking.dto.BookingState;
 import ru.practicum.shareit.booking.validation.BookingValidator;
@@ -17,6 +18,8 @@ import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.util.Locale;
+import java.util.Set;
 
 @Controller
 @RequestMapping(path = "/bookings")
@@ -24,12 +27,13 @@ import javax.validation.constraints.PositiveOrZero;
 @Slf4j
 @Validated
 public class BookingController {
+	private static final Set<String> EXPORT_FORMATS = Set.of("ndjson", "csv");
 	private final BookingClient bookingClient;
 	private final String userIdHeader = "X-Sharer-User-Id";
 
 	@PostMapping
 	@ResponseStatus(HttpStatus.CREATED)
-	public ResponseEntity<Object> createBooking(@Valid @RequestBody BookingShortDto bookingDto,
+	public Mono<ResponseEntity<Object>> createBooking(@Valid @RequestBody BookingShortDto bookingDto,
 	                                            @RequestHeader(userIdHeader) long userId) {
 		BookingValidator.validateBookingShortDto(bookingDto);
 		log.info("Принят запрос на создание booking {} от пользователя id = {}", bookingDto, userId);
@@ -38,7 +42,7 @@ public class BookingController {
 
 	@PatchMapping("/{bookingId}")
 	@ResponseStatus(HttpStatus.OK)
-	public ResponseEntity<Object> approveOrDenyBooking(@PathVariable long bookingId,
+	public Mono<ResponseEntity<Object>> approveOrDenyBooking(@PathVariable long bookingId,
 	                                                   @RequestParam @NotNull Boolean approved,
 	                                                   @RequestHeader(userIdHeader) long userId) {
 		log.info("Принят запрос на подтверждение бронирования id = {} от пользователя id = {}, approved = {}.",
@@ -48,7 +52,7 @@ public class BookingController {
 
 	@GetMapping("/{bookingId}")
 	@ResponseStatus(HttpStatus.OK)
-	public ResponseEntity<Object> getBooking(@PathVariable long bookingId,
+	public Mono<ResponseEntity<Object>> getBooking(@PathVariable long bookingId,
 	                             @RequestHeader(userIdHeader) long userId) {
 		log.info("Принят запрос на получение booking id = {} от пользователя id = {}", bookingId, userId);
 		return bookingClient.getBooking(bookingId, userId);
@@ -56,27 +60,46 @@ public class BookingController {
 
 	@GetMapping
 	@ResponseStatus(HttpStatus.OK)
-	public ResponseEntity<Object> getUserBookings(@RequestParam(required = false, defaultValue = "ALL") String state,
+	public Mono<ResponseEntity<Object>> getUserBookings(@RequestParam(required = false, defaultValue = "ALL") String state,
 	                                        @RequestHeader(userIdHeader) long userId,
 	                                        @PositiveOrZero @RequestParam(defaultValue = "0", required = false) int from,
-	                                        @Positive @RequestParam(defaultValue = "10", required = false) int size) {
+	                                        @Positive @RequestParam(defaultValue = "10", required = false) int size,
+	                                        @RequestParam(required = false) String after,
+	                                        @RequestParam(defaultValue = "false", required = false) boolean withTotal) {
 		BookingState stateParam = BookingState.from(state)
 				.orElseThrow(() -> new IllegalArgumentException("Unknown state: " + state));
 		log.info("Принят запрос на получение бронирований для пользователя id = {}. Параметры запроса:" +
-				"stateParam = {}, from = {}, size = {}.", userId, stateParam, from, size);
-		return bookingClient.getAllUserBookings(userId, stateParam, from, size);
+				"stateParam = {}, from = {}, size = {}, after = {}, withTotal = {}.", userId, stateParam, from, size, after, withTotal);
+		return bookingClient.getAllUserBookings(userId, stateParam, from, size, after, withTotal);
 	}
 
 	@GetMapping("/owner")
 	@ResponseStatus(HttpStatus.OK)
-	public ResponseEntity<Object> getOwnerBookings(@RequestParam(required = false, defaultValue = "ALL") String state,
+	public Mono<ResponseEntity<Object>> getOwnerBookings(@RequestParam(required = false, defaultValue = "ALL") String state,
 	                                         @RequestHeader(userIdHeader) long userId,
 	                                         @PositiveOrZero @RequestParam(defaultValue = "0", required = false) int from,
-	                                         @Positive @RequestParam(defaultValue = "10", required = false) int size) {
+	                                         @Positive @RequestParam(defaultValue = "10", required = false) int size,
+	                                         @RequestParam(required = false) String after,
+	                                         @RequestParam(defaultValue = "false", required = false) boolean withTotal) {
 		BookingState stateParam = BookingState.from(state)
 				.orElseThrow(() -> new IllegalArgumentException("Unknown state: " + state));
 		log.info("Принят запрос на получение бронирований для пользователя-владельца id = {}. Параметры запроса:" +
-				"stateParam = {}, from = {}, size = {}.", userId, stateParam, from, size);
-		return bookingClient.getAllOwnerBookings(userId, stateParam, from, size);
+				"stateParam = {}, from = {}, size = {}, after = {}, withTotal = {}.", userId, stateParam, from, size, after, withTotal);
+		return bookingClient.getAllOwnerBookings(userId, stateParam, from, size, after, withTotal);
+	}
+
+	@GetMapping("/owner/export")
+	@ResponseStatus(HttpStatus.OK)
+	public Mono<ResponseEntity<Object>> exportOwnerBookings(@RequestParam(required = false, defaultValue = "ALL") String state,
+	                                            @RequestParam(required = false, defaultValue = "ndjson") String format,
+	                                            @RequestHeader(userIdHeader) long userId) {
+		BookingState stateParam = BookingState.from(state)
+				.orElseThrow(() -> new IllegalArgumentException("Unknown state: " + state));
+		if (!EXPORT_FORMATS.contains(format.toLowerCase(Locale.ROOT))) {
+			throw new IllegalArgumentException("Unknown format: " + format);
+		}
+		log.info("Принят запрос на выгрузку бронирований для пользователя-владельца id = {}. Параметры запроса:" +
+				"stateParam = {}, format = {}.", userId, stateParam, format);
+		return bookingClient.exportOwnerBookings(userId, stateParam, format);
 	}
 }
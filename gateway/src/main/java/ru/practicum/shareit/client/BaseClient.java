@@ -1,98 +1,277 @@
 package ru.practicum.shareit.client;
 
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.lang.Nullable;
 import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 
+/**
+ * Проксирует запросы к серверу. Ответ отдаётся как Mono: в обычном режиме запрос выполняет
+ * RestTemplate в момент подписки, и BlockingResponseConfiguration пишет его как обычный
+ * ResponseEntity в том же потоке сервлета. В неблокирующем (задан WebClient) поток сервлета
+ * освобождается до прихода ответа сервера. Статус, заголовки и байты тела ответа
+ * передаются клиенту без разбора JSON, проверяются только тела входящих запросов. Поток
+ * соединения с сервером отдаётся клиенту только в getStream/postStream.
+ */
 public class BaseClient {
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final Set<String> HOP_BY_HOP_HEADERS = Set.of(
+            "connection", "keep-alive", "transfer-encoding", "te", "trailer", "upgrade",
+            "proxy-authenticate", "proxy-authorization");
+    /**
+     * По ним Spring отвечает клиенту 304 без тела. Потоковый ответ тогда никто не дочитал бы
+     * и не закрыл, и соединение с сервером не вернулось бы в пул.
+     */
+    private static final Set<String> CONDITIONAL_HEADERS = Set.of("etag", "last-modified");
+    /**
+     * Сервер считает ETag только для запросов с If-None-Match или с этим заголовком. При промахе кэша
+     * шлюзу нечего подставить в If-None-Match, и он просит тег явно, чтобы потом перепроверять ответ.
+     */
+    private static final String TAG_REQUEST_HEADER = "X-Want-Etag";
+
     protected final RestTemplate rest;
+    @Nullable
+    protected final WebClient web;
+    @Nullable
+    private final ResponseCache cache;
+    private final List<String> invalidatedOnWrite;
 
     public BaseClient(RestTemplate rest) {
+        this(rest, null, null);
+    }
+
+    public BaseClient(RestTemplate rest, @Nullable WebClient web) {
+        this(rest, web, null);
+    }
+
+    /**
+     * @param invalidatedOnWrite префиксы путей других ресурсов, закэшированные ответы по которым
+     *                           устаревают после записи через этот клиент
+     */
+    public BaseClient(RestTemplate rest, @Nullable WebClient web, @Nullable ResponseCache cache,
+                      String... invalidatedOnWrite) {
         this.rest = rest;
+        this.web = web;
+        this.cache = cache != null && cache.isEnabled() ? cache : null;
+        this.invalidatedOnWrite = List.of(invalidatedOnWrite);
     }
 
-    protected ResponseEntity<Object> get(String path) {
+    protected Mono<ResponseEntity<Object>> get(String path) {
         return get(path, null, null);
     }
 
-    protected ResponseEntity<Object> get(String path, long userId) {
+    protected Mono<ResponseEntity<Object>> get(String path, long userId) {
         return get(path, userId, null);
     }
 
-    protected ResponseEntity<Object> get(String path, Long userId, @Nullable Map<String, Object> parameters) {
+    protected Mono<ResponseEntity<Object>> get(String path, Long userId, @Nullable Map<String, Object> parameters) {
         return makeAndSendRequest(HttpMethod.GET, path, userId, parameters, null);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, T body) {
+    /**
+     * GET одной сущности через кэш ответов.
+     */
+    protected Mono<ResponseEntity<Object>> getCached(String path, @Nullable Long userId) {
+        if (cache == null) {
+            return get(path, userId, null);
+        }
+        URI uri = rest.getUriTemplateHandler().expand(path);
+        ResponseCache.Key key = ResponseCache.key(uri, userId);
+        ResponseCache.Entry cached = cache.get(key);
+        if (cached != null && cache.isFresh(cached)) {
+            return Mono.just(cached.toResponse());
+        }
+        HttpHeaders headers = defaultHeaders(userId);
+        if (cached != null && cached.getEtag() != null) {
+            headers.setIfNoneMatch(cached.getEtag());
+        } else {
+            headers.set(TAG_REQUEST_HEADER, "true");
+        }
+        long generation = cache.generation();
+        return exchangeForBytes(HttpMethod.GET, uri, headers, null).map(response -> {
+            if (cached != null && response.getStatusCode() == HttpStatus.NOT_MODIFIED) {
+                return cache.revalidated(key, cached, generation).toResponse();
+            }
+            cache.put(key, response, generation);
+            return relay(response);
+        });
+    }
+
+    /**
+     * GET с большим телом ответа: всегда через RestTemplate, тело передаётся клиенту по мере
+     * чтения из соединения с сервером. WebClient здесь не используется — он собирает ответ в память.
+     */
+    protected Mono<ResponseEntity<Object>> getStream(String path, long userId, Map<String, Object> parameters) {
+        URI uri = rest.getUriTemplateHandler().expand(path, parameters);
+        return Mono.fromSupplier(() -> sendStreaming(rest, HttpMethod.GET, uri, defaultHeaders(userId), null));
+    }
+
+    protected <T> Mono<ResponseEntity<Object>> post(String path, T body) {
         return post(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, T body, long userId) {
+    protected <T> Mono<ResponseEntity<Object>> post(String path, T body, long userId) {
         return post(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> Mono<ResponseEntity<Object>> post(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.POST, path, userId, parameters, body);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, long userId, T body) {
+    /**
+     * POST тела NDJSON без буферизации в шлюзе: тело запроса клиента передаётся серверу по мере
+     * чтения. uploads — RestTemplate из ServerClientFactory.uploadRestTemplate, обычный собрал бы
+     * тело в память. Ответ, как и в getStream, тоже не буферизуется.
+     */
+    protected Mono<ResponseEntity<Object>> postStream(RestTemplate uploads, String path, @Nullable Long userId,
+                                                      InputStream body) {
+        URI uri = uploads.getUriTemplateHandler().expand(path);
+        HttpHeaders headers = defaultHeaders(userId);
+        headers.setContentType(NDJSON);
+        return Mono.fromSupplier(() -> sendStreaming(uploads, HttpMethod.POST, uri, headers,
+                new InputStreamResource(body)));
+    }
+
+    protected <T> Mono<ResponseEntity<Object>> put(String path, long userId, T body) {
         return put(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, long userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> Mono<ResponseEntity<Object>> put(String path, long userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.PUT, path, userId, parameters, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, T body) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, T body) {
         return patch(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, long userId) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, long userId) {
         return patch(path, userId, null, null);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, long userId, T body) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, long userId, T body) {
         return patch(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.PATCH, path, userId, parameters, body);
     }
 
-    protected ResponseEntity<Object> delete(String path) {
+    protected Mono<ResponseEntity<Object>> delete(String path) {
         return delete(path, null, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, long userId) {
+    protected Mono<ResponseEntity<Object>> delete(String path, long userId) {
         return delete(path, userId, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, Long userId, @Nullable Map<String, Object> parameters) {
+    protected Mono<ResponseEntity<Object>> delete(String path, Long userId, @Nullable Map<String, Object> parameters) {
         return makeAndSendRequest(HttpMethod.DELETE, path, userId, parameters, null);
     }
 
-    private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
-        HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId));
+    /**
+     * Сбрасывает закэшированные ответы по пути, который затронула запись через этот клиент.
+     */
+    protected void invalidateCached(String path) {
+        if (cache != null) {
+            cache.invalidate(path);
+        }
+    }
 
-        ResponseEntity<Object> shareitServerResponse;
+    protected static String pageParameters(@Nullable String after, boolean withTotal, Map<String, Object> parameters) {
+        StringBuilder query = new StringBuilder();
+        if (after != null) {
+            parameters.put("after", after);
+            query.append("&after={after}");
+        }
+        if (withTotal) {
+            parameters.put("withTotal", true);
+            query.append("&withTotal={withTotal}");
+        }
+        return query.toString();
+    }
+
+    private <T> Mono<ResponseEntity<Object>> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
+        URI uri = parameters != null
+                ? rest.getUriTemplateHandler().expand(path, parameters)
+                : rest.getUriTemplateHandler().expand(path);
+        Mono<ResponseEntity<Object>> response = exchangeForBytes(method, uri, defaultHeaders(userId), body)
+                .map(BaseClient::relay);
+        if (cache == null || method == HttpMethod.GET) {
+            return response;
+        }
+        return response.doFinally(signal -> {
+            cache.invalidate(uri.getRawPath());
+            invalidatedOnWrite.forEach(cache::invalidatePrefix);
+        });
+    }
+
+    /**
+     * Тело ответа не разбирается: поток соединения с сервером отдаётся клиенту как есть,
+     * соединение возвращается в пул после дочитывания ответа.
+     */
+    private <T> ResponseEntity<Object> sendStreaming(RestTemplate template, HttpMethod method, URI uri,
+                                                     HttpHeaders headers, @Nullable T body) {
         try {
-            if (parameters != null) {
-                shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class, parameters);
-            } else {
-                shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class);
-            }
-        } catch (HttpStatusCodeException e) {
-            return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsByteArray());
+            ClientHttpRequest request = template.getRequestFactory().createRequest(uri, method);
+            template.httpEntityCallback(new HttpEntity<>(body, headers)).doWithRequest(request);
+            ClientHttpResponse response = request.execute();
+            return ResponseEntity.status(response.getRawStatusCode())
+                    .headers(streamedHeaders(response.getHeaders()))
+                    .body(new InputStreamResource(new ResponseBodyStream(response)));
+        } catch (IOException exception) {
+            throw new ResourceAccessException("Ошибка обращения к серверу " + method + " " + uri + ": "
+                    + exception.getMessage(), exception);
         }
-        return prepareGatewayResponse(shareitServerResponse);
+    }
+
+    /**
+     * Ответ целиком в памяти, соединение сразу возвращается в пул. Для всех запросов, кроме
+     * getStream/postStream: их ответы невелики, а кэшу тело нужно сохранить.
+     */
+    private <T> Mono<ResponseEntity<byte[]>> exchangeForBytes(HttpMethod method, URI uri, HttpHeaders headers,
+                                                              @Nullable T body) {
+        if (web != null) {
+            WebClient.RequestBodySpec request = web.method(method)
+                    .uri(uri)
+                    .headers(requestHeaders -> requestHeaders.addAll(headers));
+            WebClient.RequestHeadersSpec<?> spec = body != null ? request.bodyValue(body) : request;
+            return spec.exchangeToMono(response -> response.toEntity(byte[].class));
+        }
+        return Mono.fromSupplier(() -> {
+            try {
+                return rest.exchange(uri, method, new HttpEntity<>(body, headers), byte[].class);
+            } catch (HttpStatusCodeException exception) {
+                return ResponseEntity.status(exception.getRawStatusCode())
+                        .headers(exception.getResponseHeaders())
+                        .body(exception.getResponseBodyAsByteArray());
+            }
+        });
+    }
+
+    private static ResponseEntity<Object> relay(ResponseEntity<byte[]> response) {
+        return ResponseEntity.status(response.getStatusCodeValue())
+                .headers(relayedHeaders(response.getHeaders()))
+                .body(response.getBody());
     }
 
     private HttpHeaders defaultHeaders(Long userId) {
@@ -105,17 +284,40 @@ public class BaseClient {
         return headers;
     }
 
-    private static ResponseEntity<Object> prepareGatewayResponse(ResponseEntity<Object> response) {
-        if (response.getStatusCode().is2xxSuccessful()) {
-            return response;
-        }
+    private static HttpHeaders relayedHeaders(HttpHeaders serverHeaders) {
+        HttpHeaders headers = new HttpHeaders();
+        serverHeaders.forEach((name, values) -> {
+            if (!HOP_BY_HOP_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                headers.addAll(name, values);
+            }
+        });
+        return headers;
+    }
 
-        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(response.getStatusCode());
+    private static HttpHeaders streamedHeaders(HttpHeaders serverHeaders) {
+        HttpHeaders headers = relayedHeaders(serverHeaders);
+        CONDITIONAL_HEADERS.forEach(headers::remove);
+        return headers;
+    }
+
+    /**
+     * Закрывает ответ сервера вместе с потоком, чтобы соединение вернулось в пул.
+     */
+    private static class ResponseBodyStream extends FilterInputStream {
+        private final ClientHttpResponse response;
 
-        if (response.hasBody()) {
-            return responseBuilder.body(response.getBody());
+        ResponseBodyStream(ClientHttpResponse response) throws IOException {
+            super(response.getBody());
+            this.response = response;
         }
 
-        return responseBuilder.build();
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                response.close();
+            }
+        }
     }
 }
@@ -0,0 +1,100 @@
+package ru.practicum.shareit.client;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandler;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.servlet.mvc.method.annotation.HttpEntityMethodProcessor;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Без WebClient *Client выполняют запрос RestTemplate в потоке сервлета, ждать там нечего. Mono из
+ * контроллера Spring MVC всё равно обработал бы через async dispatch — второй проход запроса
+ * через фильтры и DispatcherServlet. В этом режиме Mono разрешается сразу и ответ пишется как
+ * обычный ResponseEntity. С shareit-server.http.reactive=true конфигурация не подключается.
+ */
+@Configuration
+@ConditionalOnProperty(name = "shareit-server.http.reactive", havingValue = "false", matchIfMissing = true)
+public class BlockingResponseConfiguration implements SmartInitializingSingleton {
+    private final RequestMappingHandlerAdapter adapter;
+
+    public BlockingResponseConfiguration(RequestMappingHandlerAdapter adapter) {
+        this.adapter = adapter;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        List<HandlerMethodReturnValueHandler> handlers = new ArrayList<>(adapter.getReturnValueHandlers());
+        HandlerMethodReturnValueHandler entities = handlers.stream()
+                .filter(HttpEntityMethodProcessor.class::isInstance)
+                .findFirst()
+                .orElseThrow();
+        // Стандартный обработчик Mono стоит раньше пользовательских, поэтому этот ставится первым.
+        handlers.add(0, new BlockingResponseHandler(entities));
+        adapter.setReturnValueHandlers(handlers);
+    }
+
+    static class BlockingResponseHandler implements HandlerMethodReturnValueHandler {
+        private final HandlerMethodReturnValueHandler entities;
+
+        BlockingResponseHandler(HandlerMethodReturnValueHandler entities) {
+            this.entities = entities;
+        }
+
+        @Override
+        public boolean supportsReturnType(MethodParameter returnType) {
+            return Mono.class.isAssignableFrom(returnType.getParameterType())
+                    && ResponseEntity.class.equals(ResolvableType.forMethodParameter(returnType).getGeneric().resolve());
+        }
+
+        @Override
+        public void handleReturnValue(@Nullable Object returnValue, MethodParameter returnType,
+                                      ModelAndViewContainer mavContainer, NativeWebRequest webRequest) throws Exception {
+            Object response = returnValue != null ? ((Mono<?>) returnValue).block() : null;
+            entities.handleReturnValue(response, new EntityParameter(returnType), mavContainer, webRequest);
+        }
+    }
+
+    /**
+     * Параметр метода контроллера, у которого тип результата — ResponseEntity из Mono.
+     */
+    private static class EntityParameter extends MethodParameter {
+        private final Type entityType;
+
+        EntityParameter(MethodParameter returnType) {
+            super(returnType);
+            this.entityType = ResolvableType.forMethodParameter(returnType).getGeneric().getType();
+        }
+
+        private EntityParameter(EntityParameter original) {
+            super(original);
+            this.entityType = original.entityType;
+        }
+
+        @Override
+        public Class<?> getParameterType() {
+            return ResponseEntity.class;
+        }
+
+        @Override
+        public Type getGenericParameterType() {
+            return entityType;
+        }
+
+        @Override
+        public EntityParameter clone() {
+            return new EntityParameter(this);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package ru.practicum.shareit.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import lombok.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Кэш успешных ответов сервера на GET одной сущности. Ключ — путь, запрос и X-Sharer-User-Id.
+ * Размер ограничен суммой тел ответов, вытеснение — W-TinyLFU (Caffeine). Свежий ответ
+ * отдаётся без обращения к серверу, устаревший с ETag перепроверяется условным запросом.
+ */
+public class ResponseCache {
+    private static final int ENTRY_OVERHEAD = 256;
+
+    private final boolean enabled;
+    private final long ttlNanos;
+    private final Cache<Key, Entry> cache;
+    private final AtomicLong generation = new AtomicLong();
+
+    public ResponseCache(ResponseCacheProperties properties) {
+        this.enabled = properties.isEnabled();
+        this.ttlNanos = properties.getTtl().toNanos();
+        long maxIdleNanos = Math.max(properties.getMaxIdle().toNanos(), ttlNanos);
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaxSize().toBytes())
+                .weigher((Key key, Entry entry) -> ENTRY_OVERHEAD + entry.getBody().length)
+                .expireAfter(new Expiry<Key, Entry>() {
+                    @Override
+                    public long expireAfterCreate(Key key, Entry entry, long currentTime) {
+                        return entry.getEtag() != null ? maxIdleNanos : ttlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Key key, Entry entry, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, entry, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(Key key, Entry entry, long currentTime, long currentDuration) {
+                        return entry.getEtag() != null ? maxIdleNanos : currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public static Key key(URI uri, @Nullable Long userId) {
+        return new Key(uri.getRawPath(), uri.getRawQuery(), userId);
+    }
+
+    @Nullable
+    public Entry get(Key key) {
+        return cache.getIfPresent(key);
+    }
+
+    /**
+     * Номер поколения: ответ, запрошенный до записи через шлюз, после неё не кэшируется.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    public void put(Key key, ResponseEntity<byte[]> response, long requestGeneration) {
+        if (response.getStatusCode() != HttpStatus.OK || response.getBody() == null) {
+            return;
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(response.getHeaders());
+        headers.remove(HttpHeaders.DATE);
+        Entry entry = new Entry(headers, response.getBody(), response.getHeaders().getETag(), System.nanoTime());
+        cache.asMap().compute(key, (ignored, old) -> generation.get() == requestGeneration ? entry : old);
+    }
+
+    /**
+     * Сервер ответил 304 — кэшированный ответ снова свежий.
+     */
+    public Entry revalidated(Key key, Entry entry, long requestGeneration) {
+        Entry fresh = new Entry(entry.getHeaders(), entry.getBody(), entry.getEtag(), System.nanoTime());
+        cache.asMap().computeIfPresent(key, (ignored, old) ->
+                old == entry && generation.get() == requestGeneration ? fresh : old);
+        return fresh;
+    }
+
+    /**
+     * Удаляет ответы по изменённому пути, по его родительским и дочерним путям.
+     */
+    public void invalidate(String path) {
+        generation.incrementAndGet();
+        cache.asMap().keySet().removeIf(key -> key.getPath().equals(path)
+                || path.startsWith(key.getPath() + "/")
+                || key.getPath().startsWith(path + "/"));
+    }
+
+    public void invalidatePrefix(String prefix) {
+        generation.incrementAndGet();
+        cache.asMap().keySet().removeIf(key -> key.getPath().startsWith(prefix));
+    }
+
+    public boolean isFresh(Entry entry) {
+        return System.nanoTime() - entry.getStoredAt() < ttlNanos;
+    }
+
+    @Value
+    public static class Key {
+        String path;
+        @Nullable
+        String query;
+        @Nullable
+        Long userId;
+    }
+
+    @Value
+    public static class Entry {
+        HttpHeaders headers;
+        byte[] body;
+        @Nullable
+        String etag;
+        long storedAt;
+
+        public ResponseEntity<Object> toResponse() {
+            return ResponseEntity.ok().headers(headers).body(body);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package ru.practicum.shareit.client;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Настройки кэша ответов сервера в шлюзе.
+ */
+@Data
+@ConfigurationProperties(prefix = "shareit-server.cache")
+public class ResponseCacheProperties {
+    private boolean enabled = true;
+    /**
+     * Сколько ответ отдаётся из кэша без обращения к серверу.
+     */
+    private Duration ttl = Duration.ofSeconds(30);
+    /**
+     * После ttl ответ с ETag ещё хранится для условного запроса, пока к нему обращаются.
+     */
+    private Duration maxIdle = Duration.ofMinutes(10);
+    /**
+     * Суммарный размер тел ответов в кэше.
+     */
+    private DataSize maxSize = DataSize.ofMegabytes(16);
+}
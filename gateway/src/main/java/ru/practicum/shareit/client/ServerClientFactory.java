@@ -0,0 +1,134 @@
+package ru.practicum.shareit.client;
+
+import io.netty.channel.ChannelOption;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Один пул соединений с сервером на все *Client шлюза: у каждого клиента свой базовый
+ * путь, но соединения, таймауты и вытеснение простаивающих соединений общие. Кэш ответов
+ * тоже один, чтобы запись через одного клиента сбрасывала ответы, закэшированные другим.
+ */
+@Component
+@EnableConfigurationProperties({ServerClientProperties.class, ResponseCacheProperties.class})
+public class ServerClientFactory implements DisposableBean {
+    private final RestTemplateBuilder restTemplateBuilder;
+    private final WebClient.Builder webClientBuilder;
+    private final HttpComponentsClientHttpRequestFactory requestFactory;
+    private final HttpComponentsClientHttpRequestFactory uploadRequestFactory;
+    @Nullable
+    private final ConnectionProvider connectionProvider;
+    @Nullable
+    private final ReactorClientHttpConnector connector;
+    private final ResponseCache responseCache;
+    private final int maxInMemorySize;
+
+    public ServerClientFactory(ServerClientProperties properties,
+                               ResponseCacheProperties cacheProperties,
+                               RestTemplateBuilder restTemplateBuilder,
+                               WebClient.Builder webClientBuilder) {
+        this.responseCache = new ResponseCache(cacheProperties);
+        this.restTemplateBuilder = restTemplateBuilder;
+        this.webClientBuilder = webClientBuilder;
+        this.maxInMemorySize = (int) properties.getMaxInMemorySize().toBytes();
+        CloseableHttpClient httpClient = pooledHttpClient(properties);
+        this.requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+        this.uploadRequestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+        this.uploadRequestFactory.setBufferRequestBody(false);
+        if (properties.isReactive()) {
+            // Reactor Netty держит отдельный пул на каждый адрес, maxConnections — предел одного
+            // такого пула, то есть аналог setDefaultMaxPerRoute. Адрес у шлюза один, поэтому
+            // общий предел max-connections соблюдается тем же числом.
+            this.connectionProvider = ConnectionProvider.builder("shareit-server")
+                    .maxConnections(Math.min(properties.getMaxConnections(), properties.getMaxConnectionsPerRoute()))
+                    .pendingAcquireTimeout(properties.getAcquireTimeout())
+                    .maxIdleTime(properties.getIdleTimeout())
+                    .evictInBackground(properties.getIdleTimeout())
+                    .build();
+            this.connector = new ReactorClientHttpConnector(HttpClient.create(connectionProvider)
+                    .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) properties.getConnectTimeout().toMillis())
+                    .responseTimeout(properties.getReadTimeout()));
+        } else {
+            this.connectionProvider = null;
+            this.connector = null;
+        }
+    }
+
+    public RestTemplate restTemplate(String baseUrl) {
+        return restTemplateBuilder
+                .uriTemplateHandler(new DefaultUriBuilderFactory(baseUrl))
+                .requestFactory(() -> requestFactory)
+                .build();
+    }
+
+    /**
+     * RestTemplate для больших тел запросов: тело пишется в соединение с сервером по мере
+     * чтения, без копии в памяти. Пул соединений тот же, что у restTemplate.
+     */
+    public RestTemplate uploadRestTemplate(String baseUrl) {
+        return restTemplateBuilder
+                .uriTemplateHandler(new DefaultUriBuilderFactory(baseUrl))
+                .requestFactory(() -> uploadRequestFactory)
+                .build();
+    }
+
+    /**
+     * WebClient для неблокирующего режима или null, если он выключен.
+     */
+    @Nullable
+    public WebClient webClient(String baseUrl) {
+        if (connector == null) {
+            return null;
+        }
+        return webClientBuilder.clone()
+                .uriBuilderFactory(new DefaultUriBuilderFactory(baseUrl))
+                .clientConnector(connector)
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(maxInMemorySize))
+                .build();
+    }
+
+    public ResponseCache responseCache() {
+        return responseCache;
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        requestFactory.destroy();
+        if (connectionProvider != null) {
+            connectionProvider.dispose();
+        }
+    }
+
+    private static CloseableHttpClient pooledHttpClient(ServerClientProperties properties) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(properties.getMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(properties.getMaxConnectionsPerRoute());
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout((int) properties.getConnectTimeout().toMillis())
+                .setSocketTimeout((int) properties.getReadTimeout().toMillis())
+                .setConnectionRequestTimeout((int) properties.getAcquireTimeout().toMillis())
+                .build();
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .evictExpiredConnections()
+                .evictIdleConnections(properties.getIdleTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+}
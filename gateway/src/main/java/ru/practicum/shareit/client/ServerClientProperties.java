@@ -0,0 +1,43 @@
+package ru.practicum.shareit.client;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Настройки общего пула соединений шлюза с сервером ShareIt.
+ */
+@Data
+@ConfigurationProperties(prefix = "shareit-server.http")
+public class ServerClientProperties {
+    /**
+     * Всего соединений в пуле.
+     */
+    private int maxConnections = 200;
+    /**
+     * Соединений на один хост (у шлюза он единственный — сервер).
+     */
+    private int maxConnectionsPerRoute = 200;
+    private Duration connectTimeout = Duration.ofSeconds(2);
+    private Duration readTimeout = Duration.ofSeconds(30);
+    /**
+     * Сколько ждать свободного соединения из пула.
+     */
+    private Duration acquireTimeout = Duration.ofSeconds(5);
+    /**
+     * Простаивающие дольше соединения закрываются фоновым потоком.
+     */
+    private Duration idleTimeout = Duration.ofSeconds(30);
+    /**
+     * Наибольшее тело ответа, которое WebClient собирает в памяти. У RestTemplate такого
+     * предела нет, поэтому значение должно покрывать самые длинные списки.
+     */
+    private DataSize maxInMemorySize = DataSize.ofMegabytes(16);
+    /**
+     * Неблокирующий режим: запросы к серверу идут через WebClient (Reactor Netty)
+     * и не занимают поток сервлета на время ожидания ответа.
+     */
+    private boolean reactive = false;
+}
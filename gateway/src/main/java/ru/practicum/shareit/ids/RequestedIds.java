@@ -0,0 +1,25 @@
+package ru.practicum.shareit.ids;
+
+import ru.practicum.shareit.exception.ValidationException;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Список id из запроса вида ?ids=3,1,2. Повторы убираются до проверки предела — так же, как на сервере
+ * (RequestedIds сервера), иначе шлюз отклонял бы запросы, которые сервер принимает.
+ */
+public final class RequestedIds {
+    public static final int MAX_IDS = 100;
+
+    private RequestedIds() {
+    }
+
+    public static List<Long> distinct(List<Long> ids) {
+        List<Long> distinct = ids.stream().distinct().collect(Collectors.toList());
+        if (distinct.size() > MAX_IDS) {
+            throw new ValidationException("Нельзя запросить больше " + MAX_IDS + " id за раз.");
+        }
+        return distinct;
+    }
+}
@@ -2,62 +2,73 @@ package ru.practicum.shareit.item;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.web.util.DefaultUriBuilderFactory;
+import org.springframework.web.client.RestTemplate;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.ServerClientFactory;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemForUpdate;
 
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 public class ItemClient extends BaseClient {
     private static final String API_PREFIX = "/items";
+    private final RestTemplate uploads;
 
     @Autowired
-    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
-        super(
-                builder
-                        .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
-        );
+    public ItemClient(@Value("${shareit-server.url}") String serverUrl, ServerClientFactory clients) {
+        super(clients.restTemplate(serverUrl + API_PREFIX), clients.webClient(serverUrl + API_PREFIX),
+                clients.responseCache(), "/requests/");
+        this.uploads = clients.uploadRestTemplate(serverUrl + API_PREFIX);
     }
 
-    public ResponseEntity<Object> createItem(ItemDto itemDto, long userId) {
+    public Mono<ResponseEntity<Object>> createItem(ItemDto itemDto, long userId) {
         return post("", itemDto, userId);
     }
 
-    public ResponseEntity<Object> updateItem(ItemForUpdate item, long itemId, long userId) {
+    public Mono<ResponseEntity<Object>> importItems(InputStream body, long userId) {
+        return postStream(uploads, "/bulk", userId, body);
+    }
+
+    public Mono<ResponseEntity<Object>> updateItem(ItemForUpdate item, long itemId, long userId) {
         return patch("/" + itemId, userId, item);
     }
 
-    public ResponseEntity<Object> getItem(long itemId, long userId) {
-        return get("/" + itemId, userId);
+    public Mono<ResponseEntity<Object>> getItem(long itemId, long userId) {
+        return getCached("/" + itemId, userId);
     }
 
-    public ResponseEntity<Object> getItems(long userId, int from, int size) {
-        Map<String, Object> parameters = Map.of(
+    public Mono<ResponseEntity<Object>> getItems(long userId, int from, int size, String after, boolean withTotal) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "from", from,
                 "size", size
-        );
-        return get("?from={from}&size={size}", userId, parameters);
+        ));
+        return get("?from={from}&size={size}" + pageParameters(after, withTotal, parameters), userId, parameters);
+    }
+
+    public Mono<ResponseEntity<Object>> getItemsByIds(List<Long> ids, long userId) {
+        Map<String, Object> parameters = Map.of("ids", ids.stream().map(String::valueOf).collect(Collectors.joining(",")));
+        return get("?ids={ids}", userId, parameters);
     }
 
-    public ResponseEntity<Object> searchItems(String text, int from, int size, long userId) {
-        Map<String, Object> parameters = Map.of(
+    public Mono<ResponseEntity<Object>> searchItems(String text, int from, int size, String after, long userId) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "text", text,
                 "from", from,
                 "size", size
-        );
-        return get("/search?text={text}&from={from}&size={size}", userId, parameters);
+        ));
+        return get("/search?text={text}&from={from}&size={size}" + pageParameters(after, false, parameters), userId, parameters);
     }
 
-    public ResponseEntity<Object> createComment(CommentDto comment, long itemId, long userId) {
+    public Mono<ResponseEntity<Object>> createComment(CommentDto comment, long itemId, long userId) {
         return post("/" + itemId + "/comment", comment, userId);
     }
 }
@@ -6,13 +6,18 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+import ru.practicum.shareit.ids.RequestedIds;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemForUpdate;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.io.IOException;
+import java.util.List;
 
 @RestController
 @RequestMapping(path = "/items")
@@ -25,15 +30,26 @@ public class ItemController {
 
     @ResponseStatus(HttpStatus.CREATED)
     @PostMapping
-    public ResponseEntity<Object> createItem(@Valid @RequestBody ItemDto item,
+    public Mono<ResponseEntity<Object>> createItem(@Valid @RequestBody ItemDto item,
                                              @RequestHeader(userIdHeader) long userId) {
         log.info("Принят запрос на создание itemId.");
         return itemClient.createItem(item, userId);
     }
 
+    /**
+     * Тело NDJSON не разбирается в шлюзе: строки проверяет сервер и возвращает ошибки по номерам строк.
+     */
+    @PostMapping("/bulk")
+    @ResponseStatus(HttpStatus.OK)
+    public Mono<ResponseEntity<Object>> importItems(@RequestHeader(userIdHeader) long userId,
+                                                    HttpServletRequest request) throws IOException {
+        log.info("Принят запрос на пакетное создание item от пользователя {}.", userId);
+        return itemClient.importItems(request.getInputStream(), userId);
+    }
+
     @PatchMapping("/{itemId}")
     @ResponseStatus(HttpStatus.OK)
-    public ResponseEntity<Object> updateItem(@RequestBody @Valid ItemForUpdate item,
+    public Mono<ResponseEntity<Object>> updateItem(@RequestBody @Valid ItemForUpdate item,
                                              @PathVariable long itemId,
                                              @RequestHeader(userIdHeader) long userId) {
         log.info("Принят запрос на изменения itemId id = {}.", itemId);
@@ -42,33 +58,45 @@ public class ItemController {
 
     @GetMapping("/{itemId}")
     @ResponseStatus(HttpStatus.OK)
-    public ResponseEntity<Object> getItem(@PathVariable long itemId, @RequestHeader(userIdHeader) long userId) {
+    public Mono<ResponseEntity<Object>> getItem(@PathVariable long itemId, @RequestHeader(userIdHeader) long userId) {
         log.info("Принят запрос на получение itemId id = {}.", itemId);
         return itemClient.getItem(itemId, userId);
     }
 
     @GetMapping
     @ResponseStatus(HttpStatus.OK)
-    public ResponseEntity<Object> getItems(@RequestHeader(userIdHeader) long userId,
+    public Mono<ResponseEntity<Object>> getItems(@RequestHeader(userIdHeader) long userId,
                                            @PositiveOrZero @RequestParam(defaultValue = "0", required = false) int from,
-                                           @Positive @RequestParam(defaultValue = "10", required = false) int size) {
+                                           @Positive @RequestParam(defaultValue = "10", required = false) int size,
+                                           @RequestParam(required = false) String after,
+                                           @RequestParam(defaultValue = "false", required = false) boolean withTotal) {
         log.info("Принят запрос на получение всех itemId для пользователя {}.", userId);
-        return itemClient.getItems(userId, from, size);
+        return itemClient.getItems(userId, from, size, after, withTotal);
+    }
+
+    @GetMapping(params = "ids")
+    @ResponseStatus(HttpStatus.OK)
+    public Mono<ResponseEntity<Object>> getItemsByIds(@RequestParam List<Long> ids,
+                                                      @RequestHeader(userIdHeader) long userId) {
+        List<Long> distinct = RequestedIds.distinct(ids);
+        log.info("Принят запрос на получение item с id {} от пользователя {}.", distinct, userId);
+        return itemClient.getItemsByIds(distinct, userId);
     }
 
     @GetMapping("/search")
     @ResponseStatus(HttpStatus.OK)
-    public ResponseEntity<Object> searchItems(@RequestHeader(userIdHeader) long userId,
+    public Mono<ResponseEntity<Object>> searchItems(@RequestHeader(userIdHeader) long userId,
                                               @RequestParam String text,
                                               @PositiveOrZero @RequestParam(defaultValue = "0", required = false) int from,
-                                              @Positive @RequestParam(defaultValue = "10", required = false) int size) {
+                                              @Positive @RequestParam(defaultValue = "10", required = false) int size,
+                                              @RequestParam(required = false) String after) {
         log.info("Принят запрос на поиск itemId, где название или описание содержит '{}'", text);
-        return itemClient.searchItems(text, from, size, userId);
+        return itemClient.searchItems(text, from, size, after, userId);
     }
 
     @PostMapping("/{itemId}/comment")
     @ResponseStatus(HttpStatus.OK)
-    public ResponseEntity<Object> createComment(@Valid @RequestBody CommentDto comment,
+    public Mono<ResponseEntity<Object>> createComment(@Valid @RequestBody CommentDto comment,
                                                 @PathVariable long itemId,
                                                 @RequestHeader(userIdHeader) long userId) {
         log.info("Принят запрос на пост Comment'а для itemId id {} от пользователя {}.", itemId, userId);
@@ -0,0 +1,34 @@
+package ru.practicum.shareit.metrics;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.boot.actuate.metrics.web.servlet.WebMvcTagsContributor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Добавляет к таймеру http.server.requests метод контроллера, например ItemController.getItem.
+ * Такой же класс есть в модуле server: общего модуля у шлюза и сервера нет, и копия намеренная.
+ */
+@Component
+public class HandlerMethodTagsContributor implements WebMvcTagsContributor {
+    private static final Tag NONE = Tag.of("handler", "none");
+
+    @Override
+    public Iterable<Tag> getTags(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                 Throwable exception) {
+        if (handler instanceof HandlerMethod) {
+            HandlerMethod method = (HandlerMethod) handler;
+            return Tags.of("handler", method.getBeanType().getSimpleName() + "." + method.getMethod().getName());
+        }
+        return Tags.of(NONE);
+    }
+
+    @Override
+    public Iterable<Tag> getLongRequestTags(HttpServletRequest request, Object handler) {
+        return Tags.empty();
+    }
+}
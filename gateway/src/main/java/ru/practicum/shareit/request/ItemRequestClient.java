@@ -2,14 +2,14 @@ package ru.practicum.shareit.request;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.ServerClientFactory;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 
+import java.util.HashMap;
 import java.util.Map;
 
 @Service
@@ -17,32 +17,28 @@ public class ItemRequestClient extends BaseClient {
     private static final String API_PREFIX = "/requests";
 
     @Autowired
-    public ItemRequestClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
-        super(
-                builder
-                        .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
-        );
+    public ItemRequestClient(@Value("${shareit-server.url}") String serverUrl, ServerClientFactory clients) {
+        super(clients.restTemplate(serverUrl + API_PREFIX), clients.webClient(serverUrl + API_PREFIX),
+                clients.responseCache());
     }
 
-    public ResponseEntity<Object> createRequest(ItemRequestDto request, long userId) {
+    public Mono<ResponseEntity<Object>> createRequest(ItemRequestDto request, long userId) {
         return post("", request, userId);
     }
 
-    public ResponseEntity<Object> getRequests(long userId) {
+    public Mono<ResponseEntity<Object>> getRequests(long userId) {
         return get("", userId);
     }
 
-    public ResponseEntity<Object> getRequest(long userId, long requestId) {
-        return get("/" + requestId, userId);
+    public Mono<ResponseEntity<Object>> getRequest(long userId, long requestId) {
+        return getCached("/" + requestId, userId);
     }
 
-    public ResponseEntity<Object> searchRequests(long userId, int from, int size) {
-        Map<String, Object> parameters = Map.of(
+    public Mono<ResponseEntity<Object>> searchRequests(long userId, int from, int size, String after, boolean withTotal) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "from", from,
                 "size", size
-        );
-        return get("/all?from={from}&size={size}", userId, parameters);
+        ));
+        return get("/all?from={from}&size={size}" + pageParameters(after, withTotal, parameters), userId, parameters);
     }
 }
@@ -6,6 +6,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 
 import javax.validation.Valid;
@@ -23,7 +24,7 @@ public class ItemRequestController {
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
-    public ResponseEntity<Object> createRequest(@Valid @RequestBody ItemRequestDto request,
+    public Mono<ResponseEntity<Object>> createRequest(@Valid @RequestBody ItemRequestDto request,
                                                 @RequestHeader(userIdHeader) long userId) {
         log.info("Принят запрос на создание ItemRequest от пользователя {}.", userId);
         return requestClient.createRequest(request, userId);
@@ -31,24 +32,26 @@ public class ItemRequestController {
 
     @GetMapping
     @ResponseStatus(HttpStatus.OK)
-    public ResponseEntity<Object> getRequests(@RequestHeader(userIdHeader) long userId) {
+    public Mono<ResponseEntity<Object>> getRequests(@RequestHeader(userIdHeader) long userId) {
         log.info("Принят запрос на получение запросов для пользователя {}.", userId);
         return requestClient.getRequests(userId);
     }
 
     @GetMapping("/{requestId}")
     @ResponseStatus(HttpStatus.OK)
-    public ResponseEntity<Object> getRequest(@RequestHeader(userIdHeader) long userId, @PathVariable long requestId) {
+    public Mono<ResponseEntity<Object>> getRequest(@RequestHeader(userIdHeader) long userId, @PathVariable long requestId) {
         log.info("Принят запрос на получение запросов для пользователя {}.", userId);
         return requestClient.getRequest(userId, requestId);
     }
 
     @GetMapping("/all")
     @ResponseStatus(HttpStatus.OK)
-    public ResponseEntity<Object> searchRequests(@RequestHeader(userIdHeader) long userId,
+    public Mono<ResponseEntity<Object>> searchRequests(@RequestHeader(userIdHeader) long userId,
                                                  @PositiveOrZero @RequestParam(defaultValue = "0", required = false) int from,
-                                                 @Positive @RequestParam(defaultValue = "10", required = false) int size) {
+                                                 @Positive @RequestParam(defaultValue = "10", required = false) int size,
+                                                 @RequestParam(required = false) String after,
+                                                 @RequestParam(defaultValue = "false", required = false) boolean withTotal) {
         log.info("Принят запрос от пользователя {} на поиск всех запросов.", userId);
-        return requestClient.searchRequests(userId, from, size);
+        return requestClient.searchRequests(userId, from, size, after, withTotal);
     }
 }
@@ -2,46 +2,58 @@ package ru.practicum.shareit.user;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.web.util.DefaultUriBuilderFactory;
+import org.springframework.web.client.RestTemplate;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.ServerClientFactory;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.UserForUpdateDto;
 
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
 @Service
 public class UserClient extends BaseClient {
     private static final String API_PREFIX = "/users";
+    private final RestTemplate uploads;
 
     @Autowired
-    public UserClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
-        super(
-                builder
-                        .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
-        );
+    public UserClient(@Value("${shareit-server.url}") String serverUrl, ServerClientFactory clients) {
+        super(clients.restTemplate(serverUrl + API_PREFIX), clients.webClient(serverUrl + API_PREFIX),
+                clients.responseCache(), "/items/", "/requests/");
+        this.uploads = clients.uploadRestTemplate(serverUrl + API_PREFIX);
     }
 
-    public ResponseEntity<Object> createUser(UserDto user) {
+    public Mono<ResponseEntity<Object>> createUser(UserDto user) {
         return post("", user);
     }
 
-    public void removeUser(long userId) {
-        delete("/" + userId);
+    public Mono<ResponseEntity<Object>> importUsers(InputStream body) {
+        return postStream(uploads, "/bulk", null, body);
+    }
+
+    public Mono<ResponseEntity<Object>> removeUser(long userId) {
+        return delete("/" + userId);
     }
 
-    public ResponseEntity<Object> updateUser(UserForUpdateDto user, long userId) {
+    public Mono<ResponseEntity<Object>> updateUser(UserForUpdateDto user, long userId) {
         return patch("/" + userId, user);
     }
 
-    public ResponseEntity<Object> getUser(long userId) {
-        return get("/" + userId);
+    public Mono<ResponseEntity<Object>> getUser(long userId) {
+        return getCached("/" + userId, null);
     }
 
-    public ResponseEntity<Object> getUsers() {
+    public Mono<ResponseEntity<Object>> getUsers() {
         return get("");
     }
+
+    public Mono<ResponseEntity<Object>> getUsersByIds(List<Long> ids) {
+        Map<String, Object> parameters = Map.of("ids", ids.stream().map(String::valueOf).collect(Collectors.joining(",")));
+        return get("?ids={ids}", null, parameters);
+    }
 }
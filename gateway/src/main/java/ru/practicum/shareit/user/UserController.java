@@ -5,10 +5,15 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+import ru.practicum.shareit.ids.RequestedIds;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.UserForUpdateDto;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.util.List;
 
 @RestController
 @RequestMapping(path = "/users")
@@ -20,36 +25,54 @@ public class UserController {
 
     @ResponseStatus(HttpStatus.CREATED)
     @PostMapping
-    public ResponseEntity<Object> createUser(@Valid @RequestBody UserDto user) {
+    public Mono<ResponseEntity<Object>> createUser(@Valid @RequestBody UserDto user) {
         log.info("Принят запрос на создание пользователя с параметрами: {}", user);
         return userClient.createUser(user);
     }
 
+    /**
+     * Тело NDJSON не разбирается в шлюзе: строки проверяет сервер и возвращает ошибки по номерам строк.
+     */
+    @ResponseStatus(HttpStatus.OK)
+    @PostMapping("/bulk")
+    public Mono<ResponseEntity<Object>> importUsers(HttpServletRequest request) throws IOException {
+        log.info("Принят запрос на пакетное создание пользователей.");
+        return userClient.importUsers(request.getInputStream());
+    }
+
     @ResponseStatus(HttpStatus.OK)
     @DeleteMapping("/{userId}")
-    public void deleteUser(@PathVariable long userId) {
+    public Mono<ResponseEntity<Object>> deleteUser(@PathVariable long userId) {
         log.info("Принят запрос на удаление пользователя с id = {}", userId);
-        userClient.removeUser(userId);
+        return userClient.removeUser(userId);
     }
 
     @ResponseStatus(HttpStatus.OK)
     @PatchMapping("/{userId}")
-    public ResponseEntity<Object> updateUser(@RequestBody @Valid UserForUpdateDto user, @PathVariable long userId) {
+    public Mono<ResponseEntity<Object>> updateUser(@RequestBody @Valid UserForUpdateDto user, @PathVariable long userId) {
         log.info("Принят запрос на обновление пользователя с id = {}", userId);
         return userClient.updateUser(user, userId);
     }
 
     @ResponseStatus(HttpStatus.OK)
     @GetMapping("/{userId}")
-    public ResponseEntity<Object> getUser(@PathVariable long userId) {
+    public Mono<ResponseEntity<Object>> getUser(@PathVariable long userId) {
         log.info("Принят запрос на получение пользователя с id = {}", userId);
         return userClient.getUser(userId);
     }
 
     @ResponseStatus(HttpStatus.OK)
     @GetMapping
-    public ResponseEntity<Object> getUsers() {
+    public Mono<ResponseEntity<Object>> getUsers() {
         log.info("Принят запрос на получение списка пользователей.");
         return userClient.getUsers();
     }
+
+    @ResponseStatus(HttpStatus.OK)
+    @GetMapping(params = "ids")
+    public Mono<ResponseEntity<Object>> getUsersByIds(@RequestParam List<Long> ids) {
+        List<Long> distinct = RequestedIds.distinct(ids);
+        log.info("Принят запрос на получение пользователей с id {}.", distinct);
+        return userClient.getUsersByIds(distinct);
+    }
 }
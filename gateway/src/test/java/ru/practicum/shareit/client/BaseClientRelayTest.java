@@ -0,0 +1,143 @@
+package ru.practicum.shareit.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ответ сервера передаётся клиенту байт в байт: статус, тело и заголовки, кроме hop-by-hop.
+ * У потокового ответа снимаются ещё и ETag/Last-Modified.
+ */
+public class BaseClientRelayTest {
+    private static final byte[] BODY = "{\"id\":1,\"name\":\"Дрель\"}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] ERROR = "{\"error\":\"Не найден\"}".getBytes(StandardCharsets.UTF_8);
+    private static final String ETAG = "\"v1\"";
+    private static final String LAST_MODIFIED = "Wed, 21 Oct 2015 07:28:00 GMT";
+    private static final HttpServer SERVER = startServer();
+    private static final String URL = "http://localhost:" + SERVER.getAddress().getPort();
+
+    @AfterAll
+    static void stopServer() {
+        SERVER.stop(0);
+    }
+
+    @Test
+    void getTest_whenBuffered_relayStatusBodyAndEndToEndHeaders() {
+        ResponseEntity<Object> response = new RelayClient(null).get("/items/1").block();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertArrayEquals(BODY, (byte[]) response.getBody());
+        assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+        assertEquals(ETAG, response.getHeaders().getETag());
+        assertEquals(LAST_MODIFIED, response.getHeaders().getFirst(HttpHeaders.LAST_MODIFIED));
+        assertEquals("1", response.getHeaders().getFirst("X-Total-Count"));
+        assertHopByHopRemoved(response.getHeaders());
+    }
+
+    @Test
+    void getTest_whenBufferedThroughWebClient_relayStatusBodyAndEndToEndHeaders() {
+        ResponseEntity<Object> response = new RelayClient(WebClient.create(URL)).get("/items/1").block();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertArrayEquals(BODY, (byte[]) response.getBody());
+        assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+        assertEquals(ETAG, response.getHeaders().getETag());
+        assertHopByHopRemoved(response.getHeaders());
+    }
+
+    @Test
+    void getTest_whenServerAnswersError_relayStatusAndBody() {
+        ResponseEntity<Object> response = new RelayClient(null).get("/items/404").block();
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertArrayEquals(ERROR, (byte[]) response.getBody());
+        assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+        assertHopByHopRemoved(response.getHeaders());
+    }
+
+    @Test
+    void getStreamTest_whenStreamed_relayBodyAndDropConditionalHeaders() throws IOException {
+        ResponseEntity<Object> response = new RelayClient(null).getStream("/items/1", 1, Map.of()).block();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        InputStreamResource body = assertInstanceOf(InputStreamResource.class, response.getBody());
+        try (InputStream stream = body.getInputStream()) {
+            assertArrayEquals(BODY, stream.readAllBytes());
+        }
+        assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+        assertFalse(response.getHeaders().containsKey(HttpHeaders.ETAG));
+        assertFalse(response.getHeaders().containsKey(HttpHeaders.LAST_MODIFIED));
+        assertEquals("1", response.getHeaders().getFirst("X-Total-Count"));
+        assertHopByHopRemoved(response.getHeaders());
+    }
+
+    private static void assertHopByHopRemoved(HttpHeaders headers) {
+        for (String name : new String[]{"Connection", "Keep-Alive", "Transfer-Encoding", "Proxy-Authenticate", "Trailer"}) {
+            assertFalse(headers.containsKey(name), name);
+        }
+        assertTrue(headers.containsKey(HttpHeaders.CONTENT_TYPE));
+    }
+
+    private static class RelayClient extends BaseClient {
+        RelayClient(WebClient web) {
+            super(restTemplate(), web);
+        }
+
+        private static RestTemplate restTemplate() {
+            RestTemplate rest = new RestTemplate(new HttpComponentsClientHttpRequestFactory());
+            rest.setUriTemplateHandler(new DefaultUriBuilderFactory(URL));
+            return rest;
+        }
+    }
+
+    private static HttpServer startServer() {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.createContext("/items/1", exchange -> respond(exchange, 200, BODY));
+            server.createContext("/items/404", exchange -> respond(exchange, 404, ERROR));
+            server.start();
+            return server;
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    // Длина 0 — ответ по частям (Transfer-Encoding: chunked), как у потоковой выгрузки сервера.
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+        exchange.getResponseHeaders().set(HttpHeaders.ETAG, ETAG);
+        exchange.getResponseHeaders().set(HttpHeaders.LAST_MODIFIED, LAST_MODIFIED);
+        exchange.getResponseHeaders().set("X-Total-Count", "1");
+        exchange.getResponseHeaders().set("Keep-Alive", "timeout=5");
+        exchange.getResponseHeaders().set("Proxy-Authenticate", "Basic");
+        exchange.getResponseHeaders().set("Trailer", "Expires");
+        exchange.sendResponseHeaders(status, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
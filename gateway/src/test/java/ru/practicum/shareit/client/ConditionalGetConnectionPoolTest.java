@@ -0,0 +1,81 @@
+package ru.practicum.shareit.client;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Клиент повторяет If-None-Match с ETag сервера, шлюз отвечает 304 без тела. Запросов больше,
+ * чем соединений в пуле: если ответ сервера не закрывается, очередной запрос не дождётся соединения.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "shareit-server.http.max-connections=2",
+        "shareit-server.http.max-connections-per-route=2",
+        "shareit-server.http.acquire-timeout=1s",
+        "shareit-server.cache.enabled=false"})
+public class ConditionalGetConnectionPoolTest {
+    private static final String ETAG = "\"users-v1\"";
+    private static final HttpServer SERVER = startServer();
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @DynamicPropertySource
+    static void serverUrl(DynamicPropertyRegistry registry) {
+        registry.add("shareit-server.url", () -> "http://localhost:" + SERVER.getAddress().getPort());
+    }
+
+    @AfterAll
+    static void stopServer() {
+        SERVER.stop(0);
+    }
+
+    @Test
+    void getUsersTest_whenConditionalGetRepeatedMoreThanPoolSize_answerNotModifiedEveryTime() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(ETAG);
+
+        for (int i = 0; i < 10; i++) {
+            ResponseEntity<String> response = rest.exchange("/users", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+
+            assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        }
+    }
+
+    private static HttpServer startServer() {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.createContext("/users", exchange -> {
+                byte[] body = "[{\"id\":1,\"name\":\"user\",\"email\":\"user@ya.ru\"}]".getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.getResponseHeaders().set("ETag", ETAG);
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            });
+            server.start();
+            return server;
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package ru.practicum.shareit.client;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ResponseCacheTest {
+    private static final byte[] BODY = "{\"id\":1,\"name\":\"user\"}".getBytes(StandardCharsets.UTF_8);
+    private static final ResponseCache.Key USER = ResponseCache.key(URI.create("http://server/users/1"), 1L);
+    private static final ResponseCache.Key ITEM = ResponseCache.key(URI.create("http://server/items/1"), 1L);
+
+    @Test
+    void getTest_whenStoredWithinTtl_returnFreshCopy() {
+        ResponseCache cache = cache(Duration.ofMinutes(1));
+
+        cache.put(USER, response("\"v1\""), cache.generation());
+
+        ResponseCache.Entry entry = cache.get(USER);
+        assertNotNull(entry);
+        assertTrue(cache.isFresh(entry));
+        assertEquals("\"v1\"", entry.getEtag());
+        ResponseEntity<Object> cached = entry.toResponse();
+        assertEquals(HttpStatus.OK, cached.getStatusCode());
+        assertArrayEquals(BODY, (byte[]) cached.getBody());
+        assertNull(cache.get(ResponseCache.key(URI.create("http://server/users/1"), 2L)));
+    }
+
+    @Test
+    void getTest_whenTtlPassed_keepTaggedForRevalidationAndDropUntagged() throws InterruptedException {
+        ResponseCache cache = cache(Duration.ofMillis(50));
+        cache.put(USER, response("\"v1\""), cache.generation());
+        cache.put(ITEM, response(null), cache.generation());
+
+        Thread.sleep(100);
+
+        ResponseCache.Entry stale = cache.get(USER);
+        assertNotNull(stale);
+        assertFalse(cache.isFresh(stale));
+        assertNull(cache.get(ITEM));
+        ResponseCache.Entry fresh = cache.revalidated(USER, stale, cache.generation());
+        assertTrue(cache.isFresh(fresh));
+        assertSame(fresh, cache.get(USER));
+    }
+
+    @Test
+    void invalidateTest_afterWrite_dropPathParentsAndChildren() {
+        ResponseCache cache = cache(Duration.ofMinutes(1));
+        ResponseCache.Key users = ResponseCache.key(URI.create("http://server/users"), null);
+        ResponseCache.Key comments = ResponseCache.key(URI.create("http://server/items/1/comments"), 1L);
+        cache.put(USER, response(null), cache.generation());
+        cache.put(users, response(null), cache.generation());
+        cache.put(ITEM, response(null), cache.generation());
+        cache.put(comments, response(null), cache.generation());
+
+        cache.invalidate("/users/1");
+        cache.invalidatePrefix("/items/");
+
+        assertNull(cache.get(USER));
+        assertNull(cache.get(users));
+        assertNull(cache.get(ITEM));
+        assertNull(cache.get(comments));
+    }
+
+    @Test
+    void putTest_whenWriteLandedDuringFetch_doNotStoreOrRevalidate() {
+        ResponseCache cache = cache(Duration.ofMinutes(1));
+        long beforeFetch = cache.generation();
+
+        cache.invalidate("/users/1");
+        cache.put(USER, response("\"v1\""), beforeFetch);
+
+        assertNull(cache.get(USER));
+
+        cache.put(USER, response("\"v1\""), cache.generation());
+        ResponseCache.Entry stored = cache.get(USER);
+        long beforeRevalidation = cache.generation();
+        cache.invalidatePrefix("/items/");
+        cache.revalidated(USER, stored, beforeRevalidation);
+
+        assertSame(stored, cache.get(USER));
+    }
+
+    @Test
+    void putTest_whenNotOk_doNotStore() {
+        ResponseCache cache = cache(Duration.ofMinutes(1));
+
+        cache.put(USER, ResponseEntity.status(HttpStatus.NOT_FOUND).body(BODY), cache.generation());
+
+        assertNull(cache.get(USER));
+    }
+
+    private static ResponseCache cache(Duration ttl) {
+        ResponseCacheProperties properties = new ResponseCacheProperties();
+        properties.setTtl(ttl);
+        return new ResponseCache(properties);
+    }
+
+    private static ResponseEntity<byte[]> response(String etag) {
+        HttpHeaders headers = new HttpHeaders();
+        if (etag != null) {
+            headers.setETag(etag);
+        }
+        return ResponseEntity.ok().headers(headers).body(BODY);
+    }
+}
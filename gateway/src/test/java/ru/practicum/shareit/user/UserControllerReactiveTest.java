@@ -0,0 +1,53 @@
+package ru.practicum.shareit.user;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import reactor.core.publisher.Mono;
+import ru.practicum.shareit.client.BlockingResponseConfiguration;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * В неблокирующем режиме ответ сервера приходит позже, и Mono обрабатывается через async dispatch.
+ */
+@WebMvcTest(controllers = UserController.class, properties = "shareit-server.http.reactive=true")
+@Import(BlockingResponseConfiguration.class)
+public class UserControllerReactiveTest {
+    private static final byte[] USER = "{\"id\":1,\"name\":\"user\",\"email\":\"user@ya.ru\"}".getBytes(StandardCharsets.UTF_8);
+
+    @Autowired
+    private MockMvc mvc;
+    @MockBean
+    private UserClient userClient;
+
+    @SneakyThrows
+    @Test
+    void getUserTest_whenReactiveMode_answerThroughAsyncDispatch() {
+        when(userClient.getUser(1)).thenReturn(Mono.just(ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(USER)));
+
+        MvcResult result = mvc.perform(get("/users/{userId}", 1))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(USER));
+    }
+}
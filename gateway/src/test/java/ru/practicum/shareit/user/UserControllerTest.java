@@ -0,0 +1,99 @@
+package ru.practicum.shareit.user;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+import reactor.core.publisher.Mono;
+import ru.practicum.shareit.client.BlockingResponseConfiguration;
+import ru.practicum.shareit.ids.RequestedIds;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = UserController.class)
+@Import(BlockingResponseConfiguration.class)
+public class UserControllerTest {
+    private static final byte[] USER = "{\"id\":1,\"name\":\"user\",\"email\":\"user@ya.ru\"}".getBytes(StandardCharsets.UTF_8);
+
+    @Autowired
+    private MockMvc mvc;
+    @MockBean
+    private UserClient userClient;
+
+    @SneakyThrows
+    @Test
+    void getUserTest_whenRestTemplateMode_answerWithoutAsyncDispatch() {
+        when(userClient.getUser(1)).thenReturn(Mono.just(ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag("\"v1\"")
+                .body(USER)));
+
+        mvc.perform(get("/users/{userId}", 1))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"v1\""))
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().bytes(USER));
+    }
+
+    @SneakyThrows
+    @Test
+    void getUserTest_whenServerAnswersNotFound_relayStatusAndBody() {
+        byte[] error = "{\"error\":\"not found\"}".getBytes(StandardCharsets.UTF_8);
+        when(userClient.getUser(2)).thenReturn(Mono.just(ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(error)));
+
+        mvc.perform(get("/users/{userId}", 2))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isNotFound())
+                .andExpect(content().bytes(error));
+    }
+
+    @SneakyThrows
+    @Test
+    void getUsersByIdsTest_whenDuplicatesWithinLimit_passDistinctIds() {
+        String ids = LongStream.rangeClosed(1, 2 * RequestedIds.MAX_IDS)
+                .map(i -> (i - 1) % RequestedIds.MAX_IDS + 1)
+                .mapToObj(String::valueOf)
+                .collect(Collectors.joining(","));
+        List<Long> distinct = LongStream.rangeClosed(1, RequestedIds.MAX_IDS).boxed().collect(Collectors.toList());
+        when(userClient.getUsersByIds(distinct)).thenReturn(Mono.just(ResponseEntity.ok().body(USER)));
+
+        mvc.perform(get("/users").param("ids", ids))
+                .andExpect(status().isOk());
+
+        verify(userClient).getUsersByIds(distinct);
+    }
+
+    @SneakyThrows
+    @Test
+    void getUsersByIdsTest_whenDistinctOverLimit_responseBadRequest() {
+        String ids = LongStream.rangeClosed(1, RequestedIds.MAX_IDS + 1)
+                .mapToObj(String::valueOf)
+                .collect(Collectors.joining(","));
+
+        mvc.perform(get("/users").param("ids", ids))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(userClient);
+    }
+}
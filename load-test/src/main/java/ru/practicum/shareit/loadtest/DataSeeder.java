@@ -0,0 +1,119 @@
+package ru.practicum.shareit.loadtest;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+
+/**
+ * Заливает данные через шлюз теми же запросами, что и коллекция Postman:
+ * пользователи, запросы, вещи (часть — в ответ на запросы) и бронирования,
+ * половина бронирований подтверждается или отклоняется владельцем.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class DataSeeder {
+    private final ShareItClient client;
+    private final ExecutorService executor;
+    private final Random random;
+
+    public Dataset seed(LoadTestProperties properties) throws InterruptedException {
+        Dataset dataset = new Dataset();
+        long started = System.nanoTime();
+
+        dataset.getUsers().addAll(inParallel(properties.getUsers(), i ->
+                () -> client.create("/users", null, Map.of("name", "user" + i, "email", "user" + i + "@ya.ru"))));
+
+        List<Long> requesters = pick(dataset.getUsers(), properties.getRequests());
+        dataset.getRequests().addAll(inParallel(properties.getRequests(), i -> {
+            String name = Dataset.ITEM_NAMES[i % Dataset.ITEM_NAMES.length];
+            return () -> client.create("/requests", requesters.get(i), Map.of("description", "Нужна " + name));
+        }));
+
+        List<Long> owners = pick(dataset.getUsers(), properties.getItems());
+        List<Long> requestIds = new ArrayList<>();
+        for (int i = 0; i < properties.getItems(); i++) {
+            boolean answer = !dataset.getRequests().isEmpty() && random.nextInt(3) == 0;
+            requestIds.add(answer ? dataset.getRequests().get(random.nextInt(dataset.getRequests().size())) : null);
+        }
+        List<Long> itemIds = inParallel(properties.getItems(), i -> {
+            String name = Dataset.ITEM_NAMES[i % Dataset.ITEM_NAMES.length];
+            Map<String, Object> item = new HashMap<>();
+            item.put("name", name + " " + i);
+            item.put("description", name + " в хорошем состоянии");
+            item.put("available", true);
+            item.put("requestId", requestIds.get(i));
+            return () -> client.create("/items", owners.get(i), item);
+        });
+        for (int i = 0; i < itemIds.size(); i++) {
+            dataset.getItems().add(new Dataset.ItemRef(itemIds.get(i), owners.get(i)));
+        }
+
+        List<Dataset.ItemRef> bookedItems = pick(dataset.getItems(), properties.getBookings());
+        List<Long> bookers = new ArrayList<>();
+        for (Dataset.ItemRef item : bookedItems) {
+            bookers.add(otherThan(dataset.getUsers(), item.getOwnerId()));
+        }
+        List<Long> bookingIds = inParallel(properties.getBookings(), i -> {
+            String[] period = dataset.nextPeriod();
+            Map<String, Object> booking = Map.of("itemId", bookedItems.get(i).getId(),
+                    "start", period[0], "end", period[1]);
+            return () -> client.create("/bookings", bookers.get(i), booking);
+        });
+        for (int i = 0; i < bookingIds.size(); i++) {
+            dataset.getBookings().add(new Dataset.BookingRef(bookingIds.get(i), bookers.get(i),
+                    bookedItems.get(i).getOwnerId()));
+        }
+        inParallel(bookingIds.size() / 2, i -> () -> {
+            Dataset.BookingRef booking = dataset.getBookings().get(i * 2);
+            client.patch("/bookings/" + booking.getId() + "?approved=" + (i % 4 != 0), booking.getOwnerId());
+            return null;
+        });
+
+        log.info("Данные залиты за {} мс: пользователей {}, запросов {}, вещей {}, бронирований {}.",
+                (System.nanoTime() - started) / 1_000_000, dataset.getUsers().size(), dataset.getRequests().size(),
+                dataset.getItems().size(), dataset.getBookings().size());
+        return dataset;
+    }
+
+    public long otherThan(List<Long> users, long userId) {
+        long other;
+        do {
+            other = users.get(random.nextInt(users.size()));
+        } while (other == userId && users.size() > 1);
+        return other;
+    }
+
+    private <T> List<T> pick(List<T> from, int count) {
+        List<T> picked = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            picked.add(from.get(random.nextInt(from.size())));
+        }
+        return picked;
+    }
+
+    private <T> List<T> inParallel(int count, IntFunction<Callable<T>> task) throws InterruptedException {
+        List<Callable<T>> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tasks.add(task.apply(i));
+        }
+        List<T> results = new ArrayList<>(count);
+        for (Future<T> future : executor.invokeAll(tasks)) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Не удалось залить данные", e.getCause());
+            }
+        }
+        return results;
+    }
+}
@@ -0,0 +1,56 @@
+package ru.practicum.shareit.loadtest;
+
+import lombok.Getter;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Идентификаторы залитых данных, из которых нагрузка выбирает пользователей, вещи и бронирования.
+ */
+@Getter
+public class Dataset {
+    static final String[] ITEM_NAMES = {"Дрель", "Аккумуляторная дрель", "Отвертка", "Перфоратор", "Лестница",
+            "Палатка", "Велосипед", "Шуруповерт", "Болгарка", "Пылесос", "Спальник", "Байдарка"};
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    private final List<Long> users = new ArrayList<>();
+    private final List<ItemRef> items = new ArrayList<>();
+    private final List<Long> requests = new ArrayList<>();
+    private final List<BookingRef> bookings = new ArrayList<>();
+    /**
+     * Бронирования, созданные во время прогона и ожидающие подтверждения владельцем.
+     */
+    private final Queue<BookingRef> waiting = new ConcurrentLinkedQueue<>();
+    private final LocalDateTime base = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+    private final AtomicLong periods = new AtomicLong();
+
+    /**
+     * Следующий свободный интервал бронирования. Интервалы не пересекаются, поэтому
+     * ни одно бронирование не отклоняется из-за занятости вещи.
+     */
+    public String[] nextPeriod() {
+        LocalDateTime start = base.plusHours(periods.getAndIncrement() * 2);
+        return new String[]{start.format(DATE_TIME), start.plusHours(1).format(DATE_TIME)};
+    }
+
+    @Value
+    public static class ItemRef {
+        long id;
+        long ownerId;
+    }
+
+    @Value
+    public static class BookingRef {
+        long id;
+        long bookerId;
+        long ownerId;
+    }
+}
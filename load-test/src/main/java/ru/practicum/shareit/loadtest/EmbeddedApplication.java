@@ -0,0 +1,87 @@
+package ru.practicum.shareit.loadtest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Исполняемый jar Spring Boot, запущенный в этой же JVM. У шлюза и сервера совпадают имена
+ * классов, поэтому каждый получает свой загрузчик с платформенным родителем.
+ */
+public final class EmbeddedApplication {
+    private static final String LAUNCHER = "org.springframework.boot.loader.JarLauncher";
+    private static final String NESTED_JAR_FILE = "org.springframework.boot.loader.jar.JarFile";
+    private static final String TOMCAT_URL_FACTORY = "org.apache.catalina.webresources.TomcatURLStreamHandlerFactory";
+
+    private EmbeddedApplication() {
+    }
+
+    /**
+     * Повторяет JarLauncher.main, но до старта отключает у Tomcat регистрацию
+     * URLStreamHandlerFactory: фабрика одна на JVM, и второй Tomcat без этого не стартует.
+     * Возвращает управление, когда приложение поднято и слушает порт.
+     */
+    public static void start(String name, Path jar, String... args) throws Exception {
+        URLClassLoader parent = new URLClassLoader(name, new URL[]{jar.toUri().toURL()},
+                ClassLoader.getPlatformClassLoader());
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread thread = new Thread(() -> {
+            try {
+                parent.loadClass(NESTED_JAR_FILE).getMethod("registerUrlProtocolHandler").invoke(null);
+                Object launcher = parent.loadClass(LAUNCHER).getConstructor().newInstance();
+                Iterator<?> archives = (Iterator<?>) invoke(launcher, "getClassPathArchivesIterator");
+                ClassLoader loader = (ClassLoader) invoke(launcher, "createClassLoader",
+                        new Class<?>[]{Iterator.class}, archives);
+                loader.loadClass(TOMCAT_URL_FACTORY).getMethod("disable").invoke(null);
+                String mainClass = (String) invoke(launcher, "getMainClass");
+                invoke(launcher, "launch", new Class<?>[]{String[].class, String.class, ClassLoader.class},
+                        args, mainClass, loader);
+            } catch (InvocationTargetException e) {
+                failure.set(e.getCause());
+            } catch (ReflectiveOperationException e) {
+                failure.set(e);
+            }
+        }, name + "-main");
+        thread.start();
+        thread.join();
+        if (failure.get() != null) {
+            throw new IllegalStateException("Не удалось запустить " + name + " из " + jar, failure.get());
+        }
+    }
+
+    public static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Object invoke(Object target, String name) throws ReflectiveOperationException {
+        return invoke(target, name, new Class<?>[0]);
+    }
+
+    /**
+     * Защищённые методы лаунчера объявлены в его суперклассах.
+     */
+    private static Object invoke(Object target, String name, Class<?>[] types, Object... args)
+            throws ReflectiveOperationException {
+        for (Class<?> type = target.getClass(); type != null; type = type.getSuperclass()) {
+            try {
+                Method method = type.getDeclaredMethod(name, types);
+                method.setAccessible(true);
+                return method.invoke(target, args);
+            } catch (NoSuchMethodException e) {
+                // ищем выше по иерархии
+            }
+        }
+        throw new NoSuchMethodException(target.getClass().getName() + "." + name);
+    }
+}
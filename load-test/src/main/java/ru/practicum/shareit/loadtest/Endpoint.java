@@ -0,0 +1,52 @@
+package ru.practicum.shareit.loadtest;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Arrays;
+
+/**
+ * Эндпоинты шлюза в смеси нагрузки. Вес — доля запросов: чтение преобладает,
+ * записи в тех же пропорциях, что и в сценариях коллекции Postman.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum Endpoint {
+    GET_ITEM("GET /items/{itemId}", 20),
+    GET_OWNER_ITEMS("GET /items", 8),
+    SEARCH_ITEMS("GET /items/search", 8),
+    UPDATE_ITEM("PATCH /items/{itemId}", 4),
+    GET_USER("GET /users/{userId}", 6),
+    UPDATE_USER("PATCH /users/{userId}", 2),
+    CREATE_BOOKING("POST /bookings", 8),
+    APPROVE_BOOKING("PATCH /bookings/{bookingId}", 4),
+    GET_BOOKING("GET /bookings/{bookingId}", 6),
+    GET_BOOKER_BOOKINGS("GET /bookings", 10),
+    GET_OWNER_BOOKINGS("GET /bookings/owner", 10),
+    CREATE_REQUEST("POST /requests", 2),
+    GET_OWN_REQUESTS("GET /requests", 4),
+    GET_ALL_REQUESTS("GET /requests/all", 4),
+    GET_REQUEST("GET /requests/{requestId}", 4);
+
+    private static final int TOTAL_WEIGHT = Arrays.stream(values()).mapToInt(Endpoint::getWeight).sum();
+
+    private final String path;
+    private final int weight;
+
+    /**
+     * Эндпоинт по случайному числу из [0, сумма весов).
+     */
+    public static Endpoint byWeight(int roll) {
+        for (Endpoint endpoint : values()) {
+            roll -= endpoint.weight;
+            if (roll < 0) {
+                return endpoint;
+            }
+        }
+        throw new IllegalArgumentException("Вне суммы весов: " + roll);
+    }
+
+    public static int totalWeight() {
+        return TOTAL_WEIGHT;
+    }
+}
@@ -0,0 +1,75 @@
+package ru.practicum.shareit.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Задержки одного эндпоинта в наносекундах. Каждый поток пишет в свой экземпляр,
+ * в конце прогона они сливаются, поэтому синхронизация не нужна.
+ */
+public class LatencySamples {
+    /**
+     * Статус запроса, на который не пришёл ответ: таймаут или обрыв соединения.
+     */
+    public static final int NO_RESPONSE = -1;
+
+    private long[] values = new long[1024];
+    private int size;
+    private long clientErrors;
+    private long errors;
+    private boolean sorted;
+
+    /**
+     * 4xx — ожидаемые ответы сценария (например, 404 на пустую выборку бронирований),
+     * ошибкой считаются 5xx и запросы без ответа.
+     */
+    public void add(long nanos, int status) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = nanos;
+        if (status / 100 == 4) {
+            clientErrors++;
+        } else if (status / 100 != 2) {
+            errors++;
+        }
+        sorted = false;
+    }
+
+    public void addAll(LatencySamples other) {
+        if (size + other.size > values.length) {
+            values = Arrays.copyOf(values, Math.max(values.length * 2, size + other.size));
+        }
+        System.arraycopy(other.values, 0, values, size, other.size);
+        size += other.size;
+        clientErrors += other.clientErrors;
+        errors += other.errors;
+        sorted = false;
+    }
+
+    public int count() {
+        return size;
+    }
+
+    public long clientErrors() {
+        return clientErrors;
+    }
+
+    public long errors() {
+        return errors;
+    }
+
+    /**
+     * Перцентиль методом ближайшего ранга, в миллисекундах.
+     */
+    public double percentileMillis(double percentile) {
+        if (size == 0) {
+            return 0;
+        }
+        if (!sorted) {
+            Arrays.sort(values, 0, size);
+            sorted = true;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * size);
+        return values[Math.max(rank, 1) - 1] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,79 @@
+package ru.practicum.shareit.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Сводка прогона: число запросов, ответы 4xx, ошибки (5xx или нет ответа), пропускная
+ * способность и перцентили задержки по каждому эндпоинту и в целом.
+ */
+public class LoadReport {
+    private final Map<Endpoint, LatencySamples> endpoints = new EnumMap<>(Endpoint.class);
+    private final LatencySamples total = new LatencySamples();
+    private final Duration duration;
+
+    public LoadReport(List<Workload> workloads, Duration duration) {
+        this.duration = duration;
+        for (Endpoint endpoint : Endpoint.values()) {
+            endpoints.put(endpoint, new LatencySamples());
+        }
+        for (Workload workload : workloads) {
+            workload.getSamples().forEach((endpoint, samples) -> {
+                endpoints.get(endpoint).addAll(samples);
+                total.addAll(samples);
+            });
+        }
+    }
+
+    public void print(PrintStream out) {
+        String format = "%-28s %9s %7s %7s %9s %9s %9s %9s%n";
+        out.printf(format, "Endpoint", "Requests", "4xx", "Errors", "Req/s", "p50 ms", "p95 ms", "p99 ms");
+        endpoints.forEach((endpoint, samples) -> printRow(out, endpoint.getPath(), samples));
+        printRow(out, "TOTAL", total);
+    }
+
+    public void write(Path file, LoadTestProperties properties) throws IOException {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        endpoints.forEach((endpoint, samples) -> rows.add(toMap(endpoint.getPath(), samples)));
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("config", properties.toMap());
+        result.put("endpoints", rows);
+        result.put("total", toMap("TOTAL", total));
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), result);
+    }
+
+    private void printRow(PrintStream out, String name, LatencySamples samples) {
+        out.printf("%-28s %9d %7d %7d %9.1f %9.2f %9.2f %9.2f%n", name, samples.count(), samples.clientErrors(),
+                samples.errors(), throughput(samples), samples.percentileMillis(50), samples.percentileMillis(95),
+                samples.percentileMillis(99));
+    }
+
+    private Map<String, Object> toMap(String name, LatencySamples samples) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("endpoint", name);
+        row.put("requests", samples.count());
+        row.put("clientErrors", samples.clientErrors());
+        row.put("errors", samples.errors());
+        row.put("throughput", throughput(samples));
+        row.put("p50Ms", samples.percentileMillis(50));
+        row.put("p95Ms", samples.percentileMillis(95));
+        row.put("p99Ms", samples.percentileMillis(99));
+        return row;
+    }
+
+    private double throughput(LatencySamples samples) {
+        return samples.count() * 1000.0 / duration.toMillis();
+    }
+}
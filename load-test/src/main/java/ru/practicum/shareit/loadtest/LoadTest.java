@@ -0,0 +1,78 @@
+package ru.practicum.shareit.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сквозной нагрузочный прогон шлюз → сервер → H2 в одной JVM и без сети:
+ * оба приложения стартуют на свободных портах, данные заливаются через шлюз,
+ * затем потоки гоняют смесь запросов и печатают сводку по эндпоинтам.
+ */
+@Slf4j
+public class LoadTest {
+    private static final String[] QUIET_LOGGING = {
+            "--logging.level.root=WARN",
+            "--logging.level.ru.practicum.shareit=WARN",
+            "--logging.level.org.springframework.web.client.RestTemplate=WARN",
+            "--logging.level.org.springframework.transaction.interceptor=WARN",
+            "--logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN"};
+
+    /**
+     * Tomcat обоих приложений держит неслужебные потоки, поэтому JVM завершается явно.
+     */
+    public static void main(String[] args) {
+        try {
+            run(LoadTestProperties.fromSystemProperties());
+            System.exit(0);
+        } catch (Exception e) {
+            log.error("Нагрузочный прогон прерван.", e);
+            System.exit(1);
+        }
+    }
+
+    private static void run(LoadTestProperties properties) throws Exception {
+        int serverPort = EmbeddedApplication.freePort();
+        List<String> serverArgs = new ArrayList<>(List.of(QUIET_LOGGING));
+        serverArgs.add("--server.port=" + serverPort);
+        serverArgs.add("--spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1");
+        serverArgs.addAll(properties.getServerArgs());
+        EmbeddedApplication.start("server", properties.getServerJar(), serverArgs.toArray(String[]::new));
+
+        int gatewayPort = EmbeddedApplication.freePort();
+        List<String> gatewayArgs = new ArrayList<>(List.of(QUIET_LOGGING));
+        gatewayArgs.add("--server.port=" + gatewayPort);
+        gatewayArgs.add("--shareit-server.url=http://localhost:" + serverPort);
+        gatewayArgs.addAll(properties.getGatewayArgs());
+        EmbeddedApplication.start("gateway", properties.getGatewayJar(), gatewayArgs.toArray(String[]::new));
+        log.info("Сервер слушает порт {}, шлюз — {}.", serverPort, gatewayPort);
+
+        ShareItClient client = new ShareItClient("http://localhost:" + gatewayPort);
+        Random random = new Random(properties.getRandomSeed());
+        ExecutorService executor = Executors.newFixedThreadPool(properties.getThreads());
+        Dataset dataset = new DataSeeder(client, executor, random).seed(properties);
+
+        long measureFrom = System.nanoTime() + properties.getWarmup().toNanos();
+        long measureUntil = measureFrom + properties.getDuration().toNanos();
+        List<Workload> workloads = new ArrayList<>();
+        for (int i = 0; i < properties.getThreads(); i++) {
+            Workload workload = new Workload(client, dataset, random.nextLong(), measureFrom, measureUntil);
+            workloads.add(workload);
+            executor.execute(workload);
+        }
+        log.info("Прогрев {} с, замер {} с, потоков {}.", properties.getWarmup().toSeconds(),
+                properties.getDuration().toSeconds(), properties.getThreads());
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.HOURS);
+
+        LoadReport report = new LoadReport(workloads, properties.getDuration());
+        report.print(System.out);
+        report.write(properties.getResult(), properties);
+        log.info("Результат записан в {}.", properties.getResult().toAbsolutePath());
+    }
+}
@@ -0,0 +1,77 @@
+package ru.practicum.shareit.loadtest;
+
+import lombok.Value;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Параметры прогона из системных свойств loadtest.*, значения по умолчанию совпадают с pom.xml.
+ */
+@Value
+public class LoadTestProperties {
+    Path serverJar;
+    Path gatewayJar;
+    int users;
+    int items;
+    int requests;
+    int bookings;
+    int threads;
+    Duration warmup;
+    Duration duration;
+    long randomSeed;
+    List<String> serverArgs;
+    List<String> gatewayArgs;
+    Path result;
+
+    public static LoadTestProperties fromSystemProperties() {
+        return new LoadTestProperties(
+                Path.of(required("loadtest.server.jar")),
+                Path.of(required("loadtest.gateway.jar")),
+                Integer.getInteger("loadtest.users", 200),
+                Integer.getInteger("loadtest.items", 1000),
+                Integer.getInteger("loadtest.requests", 200),
+                Integer.getInteger("loadtest.bookings", 5000),
+                Integer.getInteger("loadtest.threads", 16),
+                Duration.ofSeconds(Long.getLong("loadtest.warmup", 10)),
+                Duration.ofSeconds(Long.getLong("loadtest.duration", 30)),
+                Long.getLong("loadtest.random-seed", 42),
+                args("loadtest.server.args"),
+                args("loadtest.gateway.args"),
+                Path.of(System.getProperty("loadtest.result", "load-test-result.json")));
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("users", users);
+        map.put("items", items);
+        map.put("requests", requests);
+        map.put("bookings", bookings);
+        map.put("threads", threads);
+        map.put("warmupSeconds", warmup.toSeconds());
+        map.put("durationSeconds", duration.toSeconds());
+        map.put("randomSeed", randomSeed);
+        map.put("serverArgs", serverArgs);
+        map.put("gatewayArgs", gatewayArgs);
+        return map;
+    }
+
+    private static String required(String name) {
+        String value = System.getProperty(name);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Не задано системное свойство " + name);
+        }
+        return value;
+    }
+
+    private static List<String> args(String name) {
+        return Arrays.stream(System.getProperty(name, "").trim().split("\\s+"))
+                .filter(arg -> !arg.isEmpty())
+                .collect(Collectors.toList());
+    }
+}
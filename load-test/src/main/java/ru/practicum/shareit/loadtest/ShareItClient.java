@@ -0,0 +1,87 @@
+package ru.practicum.shareit.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * HTTP-клиент шлюза: JSON-тело и заголовок X-Sharer-User-Id, как в коллекции Postman.
+ */
+public class ShareItClient {
+    private static final String USER_ID_HEADER = "X-Sharer-User-Id";
+
+    private final HttpClient http;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final String baseUrl;
+
+    public ShareItClient(String baseUrl) {
+        this.baseUrl = baseUrl;
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(2))
+                .build();
+    }
+
+    public HttpResponse<byte[]> get(String path, long userId) throws IOException, InterruptedException {
+        return send("GET", path, userId, null);
+    }
+
+    public HttpResponse<byte[]> send(String method, String path, Long userId, Map<String, ?> body)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Accept", "application/json");
+        if (userId != null) {
+            request.header(USER_ID_HEADER, String.valueOf(userId));
+        }
+        if (body != null) {
+            request.header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(body)));
+        } else {
+            request.method(method, HttpRequest.BodyPublishers.noBody());
+        }
+        return http.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    /**
+     * Создаёт сущность и возвращает её id, ответ не 2xx при заливке данных — ошибка.
+     */
+    public long create(String path, Long userId, Map<String, ?> body) {
+        try {
+            HttpResponse<byte[]> response = send("POST", path, userId, body);
+            return mapper.readTree(expectSuccess(path, response)).get("id").asLong();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public void patch(String path, long userId) {
+        try {
+            expectSuccess(path, send("PATCH", path, userId, null));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] expectSuccess(String path, HttpResponse<byte[]> response) {
+        if (response.statusCode() / 100 != 2) {
+            throw new IllegalStateException(String.format("%s %s вернул %d: %s", response.request().method(), path,
+                    response.statusCode(), new String(response.body(), StandardCharsets.UTF_8)));
+        }
+        return response.body();
+    }
+}
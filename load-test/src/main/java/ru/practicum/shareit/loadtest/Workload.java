@@ -0,0 +1,167 @@
+package ru.practicum.shareit.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Поток нагрузки: случайно по весам выбирает эндпоинт и выполняет запрос от имени
+ * подходящего пользователя. Задержки пишутся только в окне замера после прогрева.
+ */
+public class Workload implements Runnable {
+    private static final String[] STATES = {"ALL", "CURRENT", "PAST", "FUTURE", "WAITING", "REJECTED"};
+    private static final int PAGE_SIZE = 20;
+
+    private final ShareItClient client;
+    private final Dataset dataset;
+    private final Random random;
+    private final long measureFrom;
+    private final long measureUntil;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<Endpoint, LatencySamples> samples = new EnumMap<>(Endpoint.class);
+
+    public Workload(ShareItClient client, Dataset dataset, long randomSeed, long measureFrom, long measureUntil) {
+        this.client = client;
+        this.dataset = dataset;
+        this.random = new Random(randomSeed);
+        this.measureFrom = measureFrom;
+        this.measureUntil = measureUntil;
+        for (Endpoint endpoint : Endpoint.values()) {
+            samples.put(endpoint, new LatencySamples());
+        }
+    }
+
+    public Map<Endpoint, LatencySamples> getSamples() {
+        return samples;
+    }
+
+    @Override
+    public void run() {
+        long now;
+        while ((now = System.nanoTime()) < measureUntil) {
+            Endpoint endpoint = nextEndpoint();
+            int status;
+            long started = System.nanoTime();
+            try {
+                status = execute(endpoint);
+            } catch (IOException e) {
+                status = LatencySamples.NO_RESPONSE;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (now >= measureFrom) {
+                samples.get(endpoint).add(System.nanoTime() - started, status);
+            }
+        }
+    }
+
+    /**
+     * Подтверждать нечего, пока в очереди нет новых бронирований, — тогда бронирование создаётся.
+     */
+    private Endpoint nextEndpoint() {
+        Endpoint endpoint = Endpoint.byWeight(random.nextInt(Endpoint.totalWeight()));
+        if (endpoint == Endpoint.APPROVE_BOOKING && dataset.getWaiting().isEmpty()) {
+            return Endpoint.CREATE_BOOKING;
+        }
+        return endpoint;
+    }
+
+    private int execute(Endpoint endpoint) throws IOException, InterruptedException {
+        switch (endpoint) {
+            case GET_ITEM:
+                return client.get("/items/" + any(dataset.getItems()).getId(), any(dataset.getUsers()))
+                        .statusCode();
+            case GET_OWNER_ITEMS:
+                return client.get("/items?from=0&size=" + PAGE_SIZE, any(dataset.getItems()).getOwnerId())
+                        .statusCode();
+            case SEARCH_ITEMS:
+                String text = randomCase(Dataset.ITEM_NAMES[random.nextInt(Dataset.ITEM_NAMES.length)]);
+                return client.get("/items/search?from=0&size=" + PAGE_SIZE + "&text="
+                        + URLEncoder.encode(text, StandardCharsets.UTF_8), any(dataset.getUsers())).statusCode();
+            case UPDATE_ITEM:
+                Dataset.ItemRef item = any(dataset.getItems());
+                return client.send("PATCH", "/items/" + item.getId(), item.getOwnerId(),
+                        Map.of("description", "Обновлено " + random.nextInt(1000))).statusCode();
+            case GET_USER:
+                return client.get("/users/" + any(dataset.getUsers()), any(dataset.getUsers())).statusCode();
+            case UPDATE_USER:
+                long userId = any(dataset.getUsers());
+                return client.send("PATCH", "/users/" + userId, userId,
+                        Map.of("name", "user" + userId + "-" + random.nextInt(1000))).statusCode();
+            case CREATE_BOOKING:
+                return createBooking();
+            case APPROVE_BOOKING:
+                Dataset.BookingRef waiting = dataset.getWaiting().poll();
+                if (waiting == null) {
+                    return createBooking();
+                }
+                return client.send("PATCH", "/bookings/" + waiting.getId() + "?approved=" + random.nextBoolean(),
+                        waiting.getOwnerId(), null).statusCode();
+            case GET_BOOKING:
+                Dataset.BookingRef booking = any(dataset.getBookings());
+                return client.get("/bookings/" + booking.getId(),
+                        random.nextBoolean() ? booking.getBookerId() : booking.getOwnerId()).statusCode();
+            case GET_BOOKER_BOOKINGS:
+                return client.get("/bookings?state=" + anyState() + "&from=0&size=" + PAGE_SIZE,
+                        any(dataset.getBookings()).getBookerId()).statusCode();
+            case GET_OWNER_BOOKINGS:
+                return client.get("/bookings/owner?state=" + anyState() + "&from=0&size=" + PAGE_SIZE,
+                        any(dataset.getBookings()).getOwnerId()).statusCode();
+            case CREATE_REQUEST:
+                return client.send("POST", "/requests", any(dataset.getUsers()),
+                        Map.of("description", "Нужна " + Dataset.ITEM_NAMES[random.nextInt(Dataset.ITEM_NAMES.length)]))
+                        .statusCode();
+            case GET_OWN_REQUESTS:
+                return client.get("/requests", any(dataset.getUsers())).statusCode();
+            case GET_ALL_REQUESTS:
+                return client.get("/requests/all?from=0&size=" + PAGE_SIZE, any(dataset.getUsers())).statusCode();
+            case GET_REQUEST:
+                return client.get("/requests/" + any(dataset.getRequests()), any(dataset.getUsers())).statusCode();
+            default:
+                throw new IllegalArgumentException("Неизвестный эндпоинт " + endpoint);
+        }
+    }
+
+    /**
+     * Новое бронирование попадает в очередь на подтверждение владельцем.
+     */
+    private int createBooking() throws IOException, InterruptedException {
+        Dataset.ItemRef item = any(dataset.getItems());
+        long bookerId = item.getOwnerId();
+        while (bookerId == item.getOwnerId() && dataset.getUsers().size() > 1) {
+            bookerId = any(dataset.getUsers());
+        }
+        String[] period = dataset.nextPeriod();
+        HttpResponse<byte[]> response = client.send("POST", "/bookings", bookerId,
+                Map.of("itemId", item.getId(), "start", period[0], "end", period[1]));
+        if (response.statusCode() / 100 == 2) {
+            long id = mapper.readTree(response.body()).get("id").asLong();
+            dataset.getWaiting().add(new Dataset.BookingRef(id, bookerId, item.getOwnerId()));
+        }
+        return response.statusCode();
+    }
+
+    private String anyState() {
+        return STATES[random.nextInt(STATES.length)];
+    }
+
+    private String randomCase(String text) {
+        StringBuilder result = new StringBuilder(text.length());
+        for (char c : text.toCharArray()) {
+            result.append(random.nextBoolean() ? Character.toUpperCase(c) : Character.toLowerCase(c));
+        }
+        return result.toString();
+    }
+
+    private <T> T any(List<T> list) {
+        return list.get(random.nextInt(list.size()));
+    }
+}
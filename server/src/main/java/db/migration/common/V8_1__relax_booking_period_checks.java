@@ -0,0 +1,48 @@
+package db.migration.common;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Снимает со столбцов bookings проверки вида start_datetime > CURRENT_TIMESTAMP из V1.
+ * Проверка строки повторяется при каждом UPDATE, поэтому прошедшие бронирования нельзя было ни подтвердить,
+ * ни дополнить (бэкфилл owner_id в V9). Дата начала в будущем проверяется в сервисе при создании бронирования,
+ * в базе остаётся только порядок дат. Имена ограничений в V1 не заданы и зависят от СУБД,
+ * поэтому они берутся из information_schema.
+ */
+@SuppressWarnings("checkstyle:TypeName")
+public class V8_1__relax_booking_period_checks extends BaseJavaMigration {
+    private static final String FIND_TIME_CHECKS = "SELECT tc.constraint_name "
+            + "FROM information_schema.table_constraints AS tc "
+            + "JOIN information_schema.check_constraints AS cc "
+            + "ON cc.constraint_schema = tc.constraint_schema AND cc.constraint_name = tc.constraint_name "
+            + "WHERE tc.constraint_type = 'CHECK' AND UPPER(tc.table_name) = 'BOOKINGS' "
+            + "AND tc.table_schema = CURRENT_SCHEMA AND UPPER(cc.check_clause) LIKE '%CURRENT_TIMESTAMP%'";
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+        List<String> names = new ArrayList<>();
+        try (PreparedStatement select = connection.prepareStatement(FIND_TIME_CHECKS);
+             ResultSet rows = select.executeQuery()) {
+            while (rows.next()) {
+                names.add(rows.getString(1));
+            }
+        }
+        try (Statement statement = connection.createStatement()) {
+            for (String name : names) {
+                statement.execute("ALTER TABLE bookings DROP CONSTRAINT \"" + name.replace("\"", "\"\"") + "\"");
+            }
+            statement.execute("ALTER TABLE bookings ADD CONSTRAINT CHK_BOOKINGS_PERIOD "
+                    + "CHECK (start_datetime < end_datetime)");
+        }
+    }
+}
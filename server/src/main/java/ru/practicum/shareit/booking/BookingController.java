@@ -1,13 +1,25 @@
 package ru.practicum.shareit.booking;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingShortDto;
+import ru.practicum.shareit.booking.export.BookingExportFormat;
+import ru.practicum.shareit.booking.export.BookingExportWriter;
+import ru.practicum.shareit.etag.EntityTags;
+import ru.practicum.shareit.pagination.PageCursor;
+import ru.practicum.shareit.pagination.PageHeaders;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -17,6 +29,8 @@ import java.util.List;
 public class BookingController {
     @Autowired
     private final BookingService bookingService;
+    @Autowired
+    private final ObjectMapper mapper;
     private final String userIdHeader = "X-Sharer-User-Id";
 
     @PostMapping
@@ -37,30 +51,77 @@ public class BookingController {
     }
 
     @GetMapping("/{bookingId}")
-    @ResponseStatus(HttpStatus.OK)
     public BookingDto getBooking(@PathVariable long bookingId,
-                                 @RequestHeader(userIdHeader) long userId) {
+                                 @RequestHeader(userIdHeader) long userId,
+                                 WebRequest request) {
         log.info("Принят запрос на получение booking id = {}.", bookingId);
+        if (EntityTags.isTagRequested(request) && request.checkNotModified(bookingService.getBookingTag(bookingId, userId))) {
+            return null;
+        }
         return bookingService.getBooking(bookingId, userId);
     }
 
     @GetMapping
-    @ResponseStatus(HttpStatus.OK)
     public List<BookingDto> getUserBookings(@RequestParam(required = false, defaultValue = "ALL") String state,
                                             @RequestHeader(userIdHeader) long userId,
                                             @RequestParam(defaultValue = "0", required = false) int from,
-                                            @RequestParam(defaultValue = "10", required = false) int size) {
+                                            @RequestParam(defaultValue = "10", required = false) int size,
+                                            @RequestParam(required = false) String after,
+                                            @RequestParam(defaultValue = "false", required = false) boolean withTotal,
+                                            HttpServletResponse response,
+                                            WebRequest request) {
         log.info("Принят запрос на получение бронирований для пользователя id = {}.", userId);
-        return bookingService.getAllUserBookings(userId, state, from, size);
+        if (!withTotal && EntityTags.isTagRequested(request) && request.checkNotModified(
+                bookingService.getUserBookingsTag(userId, state, from, size, after))) {
+            return null;
+        }
+        Slice<BookingDto> bookings = after == null
+                ? bookingService.getAllUserBookings(userId, state, from, size)
+                : bookingService.getAllUserBookingsAfter(userId, state, after, size);
+        if (withTotal) {
+            PageHeaders.writeTotalCount(response, bookingService.countUserBookings(userId, state));
+        }
+        return PageHeaders.writeSlice(response, bookings,
+                last -> PageCursor.encode(LocalDateTime.parse(last.getStart()), last.getId()));
     }
 
     @GetMapping("/owner")
-    @ResponseStatus(HttpStatus.OK)
     public List<BookingDto> getOwnerBookings(@RequestParam(required = false, defaultValue = "ALL") String state,
                                              @RequestHeader(userIdHeader) long userId,
                                              @RequestParam(defaultValue = "0", required = false) int from,
-                                             @RequestParam(defaultValue = "10", required = false) int size) {
+                                             @RequestParam(defaultValue = "10", required = false) int size,
+                                             @RequestParam(required = false) String after,
+                                             @RequestParam(defaultValue = "false", required = false) boolean withTotal,
+                                             HttpServletResponse response,
+                                             WebRequest request) {
         log.info("Принят запрос на получение бронирований для пользователя-владельца id = {}.", userId);
-        return bookingService.getAllOwnerBookings(userId, state, from, size);
+        if (!withTotal && EntityTags.isTagRequested(request) && request.checkNotModified(
+                bookingService.getOwnerBookingsTag(userId, state, from, size, after))) {
+            return null;
+        }
+        Slice<BookingDto> bookings = after == null
+                ? bookingService.getAllOwnerBookings(userId, state, from, size)
+                : bookingService.getAllOwnerBookingsAfter(userId, state, after, size);
+        if (withTotal) {
+            PageHeaders.writeTotalCount(response, bookingService.countOwnerBookings(userId, state));
+        }
+        return PageHeaders.writeSlice(response, bookings,
+                last -> PageCursor.encode(LocalDateTime.parse(last.getStart()), last.getId()));
+    }
+
+    /**
+     * Вся история бронирований владельца одним потоковым ответом, формат ndjson или csv.
+     */
+    @GetMapping("/owner/export")
+    public void exportOwnerBookings(@RequestParam(required = false, defaultValue = "ALL") String state,
+                                    @RequestParam(required = false, defaultValue = "ndjson") String format,
+                                    @RequestHeader(userIdHeader) long userId,
+                                    HttpServletResponse response) throws IOException {
+        log.info("Принят запрос на выгрузку бронирований для пользователя-владельца id = {}.", userId);
+        BookingExportFormat exportFormat = BookingExportFormat.from(format);
+        response.setContentType(exportFormat.getContentType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        bookingService.exportOwnerBookings(userId, state,
+                new BookingExportWriter(exportFormat, response.getOutputStream(), mapper));
     }
 }
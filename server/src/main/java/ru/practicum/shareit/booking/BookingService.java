@@ -1,9 +1,11 @@
 package ru.practicum.shareit.booking;
 
+import org.springframework.data.domain.Slice;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingShortDto;
+import ru.practicum.shareit.booking.export.BookingExportWriter;
 
-import java.util.List;
+import java.io.IOException;
 
 public interface BookingService {
     BookingDto createBooking(BookingShortDto bookingDto, long userId);
@@ -12,7 +14,23 @@ public interface BookingService {
 
     BookingDto getBooking(long bookingId, long userId);
 
-    List<BookingDto> getAllUserBookings(long userId, String state, int from, int size);
+    Slice<BookingDto> getAllUserBookings(long userId, String state, int from, int size);
 
-    List<BookingDto> getAllOwnerBookings(long userId, String state, int from, int size);
+    Slice<BookingDto> getAllOwnerBookings(long userId, String state, int from, int size);
+
+    Slice<BookingDto> getAllUserBookingsAfter(long userId, String state, String after, int size);
+
+    Slice<BookingDto> getAllOwnerBookingsAfter(long userId, String state, String after, int size);
+
+    String getBookingTag(long bookingId, long userId);
+
+    String getUserBookingsTag(long userId, String state, int from, int size, String after);
+
+    String getOwnerBookingsTag(long userId, String state, int from, int size, String after);
+
+    long countUserBookings(long userId, String state);
+
+    long countOwnerBookings(long userId, String state);
+
+    long exportOwnerBookings(long userId, String state, BookingExportWriter writer) throws IOException;
 }
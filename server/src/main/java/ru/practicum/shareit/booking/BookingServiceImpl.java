@@ -3,47 +3,69 @@ package ru.practicum.shareit.booking;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.exception.NoAccessException;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.exception.WrongInputDataException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.FromSizeRequest;
+import ru.practicum.shareit.pagination.PageCursor;
+import ru.practicum.shareit.booking.concurrency.BookingConcurrencyGuard;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingShortDto;
 import ru.practicum.shareit.booking.enums.BookingSearchState;
+import ru.practicum.shareit.booking.export.BookingExportWriter;
 import ru.practicum.shareit.booking.enums.BookingStatus;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.etag.EntityTags;
+import ru.practicum.shareit.etag.RowVersion;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j
 @AllArgsConstructor
 public class BookingServiceImpl implements BookingService {
+    private static final LocalDateTime MIN_DATE_TIME = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime MAX_DATE_TIME = LocalDateTime.of(9999, 12, 31, 23, 59);
+    private static final List<BookingStatus> BLOCKING_STATUSES = List.of(BookingStatus.WAITING, BookingStatus.APPROVED);
+    private static final String OVERLAP_CONSTRAINT = "EXCL_BOOKINGS_ITEM_PERIOD";
+    // Допуск на задержку между проверкой в gateway и сервером, как в BookingValidator gateway.
+    private static final Duration START_TOLERANCE = Duration.ofSeconds(5);
     @Autowired
     private final BookingRepository bookingRepository;
     @Autowired
     private final UserRepository userRepository;
     @Autowired
     private final ItemRepository itemRepository;
+    @Autowired
+    private final BookingConcurrencyGuard concurrencyGuard;
 
     @Override
-    @Transactional(isolation = Isolation.READ_COMMITTED)
     public BookingDto createBooking(BookingShortDto bookingDto, long userId) {
-        Optional<Item> item = itemRepository.findById(bookingDto.getItemId());
+        validatePeriod(bookingDto);
+        return concurrencyGuard.execute(bookingDto.getItemId(), () -> saveNewBooking(bookingDto, userId));
+    }
+
+    private BookingDto saveNewBooking(BookingShortDto bookingDto, long userId) {
+        Optional<Item> item = itemRepository.findForUpdateById(bookingDto.getItemId());
         Optional<User> booker = userRepository.findById(userId);
         if (item.isEmpty()) {
             log.info("Невозможно создать бронирование, предмет с id = " + bookingDto.getItemId() + " не найден.");
@@ -55,8 +77,8 @@ public class BookingServiceImpl implements BookingService {
         }
         Booking booking = BookingMapper.toNewBooking(bookingDto, item.get(), booker.get());
         if (!booking.getItem().getAvailable()) {
-                log.info("Item {} уже забронирован на выбранные даты, бронирование недоступно.", booking.getItem().getId());
-                throw new NoAccessException("Item " + booking.getItem().getId() + " уже забронирован на выбранные даты.");
+            log.info("Item {} недоступен для бронирования.", booking.getItem().getId());
+            throw new NoAccessException("Item " + booking.getItem().getId() + " недоступен для бронирования.");
         }
         if (booking.getItem().getOwner().getId().equals(booking.getBooker().getId())) {
             log.info("Пользователь {} является владельцем Item {}, нельзя создать бронирование.",
@@ -64,13 +86,27 @@ public class BookingServiceImpl implements BookingService {
             throw new NotFoundException(String.format("Пользователь %s является владельцем Item %s, нельзя создать бронирование.",
                     booking.getBooker().getId(), booking.getItem().getId()));
         }
-        booking.getItem().setAvailable(false);
-        Booking newBooking = bookingRepository.save(booking);
+        if (bookingRepository.existsByItemIdAndStatusInAndStartBeforeAndEndAfter(
+                booking.getItem().getId(), BLOCKING_STATUSES, booking.getEnd(), booking.getStart())) {
+            throw alreadyBooked(booking);
+        }
+        Booking newBooking;
+        try {
+            // Вставки идут пачками при flush: без него нарушение ограничения всплыло бы только при коммите.
+            newBooking = bookingRepository.saveAndFlush(booking);
+        } catch (DataIntegrityViolationException exception) {
+            if (isOverlapViolation(exception)) {
+                throw alreadyBooked(booking);
+            }
+            throw exception;
+        }
+        item.get().setBookingsVersion(item.get().getBookingsVersion() + 1);
         log.info("Создано бронирование {}.", newBooking);
         return BookingMapper.toBookingDto(newBooking);
     }
 
     @Override
+    @Transactional
     public BookingDto approveOrDenyBooking(long bookingId, long userId, boolean approved) {
         Booking booking = findBookingById(bookingId);
         if (booking.getItem().getOwner().getId() == userId) {
@@ -80,8 +116,8 @@ public class BookingServiceImpl implements BookingService {
                 } else {
                     booking.setStatus(BookingStatus.REJECTED);
                 }
-                booking.getItem().setAvailable(true);
-                itemRepository.save(booking.getItem());
+                itemRepository.findForUpdateById(booking.getItem().getId())
+                        .ifPresent(item -> item.setBookingsVersion(item.getBookingsVersion() + 1));
                 Booking updatedBooking = bookingRepository.save(booking);
                 return BookingMapper.toBookingDto(updatedBooking);
             } else {
@@ -98,6 +134,7 @@ public class BookingServiceImpl implements BookingService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public BookingDto getBooking(long bookingId, long userId) {
         Booking booking = findBookingById(bookingId);
         if (booking.getItem().getOwner().getId() == userId || booking.getBooker().getId() == userId) {
@@ -110,115 +147,257 @@ public class BookingServiceImpl implements BookingService {
     }
 
     @Override
-    public List<BookingDto> getAllUserBookings(long userId, String state, int from, int size) {
-        BookingSearchState searchState;
-        try {
-            searchState = BookingSearchState.valueOf(state);
-        } catch (IllegalArgumentException exception) {
-            throw new WrongInputDataException("Unknown state: " + state);
+    @Transactional(readOnly = true)
+    public Slice<BookingDto> getAllUserBookings(long userId, String state, int from, int size) {
+        BookingFilter filter = toBookingFilter(state);
+        Slice<BookingDto> bookingList = bookingRepository.findAllDtoByBookerId(
+                userId,
+                filter.statuses,
+                filter.startFrom,
+                filter.startTo,
+                filter.endFrom,
+                filter.endTo,
+                FromSizeRequest.of(from, size, Sort.unsorted()));
+        if (bookingList.isEmpty()) {
+            log.info("Не найдено бронирований, соответствующих запросу.");
+            throw new NotFoundException("Не найдено бронирований, соответствующих запросу.");
         }
-        Pageable pageParams = PageRequest.of(fromToPage(from, size), size, Sort.by(Sort.Direction.DESC, "start"));
-        List<BookingDto> bookingList = new ArrayList<>();
-        LocalDateTime dt = LocalDateTime.now();
-        LocalDateTime dateTime = LocalDateTime.of(
-                dt.getYear(), dt.getMonth(), dt.getDayOfMonth(), dt.getHour(), dt.getMinute(), dt.getSecond());
-        switch (searchState) {
-            case ALL:
-                bookingList = BookingMapper.toBookingDto(bookingRepository
-                        .findAllByBookerIdEquals(userId, pageParams));
-                break;
-            case CURRENT:
-                bookingList = BookingMapper.toBookingDto(bookingRepository
-                        .findAllByBookerIdEqualsAndStartBeforeAndEndAfter(userId, dateTime, dateTime, pageParams));
-                break;
-            case PAST:
-                bookingList = BookingMapper.toBookingDto(bookingRepository
-                        .findAllByBookerIdEqualsAndEndBefore(userId, dateTime, pageParams));
-                break;
-            case FUTURE:
-                bookingList = BookingMapper.toBookingDto(bookingRepository
-                        .findAllByBookerIdEqualsAndStartAfter(userId, dateTime, pageParams));
-                break;
-            case WAITING:
-                bookingList = BookingMapper.toBookingDto(bookingRepository
-                        .findAllByBookerIdEqualsAndStatusEquals(userId, BookingStatus.WAITING, pageParams));
-                break;
-            case REJECTED:
-                bookingList = BookingMapper.toBookingDto(bookingRepository
-                        .findAllByBookerIdEqualsAndStatusEquals(userId, BookingStatus.REJECTED, pageParams));
-                break;
+        log.info("Выгружен список бронирований, оформленных пользователем id {} размером {} записей.", userId, bookingList.getNumberOfElements());
+        return bookingList;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<BookingDto> getAllOwnerBookings(long userId, String state, int from, int size) {
+        BookingFilter filter = toBookingFilter(state);
+        Slice<BookingDto> bookingList = bookingRepository.findAllDtoByItemOwnerId(
+                userId,
+                filter.statuses,
+                filter.startFrom,
+                filter.startTo,
+                filter.endFrom,
+                filter.endTo,
+                FromSizeRequest.of(from, size, Sort.unsorted()));
+        if (bookingList.isEmpty()) {
+            log.info("Не найдено бронирований, соответствующих запросу.");
+            throw new NotFoundException("Не найдено бронирований, соответствующих запросу.");
         }
+        log.info("Выгружен список бронирований, где пользователь id {} - владелец, размером {} записей.", userId, bookingList.getNumberOfElements());
+        return bookingList;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<BookingDto> getAllUserBookingsAfter(long userId, String state, String after, int size) {
+        BookingFilter filter = toBookingFilter(state);
+        PageCursor cursor = PageCursor.decodeWithSortKey(after);
+        Slice<BookingDto> bookingList = bookingRepository.findAllDtoByBookerIdAfter(
+                userId,
+                filter.statuses,
+                filter.startFrom,
+                filter.startTo,
+                filter.endFrom,
+                filter.endTo,
+                cursor.getSortKey(),
+                cursor.getId(),
+                FromSizeRequest.of(0, size, Sort.unsorted()));
         if (bookingList.isEmpty()) {
             log.info("Не найдено бронирований, соответствующих запросу.");
             throw new NotFoundException("Не найдено бронирований, соответствующих запросу.");
         }
-        log.info("Выгружен список бронирований, оформленных пользователем id {} размером {} записей.", userId, bookingList.size());
+        log.info("Выгружен список бронирований, оформленных пользователем id {} размером {} записей.", userId, bookingList.getNumberOfElements());
         return bookingList;
     }
 
     @Override
-    public List<BookingDto> getAllOwnerBookings(long userId, String state, int from, int size) {
+    @Transactional(readOnly = true)
+    public Slice<BookingDto> getAllOwnerBookingsAfter(long userId, String state, String after, int size) {
+        BookingFilter filter = toBookingFilter(state);
+        PageCursor cursor = PageCursor.decodeWithSortKey(after);
+        Slice<BookingDto> bookingList = bookingRepository.findAllDtoByItemOwnerIdAfter(
+                userId,
+                filter.statuses,
+                filter.startFrom,
+                filter.startTo,
+                filter.endFrom,
+                filter.endTo,
+                cursor.getSortKey(),
+                cursor.getId(),
+                FromSizeRequest.of(0, size, Sort.unsorted()));
+        if (bookingList.isEmpty()) {
+            log.info("Не найдено бронирований, соответствующих запросу.");
+            throw new NotFoundException("Не найдено бронирований, соответствующих запросу.");
+        }
+        log.info("Выгружен список бронирований, где пользователь id {} - владелец, размером {} записей.", userId, bookingList.getNumberOfElements());
+        return bookingList;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public String getBookingTag(long bookingId, long userId) {
+        Long version = bookingRepository.findVersionByIdForUser(bookingId, userId).orElseThrow(() ->
+                new NotFoundException(String.format(
+                        "Ошибка доступа, для указанного пользователя id = %s не найдено бронирование c id = %s.",
+                        userId, bookingId)));
+        return EntityTags.of("booking", bookingId, version);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public String getUserBookingsTag(long userId, String state, int from, int size, String after) {
+        BookingFilter filter = toBookingFilter(state);
+        Slice<RowVersion> versions;
+        if (after == null) {
+            versions = bookingRepository.findAllVersionsByBookerId(userId, filter.statuses,
+                    filter.startFrom, filter.startTo, filter.endFrom, filter.endTo,
+                    FromSizeRequest.of(from, size, Sort.unsorted()));
+        } else {
+            PageCursor cursor = PageCursor.decodeWithSortKey(after);
+            versions = bookingRepository.findAllVersionsByBookerIdAfter(userId, filter.statuses,
+                    filter.startFrom, filter.startTo, filter.endFrom, filter.endTo,
+                    cursor.getSortKey(), cursor.getId(), FromSizeRequest.of(0, size, Sort.unsorted()));
+        }
+        return toListTag(versions, "booker", userId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public String getOwnerBookingsTag(long userId, String state, int from, int size, String after) {
+        BookingFilter filter = toBookingFilter(state);
+        Slice<RowVersion> versions;
+        if (after == null) {
+            versions = bookingRepository.findAllVersionsByItemOwnerId(userId, filter.statuses,
+                    filter.startFrom, filter.startTo, filter.endFrom, filter.endTo,
+                    FromSizeRequest.of(from, size, Sort.unsorted()));
+        } else {
+            PageCursor cursor = PageCursor.decodeWithSortKey(after);
+            versions = bookingRepository.findAllVersionsByItemOwnerIdAfter(userId, filter.statuses,
+                    filter.startFrom, filter.startTo, filter.endFrom, filter.endTo,
+                    cursor.getSortKey(), cursor.getId(), FromSizeRequest.of(0, size, Sort.unsorted()));
+        }
+        return toListTag(versions, "owner", userId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long countUserBookings(long userId, String state) {
+        BookingFilter filter = toBookingFilter(state);
+        return bookingRepository.countAllByBookerId(
+                userId, filter.statuses, filter.startFrom, filter.startTo, filter.endFrom, filter.endTo);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long countOwnerBookings(long userId, String state) {
+        BookingFilter filter = toBookingFilter(state);
+        return bookingRepository.countAllByItemOwnerId(
+                userId, filter.statuses, filter.startFrom, filter.startTo, filter.endFrom, filter.endTo);
+    }
+
+    /**
+     * Ошибки (неизвестный state, нет пользователя) возникают до первой записи в ответ.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long exportOwnerBookings(long userId, String state, BookingExportWriter writer) throws IOException {
+        BookingFilter filter = toBookingFilter(state);
+        if (!userRepository.existsCachedById(userId)) {
+            log.info("Невозможно выгрузить бронирования, пользователь с id = " + userId + " не найден.");
+            throw new NotFoundException("Невозможно выгрузить бронирования, пользователь с id = " + userId + " не найден.");
+        }
+        try (Stream<BookingDto> bookings = bookingRepository.streamAllDtoByItemOwnerId(
+                userId, filter.statuses, filter.startFrom, filter.startTo, filter.endFrom, filter.endTo)) {
+            Iterator<BookingDto> iterator = bookings.iterator();
+            while (iterator.hasNext()) {
+                writer.write(iterator.next());
+            }
+        }
+        long rows = writer.finish();
+        log.info("Выгружено {} бронирований, где пользователь id {} - владелец.", rows, userId);
+        return rows;
+    }
+
+    // База проверяет только порядок дат: проверка на CURRENT_TIMESTAMP в ней срабатывала и на UPDATE прошедших строк.
+    private void validatePeriod(BookingShortDto bookingDto) {
+        LocalDateTime start = LocalDateTime.parse(bookingDto.getStart());
+        LocalDateTime end = LocalDateTime.parse(bookingDto.getEnd());
+        if (!start.isBefore(end) || start.isBefore(LocalDateTime.now().minus(START_TOLERANCE))) {
+            log.info("Невозможно создать бронирование, некорректные даты начала и окончания.");
+            throw new ValidationException("Невозможно создать бронирование, некорректные даты начала и окончания.");
+        }
+    }
+
+    private Booking findBookingById(long bookingId) {
+        Optional<Booking> booking = bookingRepository.findById(bookingId);
+        if (booking.isEmpty()) {
+            log.info("Ошибка при выгрузке бронирования, booking с id = " + bookingId + " не найден.");
+            throw new NotFoundException("Ошибка при выгрузке бронирования, booking с id = " + bookingId + " не найден.");
+        }
+        return booking.get();
+    }
+
+    /**
+     * Пустая страница даёт 404, как и сам список, чтобы 304 не подменял ошибку.
+     */
+    private String toListTag(Slice<RowVersion> versions, String role, long userId) {
+        if (versions.isEmpty()) {
+            log.info("Не найдено бронирований, соответствующих запросу.");
+            throw new NotFoundException("Не найдено бронирований, соответствующих запросу.");
+        }
+        return EntityTags.ofRows(versions.getContent(), "bookings", role, userId, versions.hasNext());
+    }
+
+    private NoAccessException alreadyBooked(Booking booking) {
+        log.info("Item {} уже забронирован на выбранные даты, бронирование недоступно.", booking.getItem().getId());
+        return new NoAccessException("Item " + booking.getItem().getId() + " уже забронирован на выбранные даты.");
+    }
+
+    /**
+     * Гонку между проверкой пересечений и вставкой на PostgreSQL закрывает exclusion constraint,
+     * его нарушение означает то же самое, что и найденное пересечение.
+     */
+    private boolean isOverlapViolation(DataIntegrityViolationException exception) {
+        String message = exception.getMostSpecificCause().getMessage();
+        return message != null && message.toUpperCase().contains(OVERLAP_CONSTRAINT);
+    }
+
+    private BookingFilter toBookingFilter(String state) {
         BookingSearchState searchState;
         try {
             searchState = BookingSearchState.valueOf(state);
         } catch (IllegalArgumentException exception) {
             throw new WrongInputDataException("Unknown state: " + state);
         }
-        Pageable pageParams = PageRequest.of(fromToPage(from, size), size, Sort.by(Sort.Direction.DESC, "start"));
-        List<BookingDto> bookingList = new ArrayList<>();
         LocalDateTime dt = LocalDateTime.now();
         LocalDateTime dateTime = LocalDateTime.of(
                 dt.getYear(), dt.getMonth(), dt.getDayOfMonth(), dt.getHour(), dt.getMinute(), dt.getSecond());
+        BookingFilter filter = new BookingFilter();
         switch (searchState) {
-            case ALL:
-                bookingList = BookingMapper.toBookingDto(bookingRepository
-                        .findAllByItemOwnerIdEquals(userId, pageParams));
-                break;
             case CURRENT:
-                bookingList = BookingMapper.toBookingDto(bookingRepository
-                        .findAllByItemOwnerIdEqualsAndStartBeforeAndEndAfter(userId, dateTime, dateTime, pageParams));
+                filter.startTo = dateTime;
+                filter.endFrom = dateTime;
                 break;
             case PAST:
-                bookingList = BookingMapper.toBookingDto(bookingRepository
-                        .findAllByItemOwnerIdEqualsAndEndBefore(userId, dateTime, pageParams));
+                filter.endTo = dateTime;
                 break;
             case FUTURE:
-                bookingList = BookingMapper.toBookingDto(bookingRepository
-                        .findAllByItemOwnerIdEqualsAndStartAfter(userId, dateTime, pageParams));
+                filter.startFrom = dateTime;
                 break;
             case WAITING:
-                bookingList = BookingMapper.toBookingDto(bookingRepository
-                        .findAllByItemOwnerIdEqualsAndStatusEquals(userId, BookingStatus.WAITING, pageParams));
+                filter.statuses = List.of(BookingStatus.WAITING);
                 break;
             case REJECTED:
-                bookingList = BookingMapper.toBookingDto(bookingRepository
-                        .findAllByItemOwnerIdEqualsAndStatusEquals(userId, BookingStatus.REJECTED, pageParams));
+                filter.statuses = List.of(BookingStatus.REJECTED);
                 break;
         }
-        if (bookingList.isEmpty()) {
-            log.info("Не найдено бронирований, соответствующих запросу.");
-            throw new NotFoundException("Не найдено бронирований, соответствующих запросу.");
-        }
-        log.info("Выгружен список бронирований, где пользователь id {} - владелец, размером {} записей.", userId, bookingList.size());
-        return bookingList;
+        return filter;
     }
 
-    private Booking findBookingById(long bookingId) {
-        Optional<Booking> booking = bookingRepository.findById(bookingId);
-        if (booking.isEmpty()) {
-            log.info("Ошибка при выгрузке бронирования, booking с id = " + bookingId + " не найден.");
-            throw new NotFoundException("Ошибка при выгрузке бронирования, booking с id = " + bookingId + " не найден.");
-        }
-        return booking.get();
-    }
-
-    private int fromToPage(int from, int size) {
-        if (from < 0 || size <= 0) {
-            log.info("Переданы некорректные параметры from {} или size {}, проверьте правильность запроса.", from, size);
-            throw new WrongInputDataException(String.format(
-                    "Переданы некорректные параметры from %s или size %s, проверьте правильность запроса.", from, size));
-        }
-        float result = (float) from / size;
-        return (int) Math.ceil(result);
+    private static class BookingFilter {
+        private Collection<BookingStatus> statuses = List.of(BookingStatus.values());
+        private LocalDateTime startFrom = MIN_DATE_TIME;
+        private LocalDateTime startTo = MAX_DATE_TIME;
+        private LocalDateTime endFrom = MIN_DATE_TIME;
+        private LocalDateTime endTo = MAX_DATE_TIME;
     }
 }
@@ -0,0 +1,11 @@
+package ru.practicum.shareit.booking.concurrency;
+
+import java.util.function.Supplier;
+
+/**
+ * Способ разрешения конкурентных бронирований одного предмета. Действие выполняется
+ * в собственной транзакции, которую открывает реализация.
+ */
+public interface BookingConcurrencyGuard {
+    <T> T execute(long itemId, Supplier<T> action);
+}
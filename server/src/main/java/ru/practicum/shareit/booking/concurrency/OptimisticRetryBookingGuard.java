@@ -0,0 +1,63 @@
+package ru.practicum.shareit.booking.concurrency;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Проверка пересечений идёт под блокировкой строки предмета, бронирования разных периодов
+ * просто ждут друг друга. Транзакция, упавшая на конкурентном доступе (тайм-аут блокировки,
+ * взаимоблокировка, конфликт версий), повторяется с нуля не более maxAttempts раз.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "shareit.booking.concurrency", havingValue = "optimistic", matchIfMissing = true)
+public class OptimisticRetryBookingGuard implements BookingConcurrencyGuard {
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final long backoffMillis;
+
+    public OptimisticRetryBookingGuard(PlatformTransactionManager transactionManager,
+                                       @Value("${shareit.booking.max-attempts:5}") int maxAttempts,
+                                       @Value("${shareit.booking.retry-backoff-millis:5}") long backoffMillis) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        this.maxAttempts = maxAttempts;
+        this.backoffMillis = backoffMillis;
+    }
+
+    @Override
+    public <T> T execute(long itemId, Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> action.get());
+            } catch (ConcurrencyFailureException exception) {
+                if (attempt >= maxAttempts) {
+                    log.info("Item {} изменён параллельно, попытки бронирования исчерпаны ({}).", itemId, attempt);
+                    throw exception;
+                }
+                log.debug("Конкурентный доступ к item {}, попытка {} из {}.", itemId, attempt, maxAttempts);
+                pause(attempt);
+            }
+        }
+    }
+
+    private void pause(int attempt) {
+        if (backoffMillis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(backoffMillis * attempt) + 1);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package ru.practicum.shareit.booking.concurrency;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Бронирования одного предмета выполняются последовательно под блокировкой из фиксированного
+ * набора (по id предмета). Блокировка держится до фиксации транзакции. Защищает только
+ * в пределах одного экземпляра сервера, между экземплярами остаётся блокировка строки предмета.
+ */
+@Component
+@ConditionalOnProperty(name = "shareit.booking.concurrency", havingValue = "striped")
+public class StripedLockBookingGuard implements BookingConcurrencyGuard {
+    private final TransactionTemplate transactionTemplate;
+    private final Lock[] stripes;
+
+    public StripedLockBookingGuard(PlatformTransactionManager transactionManager,
+                                   @Value("${shareit.booking.lock-stripes:64}") int stripeCount) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        this.stripes = new Lock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public <T> T execute(long itemId, Supplier<T> action) {
+        Lock lock = stripes[Math.floorMod(Long.hashCode(itemId), stripes.length)];
+        lock.lock();
+        try {
+            return transactionTemplate.execute(status -> action.get());
+        } finally {
+            lock.unlock();
+        }
+    }
+}
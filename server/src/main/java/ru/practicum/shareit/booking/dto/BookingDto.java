@@ -8,6 +8,7 @@ import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.user.dto.UserDto;
 
 import javax.validation.constraints.NotNull;
+import java.time.LocalDateTime;
 
 @Data
 @AllArgsConstructor
@@ -21,4 +22,17 @@ public class BookingDto {
     private ItemDto item;
     private UserDto booker;
     private BookingStatus status;
-}
\ No newline at end of file
+
+    public BookingDto(long id, LocalDateTime start, LocalDateTime end,
+                      long itemId, String itemName, String itemDescription, Boolean itemAvailable,
+                      Long itemRequestId, long itemOwnerId,
+                      long bookerId, String bookerName, String bookerEmail,
+                      BookingStatus status) {
+        this(id,
+                start.toString(),
+                end.toString(),
+                new ItemDto(itemId, itemName, itemDescription, itemAvailable, itemRequestId, itemOwnerId),
+                new UserDto(bookerId, bookerName, bookerEmail),
+                status);
+    }
+}
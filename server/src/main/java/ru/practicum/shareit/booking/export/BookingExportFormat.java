@@ -0,0 +1,24 @@
+package ru.practicum.shareit.booking.export;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import ru.practicum.shareit.exception.WrongInputDataException;
+
+import java.util.Locale;
+
+@Getter
+@RequiredArgsConstructor
+public enum BookingExportFormat {
+    NDJSON("application/x-ndjson"),
+    CSV("text/csv");
+
+    private final String contentType;
+
+    public static BookingExportFormat from(String format) {
+        try {
+            return valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException exception) {
+            throw new WrongInputDataException("Unknown format: " + format);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package ru.practicum.shareit.booking.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import ru.practicum.shareit.booking.dto.BookingDto;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Пишет бронирования в поток ответа по одному, в памяти только текущая строка и буфер.
+ * Каждые FLUSH_ROWS строк буфер сбрасывается клиенту, ответ уходит частями (chunked).
+ */
+public class BookingExportWriter {
+    static final int FLUSH_ROWS = 500;
+    static final String CSV_HEADER = "id,start,end,status,item_id,item_name,booker_id,booker_name,booker_email";
+
+    private final BookingExportFormat format;
+    private final Writer writer;
+    private final ObjectWriter json;
+    private long rows;
+
+    public BookingExportWriter(BookingExportFormat format, OutputStream out, ObjectMapper mapper) {
+        this.format = format;
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        this.json = mapper.writerFor(BookingDto.class);
+    }
+
+    public void write(BookingDto booking) throws IOException {
+        if (rows == 0) {
+            writeHeader();
+        }
+        if (format == BookingExportFormat.NDJSON) {
+            writer.write(json.writeValueAsString(booking));
+        } else {
+            writeCsv(booking);
+        }
+        writer.write('\n');
+        if (++rows % FLUSH_ROWS == 0) {
+            writer.flush();
+        }
+    }
+
+    /**
+     * Дописывает остаток буфера и возвращает число выгруженных строк.
+     */
+    public long finish() throws IOException {
+        if (rows == 0) {
+            writeHeader();
+        }
+        writer.flush();
+        return rows;
+    }
+
+    private void writeHeader() throws IOException {
+        if (format == BookingExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+    }
+
+    private void writeCsv(BookingDto booking) throws IOException {
+        writer.write(String.valueOf(booking.getId()));
+        writer.write(',');
+        writer.write(booking.getStart());
+        writer.write(',');
+        writer.write(booking.getEnd());
+        writer.write(',');
+        writer.write(booking.getStatus().name());
+        writer.write(',');
+        writer.write(String.valueOf(booking.getItem().getId()));
+        writer.write(',');
+        writer.write(csvField(booking.getItem().getName()));
+        writer.write(',');
+        writer.write(String.valueOf(booking.getBooker().getId()));
+        writer.write(',');
+        writer.write(csvField(booking.getBooker().getName()));
+        writer.write(',');
+        writer.write(csvField(booking.getBooker().getEmail()));
+    }
+
+    /**
+     * Экранирование по RFC 4180: поле с запятой, кавычкой или переводом строки берётся в кавычки.
+     */
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -1,48 +1,70 @@
 package ru.practicum.shareit.booking.model;
 
-import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import ru.practicum.shareit.booking.enums.BookingStatus;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
-import java.util.Objects;
 
 @Data
 @Entity
 @Table(name = "bookings")
-@AllArgsConstructor
+@NamedEntityGraph(name = Booking.WITH_ITEM_AND_BOOKER,
+        attributeNodes = {@NamedAttributeNode("item"), @NamedAttributeNode("booker")})
 @NoArgsConstructor
 public class Booking {
+    public static final String WITH_ITEM_AND_BOOKER = "Booking.withItemAndBooker";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "booking_seq")
+    @SequenceGenerator(name = "booking_seq", sequenceName = "booking_seq", allocationSize = 50)
     private Long id;
     @Column(name = "start_datetime")
     private LocalDateTime start;
     @Column(name = "end_datetime")
     private LocalDateTime end;
+    @ToString.Exclude
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "item_id")
     private Item item;
+    @ToString.Exclude
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "booker_id")
     private User booker;
+    /**
+     * Владелец предмета на момент бронирования, копия items.owner_id для выборок владельца без join.
+     */
+    @Column(name = "owner_id", updatable = false)
+    private Long ownerId;
     @Enumerated(EnumType.STRING)
     private BookingStatus status;
+    @Version
+    private Long version;
+
+    public Booking(Long id, LocalDateTime start, LocalDateTime end, Item item, User booker, BookingStatus status) {
+        this.id = id;
+        this.start = start;
+        this.end = end;
+        this.item = item;
+        this.booker = booker;
+        this.status = status;
+        this.ownerId = item == null || item.getOwner() == null ? null : item.getOwner().getId();
+    }
 
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
+        if (!(o instanceof Booking)) return false;
         Booking booking = (Booking) o;
-        return getItem() == booking.getItem() && getBooker() == booking.getBooker() && getId().equals(booking.getId()) && getStart().equals(booking.getStart()) && getEnd().equals(booking.getEnd()) && getStatus() == booking.getStatus();
+        return getId() != null && getId().equals(booking.getId());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(getId(), getStart(), getEnd(), getItem(), getBooker(), getStatus());
+        return Booking.class.hashCode();
     }
 }
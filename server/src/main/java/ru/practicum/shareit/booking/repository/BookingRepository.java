@@ -1,45 +1,181 @@
 package ru.practicum.shareit.booking.repository;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.enums.BookingStatus;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.etag.RowVersion;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface BookingRepository extends JpaRepository<Booking, Long> {
-    Page<Booking> findAllByBookerIdEquals(long userId, Pageable pageable);
+    String BOOKING_DTO_SELECT = "SELECT new ru.practicum.shareit.booking.dto.BookingDto(" +
+            "b.id, b.start, b.end, i.id, i.name, i.description, i.available, i.request.id, i.owner.id, " +
+            "u.id, u.name, u.email, b.status) " +
+            "FROM Booking b JOIN b.item i JOIN b.booker u ";
+    String BOOKING_VERSION_SELECT = "SELECT new ru.practicum.shareit.etag.RowVersion(" +
+            "b.id, b.version + i.version + u.version) " +
+            "FROM Booking b JOIN b.item i JOIN b.booker u ";
+    String BOOKING_FILTER = "AND b.status IN :statuses " +
+            "AND b.start > :startFrom AND b.start < :startTo AND b.end > :endFrom AND b.end < :endTo ";
+    String BOOKING_KEYSET = "AND (b.start < :afterStart OR (b.start = :afterStart AND b.id < :afterId)) ";
+    String BOOKING_ORDER = "ORDER BY b.start DESC, b.id DESC";
+    String EXPORT_FETCH_SIZE = "500";
 
-    Page<Booking> findAllByBookerIdEqualsAndStatusEquals(
-            long userId, BookingStatus state, Pageable pageable);
+    @Override
+    @EntityGraph(Booking.WITH_ITEM_AND_BOOKER)
+    Optional<Booking> findById(Long id);
 
-    Page<Booking> findAllByBookerIdEqualsAndStartAfter(
-            long userId, LocalDateTime currentTime, Pageable pageable);
+    Booking findFirstByItemIdEqualsAndStatusIsNotAndStartBeforeOrderByStartDesc(Long id, BookingStatus status, LocalDateTime now);
 
-    Page<Booking> findAllByBookerIdEqualsAndEndBefore(
-            long userId, LocalDateTime currentTime, Pageable pageable);
+    Booking findFirstByItemIdEqualsAndStatusIsNotAndStartAfterOrderByStartAsc(Long id, BookingStatus status, LocalDateTime now);
 
-    Page<Booking> findAllByBookerIdEqualsAndStartBeforeAndEndAfter(
-            long userId, LocalDateTime currentTime, LocalDateTime currentTime1, Pageable pageable);
+    /**
+     * Начало ближайшего бронирования: когда оно наступает, у владельца меняются последнее и следующее бронирования.
+     */
+    @Query("SELECT MIN(b.start) FROM Booking b WHERE b.item.id = :itemId AND b.status <> :status AND b.start > :now")
+    Optional<LocalDateTime> findNextStartByItemId(@Param("itemId") long itemId,
+                                                  @Param("status") BookingStatus status,
+                                                  @Param("now") LocalDateTime now);
 
-    Page<Booking> findAllByItemOwnerIdEqualsAndStatusEquals(
-            long userId, BookingStatus state, Pageable pageable);
+    Booking findFirstByBookerIdEqualsAndItemIdEqualsAndEndBefore(long userId, long itemId, LocalDateTime now);
 
-    Page<Booking> findAllByItemOwnerIdEqualsAndStartAfter(
-            long userId, LocalDateTime currentTime, Pageable pageable);
+    boolean existsByItemIdAndStatusInAndStartBeforeAndEndAfter(long itemId, Collection<BookingStatus> statuses,
+                                                              LocalDateTime end, LocalDateTime start);
 
-    Page<Booking> findAllByItemOwnerIdEqualsAndEndBefore(
-            long userId, LocalDateTime currentTime, Pageable pageable);
+    @Query(value = "SELECT id, start_datetime, end_datetime, item_id, booker_id, owner_id, status, version FROM (" +
+            "SELECT b.*, ROW_NUMBER() OVER (" +
+            "PARTITION BY b.item_id, CASE WHEN b.start_datetime < :now THEN 0 ELSE 1 END " +
+            "ORDER BY CASE WHEN b.start_datetime < :now THEN b.start_datetime END DESC, b.start_datetime ASC) AS rn " +
+            "FROM bookings AS b " +
+            "WHERE b.item_id IN (:itemIds) AND b.status <> :status " +
+            "AND (b.start_datetime < :now OR b.start_datetime > :now)) AS ranked " +
+            "WHERE ranked.rn = 1", nativeQuery = true)
+    List<Booking> findLastAndNextBookingsForItems(@Param("itemIds") Collection<Long> itemIds,
+                                                  @Param("status") String excludedStatus,
+                                                  @Param("now") LocalDateTime now);
 
-    Page<Booking> findAllByItemOwnerIdEqualsAndStartBeforeAndEndAfter(
-            long userId, LocalDateTime currentTime, LocalDateTime currentTime1, Pageable pageable);
+    @Query(BOOKING_DTO_SELECT + "WHERE u.id = :userId " + BOOKING_FILTER + BOOKING_ORDER)
+    Slice<BookingDto> findAllDtoByBookerId(@Param("userId") long userId,
+                                           @Param("statuses") Collection<BookingStatus> statuses,
+                                           @Param("startFrom") LocalDateTime startFrom,
+                                           @Param("startTo") LocalDateTime startTo,
+                                           @Param("endFrom") LocalDateTime endFrom,
+                                           @Param("endTo") LocalDateTime endTo,
+                                           Pageable pageable);
 
-    Page<Booking> findAllByItemOwnerIdEquals(long userId, Pageable pageable);
+    @Query(BOOKING_DTO_SELECT + "WHERE b.ownerId = :userId " + BOOKING_FILTER + BOOKING_ORDER)
+    Slice<BookingDto> findAllDtoByItemOwnerId(@Param("userId") long userId,
+                                              @Param("statuses") Collection<BookingStatus> statuses,
+                                              @Param("startFrom") LocalDateTime startFrom,
+                                              @Param("startTo") LocalDateTime startTo,
+                                              @Param("endFrom") LocalDateTime endFrom,
+                                              @Param("endTo") LocalDateTime endTo,
+                                              Pageable pageable);
 
-    Booking findFirstByItemIdEqualsAndStatusIsNotAndStartBeforeOrderByStartDesc(Long id, BookingStatus status, LocalDateTime now);
+    @Query(BOOKING_DTO_SELECT + "WHERE u.id = :userId " + BOOKING_FILTER + BOOKING_KEYSET + BOOKING_ORDER)
+    Slice<BookingDto> findAllDtoByBookerIdAfter(@Param("userId") long userId,
+                                                @Param("statuses") Collection<BookingStatus> statuses,
+                                                @Param("startFrom") LocalDateTime startFrom,
+                                                @Param("startTo") LocalDateTime startTo,
+                                                @Param("endFrom") LocalDateTime endFrom,
+                                                @Param("endTo") LocalDateTime endTo,
+                                                @Param("afterStart") LocalDateTime afterStart,
+                                                @Param("afterId") long afterId,
+                                                Pageable pageable);
 
-    Booking findFirstByItemIdEqualsAndStatusIsNotAndStartAfterOrderByStartAsc(Long id, BookingStatus status, LocalDateTime now);
+    @Query(BOOKING_DTO_SELECT + "WHERE b.ownerId = :userId " + BOOKING_FILTER + BOOKING_KEYSET + BOOKING_ORDER)
+    Slice<BookingDto> findAllDtoByItemOwnerIdAfter(@Param("userId") long userId,
+                                                   @Param("statuses") Collection<BookingStatus> statuses,
+                                                   @Param("startFrom") LocalDateTime startFrom,
+                                                   @Param("startTo") LocalDateTime startTo,
+                                                   @Param("endFrom") LocalDateTime endFrom,
+                                                   @Param("endTo") LocalDateTime endTo,
+                                                   @Param("afterStart") LocalDateTime afterStart,
+                                                   @Param("afterId") long afterId,
+                                                   Pageable pageable);
 
-    Booking findFirstByBookerIdEqualsAndItemIdEqualsAndEndBefore(long userId, long itemId, LocalDateTime now);
+    /**
+     * Вся история владельца курсором: строки читаются из БД пачками по EXPORT_FETCH_SIZE.
+     * Поток нужно закрыть, читать — внутри транзакции.
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query(BOOKING_DTO_SELECT + "WHERE b.ownerId = :userId " + BOOKING_FILTER + BOOKING_ORDER)
+    Stream<BookingDto> streamAllDtoByItemOwnerId(@Param("userId") long userId,
+                                                 @Param("statuses") Collection<BookingStatus> statuses,
+                                                 @Param("startFrom") LocalDateTime startFrom,
+                                                 @Param("startTo") LocalDateTime startTo,
+                                                 @Param("endFrom") LocalDateTime endFrom,
+                                                 @Param("endTo") LocalDateTime endTo);
+
+    @Query("SELECT b.version + i.version + u.version FROM Booking b JOIN b.item i JOIN b.booker u " +
+            "WHERE b.id = :bookingId AND (u.id = :userId OR b.ownerId = :userId)")
+    Optional<Long> findVersionByIdForUser(@Param("bookingId") long bookingId, @Param("userId") long userId);
+
+    @Query(BOOKING_VERSION_SELECT + "WHERE u.id = :userId " + BOOKING_FILTER + BOOKING_ORDER)
+    Slice<RowVersion> findAllVersionsByBookerId(@Param("userId") long userId,
+                                                @Param("statuses") Collection<BookingStatus> statuses,
+                                                @Param("startFrom") LocalDateTime startFrom,
+                                                @Param("startTo") LocalDateTime startTo,
+                                                @Param("endFrom") LocalDateTime endFrom,
+                                                @Param("endTo") LocalDateTime endTo,
+                                                Pageable pageable);
+
+    @Query(BOOKING_VERSION_SELECT + "WHERE b.ownerId = :userId " + BOOKING_FILTER + BOOKING_ORDER)
+    Slice<RowVersion> findAllVersionsByItemOwnerId(@Param("userId") long userId,
+                                                   @Param("statuses") Collection<BookingStatus> statuses,
+                                                   @Param("startFrom") LocalDateTime startFrom,
+                                                   @Param("startTo") LocalDateTime startTo,
+                                                   @Param("endFrom") LocalDateTime endFrom,
+                                                   @Param("endTo") LocalDateTime endTo,
+                                                   Pageable pageable);
+
+    @Query(BOOKING_VERSION_SELECT + "WHERE u.id = :userId " + BOOKING_FILTER + BOOKING_KEYSET + BOOKING_ORDER)
+    Slice<RowVersion> findAllVersionsByBookerIdAfter(@Param("userId") long userId,
+                                                     @Param("statuses") Collection<BookingStatus> statuses,
+                                                     @Param("startFrom") LocalDateTime startFrom,
+                                                     @Param("startTo") LocalDateTime startTo,
+                                                     @Param("endFrom") LocalDateTime endFrom,
+                                                     @Param("endTo") LocalDateTime endTo,
+                                                     @Param("afterStart") LocalDateTime afterStart,
+                                                     @Param("afterId") long afterId,
+                                                     Pageable pageable);
+
+    @Query(BOOKING_VERSION_SELECT + "WHERE b.ownerId = :userId " + BOOKING_FILTER + BOOKING_KEYSET + BOOKING_ORDER)
+    Slice<RowVersion> findAllVersionsByItemOwnerIdAfter(@Param("userId") long userId,
+                                                        @Param("statuses") Collection<BookingStatus> statuses,
+                                                        @Param("startFrom") LocalDateTime startFrom,
+                                                        @Param("startTo") LocalDateTime startTo,
+                                                        @Param("endFrom") LocalDateTime endFrom,
+                                                        @Param("endTo") LocalDateTime endTo,
+                                                        @Param("afterStart") LocalDateTime afterStart,
+                                                        @Param("afterId") long afterId,
+                                                        Pageable pageable);
+
+    @Query("SELECT COUNT(b) FROM Booking b WHERE b.booker.id = :userId " + BOOKING_FILTER)
+    long countAllByBookerId(@Param("userId") long userId,
+                            @Param("statuses") Collection<BookingStatus> statuses,
+                            @Param("startFrom") LocalDateTime startFrom,
+                            @Param("startTo") LocalDateTime startTo,
+                            @Param("endFrom") LocalDateTime endFrom,
+                            @Param("endTo") LocalDateTime endTo);
+
+    @Query("SELECT COUNT(b) FROM Booking b WHERE b.ownerId = :userId " + BOOKING_FILTER)
+    long countAllByItemOwnerId(@Param("userId") long userId,
+                               @Param("statuses") Collection<BookingStatus> statuses,
+                               @Param("startFrom") LocalDateTime startFrom,
+                               @Param("startTo") LocalDateTime startTo,
+                               @Param("endFrom") LocalDateTime endFrom,
+                               @Param("endTo") LocalDateTime endTo);
 }
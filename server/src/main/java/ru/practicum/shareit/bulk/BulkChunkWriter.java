@@ -0,0 +1,12 @@
+package ru.practicum.shareit.bulk;
+
+import java.util.List;
+
+@FunctionalInterface
+public interface BulkChunkWriter<T> {
+    /**
+     * Сохраняет часть строк в уже открытой транзакции. Строки, не прошедшие проверки,
+     * не сохраняются и возвращаются как ошибки.
+     */
+    List<BulkLineError> write(List<BulkLine<T>> chunk);
+}
@@ -0,0 +1,19 @@
+package ru.practicum.shareit.bulk;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Итог загрузки: failed — все отклонённые строки, errors — первые из них с причинами.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkImportResult {
+    private long imported;
+    private long failed;
+    private List<BulkLineError> errors;
+}
@@ -0,0 +1,188 @@
+package ru.practicum.shareit.bulk;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Загрузка NDJSON: тело читается построчно, в памяти только текущая часть из CHUNK_SIZE строк.
+ * Каждая часть сохраняется своей транзакцией, INSERT уходят пакетами JDBC. Если часть не
+ * сохранилась целиком (например, нарушен UNIQUE), её строки сохраняются по одной, чтобы
+ * отклонить только ошибочные. Строка длиннее MAX_LINE_LENGTH символов отклоняется, её остаток
+ * пропускается без чтения в память.
+ * MappingIterator по всему потоку здесь не подходит: после синтаксической ошибки парсер не
+ * восстанавливается до следующей строки, две записи в одной строке он принял бы как две, а предела
+ * длины документа в Jackson 2.13 нет. Поэтому строки режутся заранее, а разбирает их один ObjectReader.
+ */
+@Slf4j
+@Component
+public class BulkImporter {
+    public static final int CHUNK_SIZE = 500;
+    public static final int MAX_REPORTED_ERRORS = 1000;
+    public static final int MAX_LINE_LENGTH = 64 * 1024;
+
+    private final ObjectMapper mapper;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+
+    public BulkImporter(ObjectMapper mapper, Validator validator, PlatformTransactionManager transactionManager) {
+        this.mapper = mapper;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public <T> BulkImportResult importLines(InputStream body, Class<T> type, BulkChunkWriter<T> writer)
+            throws IOException {
+        ObjectReader reader = mapper.readerFor(type).with(DeserializationFeature.FAIL_ON_TRAILING_TOKENS);
+        BulkImportResult result = new BulkImportResult(0, 0, new ArrayList<>());
+        List<BulkLine<T>> chunk = new ArrayList<>(CHUNK_SIZE);
+        BoundedLineReader lines = new BoundedLineReader(
+                new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8)), MAX_LINE_LENGTH);
+        long lineNumber = 0;
+        String line;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            if (lines.isTooLong()) {
+                reject(result, new BulkLineError(lineNumber, "Строка длиннее " + MAX_LINE_LENGTH + " символов."));
+                continue;
+            }
+            if (line.isBlank()) {
+                continue;
+            }
+            T value;
+            try {
+                value = reader.readValue(line);
+            } catch (JsonProcessingException exception) {
+                reject(result, new BulkLineError(lineNumber, "Некорректный JSON: " + exception.getOriginalMessage()));
+                continue;
+            }
+            if (value == null) {
+                reject(result, new BulkLineError(lineNumber, "Пустая запись."));
+                continue;
+            }
+            String violations = violations(value);
+            if (violations != null) {
+                reject(result, new BulkLineError(lineNumber, violations));
+                continue;
+            }
+            chunk.add(new BulkLine<>(lineNumber, value));
+            if (chunk.size() == CHUNK_SIZE) {
+                save(chunk, writer, result);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            save(chunk, writer, result);
+        }
+        // Ошибки формата известны сразу, ошибки сохранения — после части, в ответе они по порядку строк.
+        result.getErrors().sort(Comparator.comparingLong(BulkLineError::getLine));
+        return result;
+    }
+
+    private <T> void save(List<BulkLine<T>> chunk, BulkChunkWriter<T> writer, BulkImportResult result) {
+        List<BulkLineError> errors;
+        try {
+            errors = transactionTemplate.execute(status -> writer.write(chunk));
+        } catch (DataAccessException | TransactionException exception) {
+            log.info("Часть из {} строк не сохранена ({}), строки сохраняются по одной.", chunk.size(),
+                    NestedExceptionUtils.getMostSpecificCause(exception).getMessage());
+            errors = saveOneByOne(chunk, writer);
+        }
+        result.setImported(result.getImported() + chunk.size() - errors.size());
+        errors.forEach(error -> reject(result, error));
+    }
+
+    private <T> List<BulkLineError> saveOneByOne(List<BulkLine<T>> chunk, BulkChunkWriter<T> writer) {
+        List<BulkLineError> errors = new ArrayList<>();
+        for (BulkLine<T> line : chunk) {
+            try {
+                errors.addAll(transactionTemplate.execute(status -> writer.write(List.of(line))));
+            } catch (DataAccessException | TransactionException exception) {
+                errors.add(new BulkLineError(line.getLine(), "Запись не сохранена: "
+                        + NestedExceptionUtils.getMostSpecificCause(exception).getMessage()));
+            }
+        }
+        return errors;
+    }
+
+    private <T> String violations(T value) {
+        Set<ConstraintViolation<T>> violations = validator.validate(value);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .sorted(Comparator.comparing(violation -> violation.getPropertyPath().toString()))
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .collect(Collectors.joining("; "));
+    }
+
+    private static void reject(BulkImportResult result, BulkLineError error) {
+        result.setFailed(result.getFailed() + 1);
+        if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+            result.getErrors().add(error);
+        }
+    }
+
+    /**
+     * readLine с ограничением длины: символы сверх maxLength до конца строки читаются и отбрасываются.
+     */
+    private static final class BoundedLineReader {
+        private final Reader in;
+        private final int maxLength;
+        private final StringBuilder line = new StringBuilder();
+        private boolean tooLong;
+
+        private BoundedLineReader(Reader in, int maxLength) {
+            this.in = in;
+            this.maxLength = maxLength;
+        }
+
+        private String readLine() throws IOException {
+            line.setLength(0);
+            tooLong = false;
+            int next = in.read();
+            if (next == -1) {
+                return null;
+            }
+            while (next != -1 && next != '\n') {
+                if (line.length() < maxLength) {
+                    line.append((char) next);
+                } else if (next != '\r') {
+                    tooLong = true;
+                }
+                next = in.read();
+            }
+            int end = line.length();
+            if (end > 0 && line.charAt(end - 1) == '\r') {
+                line.setLength(end - 1);
+            }
+            return tooLong ? "" : line.toString();
+        }
+
+        private boolean isTooLong() {
+            return tooLong;
+        }
+    }
+}
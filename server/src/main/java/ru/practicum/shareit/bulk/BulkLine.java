@@ -0,0 +1,12 @@
+package ru.practicum.shareit.bulk;
+
+import lombok.Value;
+
+/**
+ * Разобранная и проверенная строка NDJSON вместе с её номером в теле запроса.
+ */
+@Value
+public class BulkLine<T> {
+    long line;
+    T value;
+}
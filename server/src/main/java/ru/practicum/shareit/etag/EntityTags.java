@@ -0,0 +1,46 @@
+package ru.practicum.shareit.etag;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.WebRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.StringJoiner;
+
+/**
+ * Строгие ETag ответов, вычисляемые по версиям сущностей, а не по телу ответа: проверка
+ * If-None-Match обходится запросом версий без загрузки сущностей и маппинга в DTO.
+ * Тег считается только для запросов с If-None-Match или с заголовком X-Want-Etag, которым клиент без тега
+ * (кэш шлюза при промахе) просит его прислать: обычный GET не платит за запрос версий и уходит без ETag.
+ * Методы контроллеров с WebRequest.checkNotModified не помечаются @ResponseStatus — иначе 304 станет 200.
+ */
+public final class EntityTags {
+    public static final String TAG_REQUEST_HEADER = "X-Want-Etag";
+
+    private EntityTags() {
+    }
+
+    public static boolean isTagRequested(WebRequest request) {
+        return request.getHeader(HttpHeaders.IF_NONE_MATCH) != null || request.getHeader(TAG_REQUEST_HEADER) != null;
+    }
+
+    public static String of(Object... parts) {
+        StringJoiner joiner = new StringJoiner(":");
+        for (Object part : parts) {
+            joiner.add(String.valueOf(part));
+        }
+        return DigestUtils.md5DigestAsHex(joiner.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Тег страницы списка: id и версии строк страницы плюс параметры запроса.
+     */
+    public static String ofRows(Collection<RowVersion> rows, Object... parts) {
+        StringJoiner joiner = new StringJoiner(",");
+        for (RowVersion row : rows) {
+            joiner.add(row.getId() + "v" + row.getVersion());
+        }
+        return of(joiner, of(parts));
+    }
+}
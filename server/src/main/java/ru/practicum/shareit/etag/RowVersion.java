@@ -0,0 +1,12 @@
+package ru.practicum.shareit.etag;
+
+import lombok.Value;
+
+/**
+ * Id строки и сумма версий сущностей, из которых собирается её представление.
+ */
+@Value
+public class RowVersion {
+    long id;
+    long version;
+}
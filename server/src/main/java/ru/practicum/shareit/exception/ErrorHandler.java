@@ -2,6 +2,7 @@ package ru.practicum.shareit.exception;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -69,6 +70,13 @@ public class ErrorHandler {
         return new ErrorResponse("Присланные данные не прошли проверку, проверьте содержимое запроса.");
     }
 
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ErrorResponse handleConcurrentUpdate(final ConcurrencyFailureException exception) {
+        log.info("Данные изменены параллельным запросом: {}", exception.getMessage());
+        return new ErrorResponse("Данные изменены параллельным запросом, повторите попытку.");
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.CONFLICT)
     public ErrorResponse handleDataIntegrityViolation(final DataIntegrityViolationException exception) {
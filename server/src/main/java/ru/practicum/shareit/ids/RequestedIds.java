@@ -0,0 +1,37 @@
+package ru.practicum.shareit.ids;
+
+import ru.practicum.shareit.exception.ValidationException;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Список id из запроса вида ?ids=3,1,2: результат выборки возвращается в порядке запроса,
+ * повторы и несуществующие id пропускаются. Шлюз проверяет тот же предел тоже после удаления повторов.
+ */
+public final class RequestedIds {
+    public static final int MAX_IDS = 100;
+
+    private RequestedIds() {
+    }
+
+    public static List<Long> distinct(List<Long> ids) {
+        List<Long> distinct = ids.stream().distinct().collect(Collectors.toList());
+        if (distinct.size() > MAX_IDS) {
+            throw new ValidationException("Нельзя запросить больше " + MAX_IDS + " id за раз.");
+        }
+        return distinct;
+    }
+
+    public static <T> List<T> inRequestOrder(List<Long> ids, Collection<T> found, Function<T, Long> idOf) {
+        Map<Long, T> byId = found.stream().collect(Collectors.toMap(idOf, Function.identity()));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+}
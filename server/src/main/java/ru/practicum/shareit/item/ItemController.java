@@ -3,13 +3,22 @@ package ru.practicum.shareit.item;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import ru.practicum.shareit.bulk.BulkImportResult;
+import ru.practicum.shareit.etag.EntityTags;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemCommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemForUpdate;
+import ru.practicum.shareit.pagination.PageCursor;
+import ru.practicum.shareit.pagination.PageHeaders;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -30,6 +39,17 @@ public class ItemController {
         return itemService.createItem(item, userId);
     }
 
+    /**
+     * Пакетное создание: тело в формате NDJSON, один item на строку.
+     */
+    @PostMapping("/bulk")
+    @ResponseStatus(HttpStatus.OK)
+    public BulkImportResult importItems(@RequestHeader(userIdHeader) long userId,
+                                        HttpServletRequest request) throws IOException {
+        log.info("Принят запрос на пакетное создание item от пользователя {}.", userId);
+        return itemService.importItems(request.getInputStream(), userId);
+    }
+
     @PatchMapping("/{itemId}")
     @ResponseStatus(HttpStatus.OK)
     public ItemDto updateItem(@RequestBody ItemForUpdate item,
@@ -40,10 +60,13 @@ public class ItemController {
     }
 
     @GetMapping("/{itemId}")
-    @ResponseStatus(HttpStatus.OK)
     public ItemCommentDto getItem(@PathVariable long itemId,
-                                  @RequestHeader(userIdHeader) long userId) {
+                                  @RequestHeader(userIdHeader) long userId,
+                                  WebRequest request) {
         log.info("Принят запрос на получение itemId id = {}.", itemId);
+        if (EntityTags.isTagRequested(request) && request.checkNotModified(itemService.getItemTag(itemId, userId))) {
+            return null;
+        }
         ItemCommentDto returnValue = itemService.getItem(itemId, userId);
         log.info("Отправлен ответ на запрос item id = {}. Тело ответа: {}", itemId, returnValue);
         return returnValue;
@@ -53,18 +76,43 @@ public class ItemController {
     @ResponseStatus(HttpStatus.OK)
     public List<ItemCommentDto> getItems(@RequestHeader(userIdHeader) long userId,
                                          @RequestParam(defaultValue = "0", required = false) int from,
-                                         @RequestParam(defaultValue = "10", required = false) int size) {
+                                         @RequestParam(defaultValue = "10", required = false) int size,
+                                         @RequestParam(required = false) String after,
+                                         @RequestParam(defaultValue = "false", required = false) boolean withTotal,
+                                         HttpServletResponse response) {
         log.info("Принят запрос на получение всех itemId для пользователя {}.", userId);
-        return itemService.getItems(userId, from, size);
+        Slice<ItemCommentDto> items = after == null
+                ? itemService.getItems(userId, from, size)
+                : itemService.getItemsAfter(userId, after, size);
+        if (withTotal) {
+            PageHeaders.writeTotalCount(response, itemService.countItems(userId));
+        }
+        return PageHeaders.writeSlice(response, items, last -> PageCursor.encode(last.getId()));
+    }
+
+    /**
+     * Несколько item одним запросом: ?ids=3,1,2, ответ в порядке id из запроса.
+     */
+    @GetMapping(params = "ids")
+    @ResponseStatus(HttpStatus.OK)
+    public List<ItemDto> getItemsByIds(@RequestParam List<Long> ids,
+                                       @RequestHeader(userIdHeader) long userId) {
+        log.info("Принят запрос на получение item с id {} от пользователя {}.", ids, userId);
+        return itemService.getItemsByIds(ids);
     }
 
     @GetMapping("/search")
     @ResponseStatus(HttpStatus.OK)
     public List<ItemDto> searchItems(@RequestParam String text,
                                      @RequestParam(defaultValue = "0", required = false) int from,
-                                     @RequestParam(defaultValue = "10", required = false) int size) {
+                                     @RequestParam(defaultValue = "10", required = false) int size,
+                                     @RequestParam(required = false) String after,
+                                     HttpServletResponse response) {
         log.info("Принят запрос на поиск itemId, где название или описание содержит '{}'", text);
-        return itemService.searchItems(text, from, size);
+        Slice<ItemDto> items = after == null
+                ? itemService.searchItems(text, from, size)
+                : itemService.searchItemsAfter(text, after, size);
+        return PageHeaders.writeSlice(response, items, last -> PageCursor.encode(last.getId()));
     }
 
     @PostMapping("/{itemId}/comment")
@@ -1,23 +1,39 @@
 package ru.practicum.shareit.item;
 
+import org.springframework.data.domain.Slice;
+import ru.practicum.shareit.bulk.BulkImportResult;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemCommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemForUpdate;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 public interface ItemService {
 
     ItemDto createItem(ItemDto item, long userId);
 
+    BulkImportResult importItems(InputStream body, long userId) throws IOException;
+
     ItemDto updateItem(ItemForUpdate item, long itemId, long userId);
 
     ItemCommentDto getItem(long itemId, long userId);
 
-    List<ItemCommentDto> getItems(long owner, int from, int size);
+    String getItemTag(long itemId, long userId);
+
+    List<ItemDto> getItemsByIds(List<Long> ids);
+
+    Slice<ItemCommentDto> getItems(long owner, int from, int size);
+
+    Slice<ItemCommentDto> getItemsAfter(long owner, String after, int size);
+
+    long countItems(long owner);
+
+    Slice<ItemDto> searchItems(String text, int from, int size);
 
-    List<ItemDto> searchItems(String text, int from, int size);
+    Slice<ItemDto> searchItemsAfter(String text, String after, int size);
 
     CommentDto createComment(CommentDto commentDto, long itemId, long userId);
 }
@@ -3,15 +3,23 @@ package ru.practicum.shareit.item;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.bulk.BulkImportResult;
+import ru.practicum.shareit.bulk.BulkImporter;
+import ru.practicum.shareit.bulk.BulkLine;
+import ru.practicum.shareit.bulk.BulkLineError;
+import ru.practicum.shareit.etag.EntityTags;
 import ru.practicum.shareit.exception.NoAccessException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
-import ru.practicum.shareit.exception.WrongInputDataException;
+import ru.practicum.shareit.ids.RequestedIds;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemCommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
@@ -22,6 +30,9 @@ import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.CommentRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+import ru.practicum.shareit.pagination.FromSizeRequest;
+import ru.practicum.shareit.pagination.PageCursor;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.booking.dto.BookingForItemDto;
@@ -32,11 +43,18 @@ import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
@@ -52,8 +70,13 @@ public class ItemServiceImpl implements ItemService {
     private final UserRepository userRepository;
     @Autowired
     private final ItemRequestRepository requestRepository;
+    @Autowired
+    private final ItemSearchEngine searchEngine;
+    @Autowired
+    private final BulkImporter bulkImporter;
 
     @Override
+    @Transactional
     public ItemDto createItem(ItemDto itemDto, long userId) {
         User owner = userRepository.findById(userId).orElseThrow((
                 () -> new NotFoundException("Невозможно создать предмет, владелец с id = " + userId + " не найден.")));
@@ -68,11 +91,57 @@ public class ItemServiceImpl implements ItemService {
         }
         Item newItem = ItemMapper.toItem(itemDto, owner, true, request.orElse(null));
         Item item = itemRepository.save(newItem);
+        indexAfterCommit(List.of(item));
         log.info("Создан item {}.", item);
         return ItemMapper.toItemDto(item);
     }
 
     @Override
+    public BulkImportResult importItems(InputStream body, long userId) throws IOException {
+        if (!userRepository.existsCachedById(userId)) {
+            log.info("Невозможно создать предметы, владелец с id = " + userId + " не найден.");
+            throw new NotFoundException("Невозможно создать предметы, владелец с id = " + userId + " не найден.");
+        }
+        BulkImportResult result = bulkImporter.importLines(body, ItemDto.class, chunk -> saveItems(chunk, userId));
+        log.info("Пользователем id {} загружено предметов: {}, отклонено строк: {}.",
+                userId, result.getImported(), result.getFailed());
+        return result;
+    }
+
+    /**
+     * Запросы, на которые отвечают предметы, проверяются одним запросом на часть строк.
+     */
+    private List<BulkLineError> saveItems(List<BulkLine<ItemDto>> chunk, long userId) {
+        User owner = userRepository.getReferenceById(userId);
+        Set<Long> requestIds = chunk.stream()
+                .map(line -> line.getValue().getRequestId())
+                .filter(requestId -> requestId != null && requestId != 0)
+                .collect(Collectors.toSet());
+        Map<Long, ItemRequest> requests = requestRepository.findAllById(requestIds).stream()
+                .collect(Collectors.toMap(ItemRequest::getId, request -> request));
+        List<BulkLineError> errors = new ArrayList<>();
+        List<Item> items = new ArrayList<>(chunk.size());
+        for (BulkLine<ItemDto> line : chunk) {
+            ItemDto itemDto = line.getValue();
+            ItemRequest request = null;
+            if (itemDto.getRequestId() != null && itemDto.getRequestId() != 0) {
+                request = requests.get(itemDto.getRequestId());
+                if (request == null) {
+                    errors.add(new BulkLineError(line.getLine(),
+                            "Невозможно создать item. Указан несуществующий requestId " + itemDto.getRequestId() + "."));
+                    continue;
+                }
+            }
+            Item item = ItemMapper.toItem(itemDto, owner, true, request);
+            item.setId(null);
+            items.add(item);
+        }
+        indexAfterCommit(itemRepository.saveAll(items));
+        return errors;
+    }
+
+    @Override
+    @Transactional
     public ItemDto updateItem(ItemForUpdate item, long itemId, long userId) {
         Optional<User> owner = userRepository.findById(userId);
         if (owner.isEmpty()) {
@@ -84,6 +153,12 @@ public class ItemServiceImpl implements ItemService {
             log.info("Не найден itemId с id = {}.", itemId);
             throw new NotFoundException(String.format("Не найден itemId с id = %s.", itemId));
         }
+        // Владелец не меняется: его копия bookings.owner_id задаётся только при создании бронирования.
+        if (oldItem.get().getOwner().getId() != userId) {
+            log.info("Пользователь {} не является владельцем item {}, обновление невозможно.", userId, itemId);
+            throw new NotFoundException(String.format(
+                    "Пользователь %s не является владельцем item %s, обновление невозможно.", userId, itemId));
+        }
         Optional<ItemRequest> request = Optional.empty();
         if (item.getRequestId() != null && item.getRequestId() != 0) {
             request = requestRepository.findById(item.getRequestId());
@@ -93,25 +168,26 @@ public class ItemServiceImpl implements ItemService {
                         "Невозможно создать item. Указан несуществующий requestId " + item.getRequestId() + ".");
             }
         }
-        Item newItem = ItemMapper.toItem(item, itemId, owner.get(), request.orElse(null));
-        if (newItem.getName() == null) {
-            newItem.setName(oldItem.get().getName());
+        Item updatedItem = oldItem.get();
+        if (item.getName() != null) {
+            updatedItem.setName(item.getName());
         }
-        if (newItem.getDescription() == null) {
-            newItem.setDescription(oldItem.get().getDescription());
+        if (item.getDescription() != null) {
+            updatedItem.setDescription(item.getDescription());
         }
-        if (newItem.getAvailable() == null) {
-            newItem.setAvailable(oldItem.get().getAvailable());
+        if (item.getAvailable() != null) {
+            updatedItem.setAvailable(item.getAvailable());
         }
-        Item updatedItem = itemRepository.save(newItem);
+        updatedItem.setRequest(request.orElse(null));
+        indexAfterCommit(List.of(updatedItem));
         log.info("Обновлён item {}.", updatedItem);
         return ItemMapper.toItemDto(updatedItem);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ItemCommentDto getItem(long itemId, long userId) {
-        Optional<User> user = userRepository.findById(userId);
-        if (user.isEmpty()) {
+        if (!userRepository.existsCachedById(userId)) {
             log.info("Невозможно выгрузить item, пользователь с id = " + userId + " не найден.");
             throw new NotFoundException("Невозможно выгрузить item, пользователь с id = " + userId + " не найден.");
         }
@@ -143,51 +219,94 @@ public class ItemServiceImpl implements ItemService {
     }
 
     @Override
-    public List<ItemCommentDto> getItems(long owner, int from, int size) {
-        Optional<User> user = userRepository.findById(owner);
-        if (user.isEmpty()) {
-            log.info("Невозможно выгрузить список item, владелец с id = " + owner + " не найден.");
-            throw new NotFoundException("Невозможно выгрузить список item, владелец с id = " + owner + " не найден.");
+    @Transactional(readOnly = true)
+    public List<ItemDto> getItemsByIds(List<Long> ids) {
+        List<Long> requested = RequestedIds.distinct(ids);
+        List<ItemDto> items = RequestedIds.inRequestOrder(requested,
+                requested.isEmpty() ? List.of() : itemRepository.findAllDtoByIdIn(requested), ItemDto::getId);
+        log.info("Выгружено {} item из {} запрошенных.", items.size(), requested.size());
+        return items;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public String getItemTag(long itemId, long userId) {
+        if (!userRepository.existsCachedById(userId)) {
+            log.info("Невозможно выгрузить item, пользователь с id = " + userId + " не найден.");
+            throw new NotFoundException("Невозможно выгрузить item, пользователь с id = " + userId + " не найден.");
         }
-        Pageable pageParams = PageRequest.of(fromToPage(from, size), size, Sort.by(Sort.Direction.ASC, "id"));
-        Page<Item> items = itemRepository.findAllByOwnerIdIsOrderByIdAsc(owner, pageParams);
-        List<ItemCommentDto> itemsForOwner = new ArrayList<>();
-        LocalDateTime dt = LocalDateTime.now();
-        LocalDateTime dateTime = LocalDateTime.of(
-                dt.getYear(), dt.getMonth(), dt.getDayOfMonth(), dt.getHour(), dt.getMinute(), dt.getSecond());
-        for (Item item : items) {
-            BookingForItemDto bookingBefore = BookingMapper.toBookingForItemDto(
-                    bookingRepository.findFirstByItemIdEqualsAndStatusIsNotAndStartBeforeOrderByStartDesc(
-                            item.getId(),
-                            BookingStatus.REJECTED,
-                            dateTime));
-            BookingForItemDto bookingAfter = BookingMapper.toBookingForItemDto(
-                    bookingRepository.findFirstByItemIdEqualsAndStatusIsNotAndStartAfterOrderByStartAsc(
-                            item.getId(),
-                            BookingStatus.REJECTED,
-                            dateTime));
-            List<CommentDto> comments = CommentMapper.toCommentDto(
-                    commentRepository.findAllByItemIdEqualsOrderByCreatedDesc(item.getId()));
-            itemsForOwner.add(ItemMapper.toItemCommentDto(item, bookingBefore, bookingAfter, comments));
+        Item item = itemRepository.findById(itemId).orElseThrow(() -> {
+            log.info("Не найден itemId с id = {}.", itemId);
+            return new NotFoundException(String.format("Не найден itemId с id = %s.", itemId));
+        });
+        if (item.getOwner().getId() != userId) {
+            return EntityTags.of("item", itemId, false, item.getVersion(), item.getCommentsVersion());
         }
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        LocalDateTime nextStart = bookingRepository.findNextStartByItemId(itemId, BookingStatus.REJECTED, now)
+                .orElse(null);
+        return EntityTags.of("item", itemId, true, item.getVersion(), item.getCommentsVersion(),
+                item.getBookingsVersion(), nextStart);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<ItemCommentDto> getItems(long owner, int from, int size) {
+        checkOwnerExists(owner);
+        Pageable pageParams = FromSizeRequest.of(from, size, Sort.by(Sort.Direction.ASC, "id"));
+        Slice<Item> items = itemRepository.findAllByOwnerIdIsOrderByIdAsc(owner, pageParams);
+        List<ItemCommentDto> itemsForOwner = toItemCommentDto(items.getContent());
         log.info("Выгружен список item, принадлежащих user {} размером {} записей", owner, itemsForOwner.size());
-        return itemsForOwner;
+        return new SliceImpl<>(itemsForOwner, items.getPageable(), items.hasNext());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<ItemCommentDto> getItemsAfter(long owner, String after, int size) {
+        checkOwnerExists(owner);
+        PageCursor cursor = PageCursor.decode(after);
+        Slice<Item> items = itemRepository.findAllByOwnerIdIsAndIdGreaterThanOrderByIdAsc(
+                owner, cursor.getId(), FromSizeRequest.of(0, size, Sort.unsorted()));
+        List<ItemCommentDto> itemsForOwner = toItemCommentDto(items.getContent());
+        log.info("Выгружен список item, принадлежащих user {} размером {} записей", owner, itemsForOwner.size());
+        return new SliceImpl<>(itemsForOwner, items.getPageable(), items.hasNext());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long countItems(long owner) {
+        return itemRepository.countByOwnerIdIs(owner);
     }
 
     @Override
-    public List<ItemDto> searchItems(String text, int from, int size) {
+    @Transactional(readOnly = true)
+    public Slice<ItemDto> searchItems(String text, int from, int size) {
         if (text == null || text.isBlank()) {
             log.info("Текст запроса пуст. Выгружен список itemId по запросу: '{}' размером 0 записей", text);
-            return Collections.emptyList();
+            return new SliceImpl<>(Collections.emptyList());
         }
-        Pageable pageParams = PageRequest.of(fromToPage(from, size), size, Sort.by(Sort.Direction.ASC, "id"));
-        List<ItemDto> items = ItemMapper.toItemDto(
-                itemRepository.findAllByNameOrDescriptionContainingIgnoreCaseAndAvailableTrue(text, text, pageParams));
-        log.info("Выгружен список item по запросу: '{}' размером {} записей", text, items.size());
+        Pageable pageParams = FromSizeRequest.of(from, size, Sort.by(Sort.Direction.ASC, "id"));
+        Slice<ItemDto> items = searchEngine.search(text, 0, pageParams);
+        log.info("Выгружен список item по запросу: '{}' размером {} записей", text, items.getNumberOfElements());
         return items;
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public Slice<ItemDto> searchItemsAfter(String text, String after, int size) {
+        if (text == null || text.isBlank()) {
+            log.info("Текст запроса пуст. Выгружен список itemId по запросу: '{}' размером 0 записей", text);
+            return new SliceImpl<>(Collections.emptyList());
+        }
+        PageCursor cursor = PageCursor.decode(after);
+        Pageable pageParams = FromSizeRequest.of(0, size, Sort.by(Sort.Direction.ASC, "id"));
+        Slice<ItemDto> items = searchEngine.search(text, cursor.getId(), pageParams);
+        log.info("Выгружен список item по запросу: '{}' размером {} записей", text, items.getNumberOfElements());
+        return items;
+    }
+
+    @Override
+    @Transactional
     public CommentDto createComment(CommentDto commentDto, long itemId, long userId) {
         LocalDateTime dt = LocalDateTime.now();
         LocalDateTime dateTime = LocalDateTime.of(
@@ -198,7 +317,7 @@ public class ItemServiceImpl implements ItemService {
             throw new NotFoundException(String.format(
                     "Ошибка при создании комментария к itemId id " + itemId + ". Пользователь " + userId + " не найден."));
         }
-        Optional<Item> item = itemRepository.findById(itemId);
+        Optional<Item> item = itemRepository.findForUpdateById(itemId);
         if (item.isEmpty()) {
             log.info("Ошибка при создании комментария к itemId id " + itemId + ". Предмет c id " + userId + " не найден.");
             throw new NotFoundException(String.format(
@@ -215,17 +334,66 @@ public class ItemServiceImpl implements ItemService {
         }
         Comment newComment = CommentMapper.toComment(commentDto, item.get(), user.get(), dateTime);
         Comment returnValue = commentRepository.save(newComment);
+        item.get().setCommentsVersion(item.get().getCommentsVersion() + 1);
         log.info("Создан комментарий {}.", returnValue);
         return CommentMapper.toCommentDto(returnValue);
     }
 
-    private int fromToPage(int from, int size) {
-        if (from < 0 || size <= 0) {
-            log.info("Переданы некорректные параметры from {} или size {}, проверьте правильность запроса.", from, size);
-            throw new WrongInputDataException(String.format(
-                    "Переданы некорректные параметры from %s или size %s, проверьте правильность запроса.", from, size));
+    /**
+     * Откаченная транзакция не должна оставлять записей в поисковом индексе.
+     * Вне транзакции индексирует сразу.
+     */
+    private void indexAfterCommit(List<Item> items) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            items.forEach(searchEngine::index);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                items.forEach(searchEngine::index);
+            }
+        });
+    }
+
+    private void checkOwnerExists(long owner) {
+        if (!userRepository.existsCachedById(owner)) {
+            log.info("Невозможно выгрузить список item, владелец с id = " + owner + " не найден.");
+            throw new NotFoundException("Невозможно выгрузить список item, владелец с id = " + owner + " не найден.");
+        }
+    }
+
+    private List<ItemCommentDto> toItemCommentDto(List<Item> items) {
+        List<ItemCommentDto> itemsForOwner = new ArrayList<>();
+        if (items.isEmpty()) {
+            return itemsForOwner;
         }
-        float result = (float) from / size;
-        return (int) Math.ceil(result);
+        LocalDateTime dt = LocalDateTime.now();
+        LocalDateTime dateTime = LocalDateTime.of(
+                dt.getYear(), dt.getMonth(), dt.getDayOfMonth(), dt.getHour(), dt.getMinute(), dt.getSecond());
+        List<Long> itemIds = items.stream().map(Item::getId).collect(Collectors.toList());
+        Map<Long, BookingForItemDto> bookingsBefore = new HashMap<>();
+        Map<Long, BookingForItemDto> bookingsAfter = new HashMap<>();
+        Map<Long, List<CommentDto>> comments = new HashMap<>();
+        for (Booking booking : bookingRepository.findLastAndNextBookingsForItems(
+                itemIds, BookingStatus.REJECTED.name(), dateTime)) {
+            if (booking.getStart().isBefore(dateTime)) {
+                bookingsBefore.put(booking.getItem().getId(), BookingMapper.toBookingForItemDto(booking));
+            } else {
+                bookingsAfter.put(booking.getItem().getId(), BookingMapper.toBookingForItemDto(booking));
+            }
+        }
+        for (Comment comment : commentRepository.findAllByItemIdInOrderByCreatedDesc(itemIds)) {
+            comments.computeIfAbsent(comment.getItem().getId(), id -> new ArrayList<>())
+                    .add(CommentMapper.toCommentDto(comment));
+        }
+        for (Item item : items) {
+            itemsForOwner.add(ItemMapper.toItemCommentDto(
+                    item,
+                    bookingsBefore.get(item.getId()),
+                    bookingsAfter.get(item.getId()),
+                    comments.getOrDefault(item.getId(), new ArrayList<>())));
+        }
+        return itemsForOwner;
     }
 }
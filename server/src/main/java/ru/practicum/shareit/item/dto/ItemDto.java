@@ -14,12 +14,12 @@ import javax.validation.constraints.Size;
 public class ItemDto {
     private long id;
     @NotEmpty(message = "Имя не может быть null")
-    @Size(min = 1, max = 255)
+    @Size(min = 1, max = 255, message = "Допустимый размер имени - от 1 до 255 знаков.")
     private String name;
     @NotEmpty(message = "Описание не может быть null")
-    @Size(min = 1, max = 512)
+    @Size(min = 1, max = 512, message = "Допустимый размер описания - от 1 до 512 знаков.")
     private String description;
-    @NotNull
+    @NotNull(message = "Доступность не может быть null")
     private Boolean available;
     private Long requestId;
     private long ownerId;
@@ -3,7 +3,6 @@ package ru.practicum.shareit.item.mapper;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemCommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
-import ru.practicum.shareit.item.dto.ItemForUpdate;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.booking.dto.BookingForItemDto;
@@ -57,14 +56,4 @@ public class ItemMapper {
                 request,
                 owner);
     }
-
-    public static Item toItem(ItemForUpdate item, long itemId, User owner, ItemRequest request) {
-        return new Item(
-                itemId,
-                item.getName(),
-                item.getDescription(),
-                item.getAvailable(),
-                request,
-                owner);
-    }
 }
@@ -1,8 +1,12 @@
 package ru.practicum.shareit.item.model;
 
-import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.OptimisticLock;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.model.User;
 
@@ -11,20 +15,61 @@ import javax.persistence.*;
 @Data
 @Entity
 @Table(name = "items")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Item.CACHE_REGION)
+@BatchSize(size = Item.BATCH_SIZE)
 @NoArgsConstructor
-@AllArgsConstructor
 public class Item {
+    public static final String CACHE_REGION = "items";
+    public static final int BATCH_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "item_seq")
+    @SequenceGenerator(name = "item_seq", sequenceName = "item_seq", allocationSize = 50)
     private Long id;
     private String name;
     private String description;
     private Boolean available;
-    @ManyToOne
+    @ToString.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "request_id")
     private ItemRequest request;
-    @ManyToOne
+    @ToString.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "owner_id")
     private User owner;
-}
+    @Version
+    private Long version;
+    /**
+     * Счётчики изменений бронирований и комментариев предмета для ETag GET /items/{id}.
+     * Увеличиваются под блокировкой строки и не трогают version: бронирование не конфликтует с правкой предмета.
+     */
+    @OptimisticLock(excluded = true)
+    @Column(name = "bookings_version")
+    private long bookingsVersion;
+    @OptimisticLock(excluded = true)
+    @Column(name = "comments_version")
+    private long commentsVersion;
+
+    public Item(Long id, String name, String description, Boolean available, ItemRequest request, User owner) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.available = available;
+        this.request = request;
+        this.owner = owner;
+    }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Item)) return false;
+        Item item = (Item) o;
+        return getId() != null && getId().equals(item.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Item.class.hashCode();
+    }
+}
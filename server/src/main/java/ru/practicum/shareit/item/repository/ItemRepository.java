@@ -1,17 +1,62 @@
 package ru.practicum.shareit.item.repository;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.etag.RowVersion;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemForResponseDto;
 import ru.practicum.shareit.item.model.Item;
 
+import javax.persistence.LockModeType;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface ItemRepository extends JpaRepository<Item, Long> {
-    Page<Item> findAllByOwnerIdIsOrderByIdAsc(long userId, Pageable pageable);
+    /**
+     * SELECT ... FOR UPDATE: бронирования одного предмета проверяют пересечения по очереди,
+     * счётчики бронирований и комментариев увеличиваются без потерянных обновлений.
+     * Версия предмета при этом не меняется.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Item> findForUpdateById(long id);
 
-    Page<Item> findAllByNameOrDescriptionContainingIgnoreCaseAndAvailableTrue(String text1, String text2, Pageable pageable);
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Item i WHERE i.id IN (SELECT c.item.id FROM Comment c WHERE c.author.id = :authorId)")
+    List<Item> findAllForUpdateByCommentAuthorId(@Param("authorId") long authorId);
+
+    Slice<Item> findAllByOwnerIdIsOrderByIdAsc(long userId, Pageable pageable);
+
+    Slice<Item> findAllByOwnerIdIsAndIdGreaterThanOrderByIdAsc(long userId, long id, Pageable pageable);
+
+    long countByOwnerIdIs(long userId);
+
+    @Query("SELECT new ru.practicum.shareit.item.dto.ItemDto(i.id, i.name, i.description, i.available, i.request.id, i.owner.id) " +
+            "FROM Item i WHERE i.id IN :ids")
+    List<ItemDto> findAllDtoByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new ru.practicum.shareit.item.dto.ItemDto(i.id, i.name, i.description, i.available, i.request.id, i.owner.id) " +
+            "FROM Item i WHERE i.id IN :ids AND i.available = TRUE ORDER BY i.id")
+    List<ItemDto> findAllDtoByIdInAndAvailableTrue(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new ru.practicum.shareit.item.dto.ItemDto(i.id, i.name, i.description, i.available, i.request.id, i.owner.id) " +
+            "FROM Item i WHERE i.available = TRUE " +
+            "AND (LOWER(i.name) LIKE CONCAT('%', :text, '%') OR LOWER(i.description) LIKE CONCAT('%', :text, '%')) " +
+            "AND i.id > :afterId ORDER BY i.id")
+    Slice<ItemDto> searchAvailableByText(@Param("text") String text, @Param("afterId") long afterId, Pageable pageable);
 
     List<ItemForResponseDto> findAllByRequestIdEquals(long id);
+
+
+    @Query("SELECT new ru.practicum.shareit.etag.RowVersion(i.id, i.version) FROM Item i " +
+            "WHERE i.request.id = :requestId ORDER BY i.id")
+    List<RowVersion> findAllVersionsByRequestId(@Param("requestId") long requestId);
+
+    @Query("SELECT new ru.practicum.shareit.item.dto.ItemForResponseDto(i.id, i.name, i.description, i.available, i.request.id) " +
+            "FROM Item i WHERE i.request.id IN :requestIds")
+    List<ItemForResponseDto> findAllByRequestIdIn(@Param("requestIds") Collection<Long> requestIds);
 }
@@ -0,0 +1,179 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Инвертированный индекс по триграммам названия и описания, хранится в памяти приложения.
+ * Используется для H2, где нет полнотекстовых индексов. Индекс отбирает кандидатов,
+ * итоговое совпадение подстроки проверяется по сохранённому тексту, доступность
+ * проверяется в БД пачками id по возрастанию, пока не наберётся страница.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "memory", matchIfMissing = true)
+public class InMemoryItemSearchEngine implements ItemSearchEngine {
+    private static final int GRAM_SIZE = 3;
+    private static final int ID_BATCH_SIZE = 500;
+
+    private final ItemRepository itemRepository;
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+    private final Map<Long, String[]> documents = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean loaded = false;
+
+    @Override
+    public Slice<ItemDto> search(String text, long afterId, Pageable pageable) {
+        ensureLoaded();
+        Set<Long> ids = findMatchingIds(normalize(text), afterId);
+        if (ids.isEmpty()) {
+            return new SliceImpl<>(Collections.emptyList(), pageable, false);
+        }
+        long skip = pageable.getOffset();
+        int limit = pageable.getPageSize() + 1;
+        List<ItemDto> page = new ArrayList<>(limit);
+        Iterator<Long> iterator = ids.iterator();
+        while (iterator.hasNext() && page.size() < limit) {
+            List<Long> batch = new ArrayList<>(ID_BATCH_SIZE);
+            while (iterator.hasNext() && batch.size() < ID_BATCH_SIZE) {
+                batch.add(iterator.next());
+            }
+            for (ItemDto item : itemRepository.findAllDtoByIdInAndAvailableTrue(batch)) {
+                if (skip > 0) {
+                    skip--;
+                } else if (page.size() < limit) {
+                    page.add(item);
+                }
+            }
+        }
+        boolean hasNext = page.size() > pageable.getPageSize();
+        if (hasNext) {
+            page.remove(page.size() - 1);
+        }
+        return new SliceImpl<>(page, pageable, hasNext);
+    }
+
+    @Override
+    public void index(Item item) {
+        ensureLoaded();
+        lock.writeLock().lock();
+        try {
+            put(item);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Set<Long> findMatchingIds(String query, long afterId) {
+        lock.readLock().lock();
+        try {
+            Set<Long> candidates;
+            if (query.length() < GRAM_SIZE) {
+                candidates = documents.keySet();
+            } else {
+                candidates = intersectPostings(tokenize(query));
+            }
+            Set<Long> result = new TreeSet<>();
+            for (Long id : candidates) {
+                String[] fields = documents.get(id);
+                if (id > afterId && (fields[0].contains(query) || fields[1].contains(query))) {
+                    result.add(id);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Set<Long> intersectPostings(Set<String> grams) {
+        Set<Long> smallest = null;
+        for (String gram : grams) {
+            Set<Long> ids = postings.get(gram);
+            if (ids == null) {
+                return Collections.emptySet();
+            }
+            if (smallest == null || ids.size() < smallest.size()) {
+                smallest = ids;
+            }
+        }
+        Set<Long> result = new HashSet<>(smallest);
+        for (String gram : grams) {
+            result.retainAll(postings.get(gram));
+        }
+        return result;
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                List<Item> items = itemRepository.findAll();
+                for (Item item : items) {
+                    put(item);
+                }
+                loaded = true;
+                log.info("Построен поисковый индекс item размером {} записей.", items.size());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void put(Item item) {
+        String[] previous = documents.get(item.getId());
+        if (previous != null) {
+            for (String gram : tokenize(previous)) {
+                Set<Long> ids = postings.get(gram);
+                ids.remove(item.getId());
+                if (ids.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+        String[] fields = {normalize(item.getName()), normalize(item.getDescription())};
+        documents.put(item.getId(), fields);
+        for (String gram : tokenize(fields)) {
+            postings.computeIfAbsent(gram, key -> new HashSet<>()).add(item.getId());
+        }
+    }
+
+    private static Set<String> tokenize(String... fields) {
+        Set<String> grams = new HashSet<>();
+        for (String field : fields) {
+            for (int i = 0; i + GRAM_SIZE <= field.length(); i++) {
+                grams.add(field.substring(i, i + GRAM_SIZE));
+            }
+        }
+        return grams;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,13 @@
+package ru.practicum.shareit.item.search;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+
+public interface ItemSearchEngine {
+
+    Slice<ItemDto> search(String text, long afterId, Pageable pageable);
+
+    void index(Item item);
+}
@@ -0,0 +1,41 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.FromSizeRequest;
+
+import java.util.Locale;
+
+/**
+ * Поиск средствами PostgreSQL: LIKE по LOWER(name)/LOWER(description) обслуживается
+ * GIN-индексами pg_trgm из миграции V3, поэтому индекс приложения не нужен.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "postgres")
+public class PostgresItemSearchEngine implements ItemSearchEngine {
+    private final ItemRepository itemRepository;
+
+    @Override
+    public Slice<ItemDto> search(String text, long afterId, Pageable pageable) {
+        String pattern = text.toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return itemRepository.searchAvailableByText(pattern, afterId,
+                FromSizeRequest.of((int) pageable.getOffset(), pageable.getPageSize(), Sort.unsorted()));
+    }
+
+    @Override
+    public void index(Item item) {
+    }
+}
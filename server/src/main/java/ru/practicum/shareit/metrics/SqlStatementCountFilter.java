@@ -0,0 +1,76 @@
+package ru.practicum.shareit.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Число SQL-запросов на HTTP-запрос в метрике shareit.sql.statements по шаблону пути.
+ * В отладочном режиме то же число отдаётся в заголовке X-Sql-Statement-Count: ответ
+ * буферизуется, чтобы заголовок успел попасть в него после работы контроллера.
+ * Потоковые ответы (streamingPaths) не буферизуются: для них число пишется в лог.
+ */
+@Slf4j
+public class SqlStatementCountFilter extends OncePerRequestFilter {
+    public static final String HEADER = "X-Sql-Statement-Count";
+    public static final String METRIC = "shareit.sql.statements";
+
+    private final SqlStatementCounter counter;
+    private final MeterRegistry registry;
+    private final boolean exposeHeader;
+    private final List<String> streamingPaths;
+    private final PathMatcher pathMatcher = new AntPathMatcher();
+
+    public SqlStatementCountFilter(SqlStatementCounter counter, MeterRegistry registry, boolean exposeHeader,
+                                   List<String> streamingPaths) {
+        this.counter = counter;
+        this.registry = registry;
+        this.exposeHeader = exposeHeader;
+        this.streamingPaths = streamingPaths;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean streaming = isStreaming(request);
+        ContentCachingResponseWrapper wrapper = exposeHeader && !streaming
+                ? new ContentCachingResponseWrapper(response) : null;
+        counter.reset();
+        try {
+            chain.doFilter(request, wrapper != null ? wrapper : response);
+        } finally {
+            int statements = counter.count();
+            Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            DistributionSummary.builder(METRIC)
+                    .description("SQL-запросов на один HTTP-запрос")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri != null ? uri.toString() : "UNKNOWN")
+                    .publishPercentileHistogram()
+                    .register(registry)
+                    .record(statements);
+            if (wrapper != null) {
+                wrapper.setHeader(HEADER, String.valueOf(statements));
+                wrapper.copyBodyToResponse();
+            } else if (exposeHeader) {
+                log.info("{} {}: SQL-запросов {}.", request.getMethod(), request.getRequestURI(), statements);
+            }
+        }
+    }
+
+    private boolean isStreaming(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return streamingPaths.stream().anyMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+}
@@ -0,0 +1,53 @@
+package ru.practicum.shareit.pagination;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import ru.practicum.shareit.exception.WrongInputDataException;
+
+import java.util.Objects;
+
+/**
+ * Pageable, отдающий ровно size записей начиная с from-й, а не с ближайшей границы страницы.
+ */
+@Slf4j
+public class FromSizeRequest extends PageRequest {
+    private final int from;
+
+    protected FromSizeRequest(int from, int size, Sort sort) {
+        super(from / size, size, sort);
+        this.from = from;
+    }
+
+    public static FromSizeRequest of(int from, int size, Sort sort) {
+        if (from < 0 || size <= 0) {
+            log.info("Переданы некорректные параметры from {} или size {}, проверьте правильность запроса.", from, size);
+            throw new WrongInputDataException(String.format(
+                    "Переданы некорректные параметры from %s или size %s, проверьте правильность запроса.", from, size));
+        }
+        return new FromSizeRequest(from, size, sort);
+    }
+
+    @Override
+    public long getOffset() {
+        return from;
+    }
+
+    @Override
+    public PageRequest next() {
+        return new FromSizeRequest(from + getPageSize(), getPageSize(), getSort());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        FromSizeRequest that = (FromSizeRequest) o;
+        return from == that.from && getPageSize() == that.getPageSize() && getSort().equals(that.getSort());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(from, getPageSize(), getSort());
+    }
+}
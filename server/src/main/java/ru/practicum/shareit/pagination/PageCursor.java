@@ -0,0 +1,65 @@
+package ru.practicum.shareit.pagination;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import ru.practicum.shareit.exception.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Непрозрачный токен keyset-пагинации: хранит ключ сортировки (дата и id) последней выданной записи.
+ */
+@Slf4j
+@Getter
+public class PageCursor {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String SEPARATOR = "|";
+
+    private final LocalDateTime sortKey;
+    private final long id;
+
+    private PageCursor(LocalDateTime sortKey, long id) {
+        this.sortKey = sortKey;
+        this.id = id;
+    }
+
+    public static String encode(LocalDateTime sortKey, long id) {
+        return encode(sortKey + SEPARATOR + id);
+    }
+
+    public static String encode(long id) {
+        return encode(String.valueOf(id));
+    }
+
+    public static PageCursor decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.indexOf(SEPARATOR);
+            if (separator < 0) {
+                return new PageCursor(null, Long.parseLong(value));
+            }
+            return new PageCursor(
+                    LocalDateTime.parse(value.substring(0, separator)),
+                    Long.parseLong(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException exception) {
+            log.info("Передан некорректный курсор пагинации '{}'.", token);
+            throw new ValidationException("Передан некорректный курсор пагинации '" + token + "'.");
+        }
+    }
+
+    public static PageCursor decodeWithSortKey(String token) {
+        PageCursor cursor = decode(token);
+        if (cursor.getSortKey() == null) {
+            log.info("Передан некорректный курсор пагинации '{}'.", token);
+            throw new ValidationException("Передан некорректный курсор пагинации '" + token + "'.");
+        }
+        return cursor;
+    }
+
+    private static String encode(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,32 @@
+package ru.practicum.shareit.pagination;
+
+import org.springframework.data.domain.Slice;
+
+import javax.servlet.http.HttpServletResponse;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Заголовки ответа для постраничных списков: признак следующей страницы, курсор на неё
+ * и общее количество записей (считается только по запросу клиента).
+ */
+public final class PageHeaders {
+    public static final String HAS_NEXT_HEADER = "X-Has-Next";
+    public static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
+    private PageHeaders() {
+    }
+
+    public static <T> List<T> writeSlice(HttpServletResponse response, Slice<T> slice, Function<T, String> cursor) {
+        List<T> content = slice.getContent();
+        response.setHeader(HAS_NEXT_HEADER, String.valueOf(slice.hasNext()));
+        if (slice.hasNext()) {
+            response.setHeader(PageCursor.NEXT_CURSOR_HEADER, cursor.apply(content.get(content.size() - 1)));
+        }
+        return content;
+    }
+
+    public static void writeTotalCount(HttpServletResponse response, long totalCount) {
+        response.setHeader(TOTAL_COUNT_HEADER, String.valueOf(totalCount));
+    }
+}
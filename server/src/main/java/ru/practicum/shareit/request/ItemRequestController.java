@@ -3,11 +3,18 @@ package ru.practicum.shareit.request;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import ru.practicum.shareit.etag.EntityTags;
+import ru.practicum.shareit.pagination.PageCursor;
+import ru.practicum.shareit.pagination.PageHeaders;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestResponseDto;
 
+import javax.servlet.http.HttpServletResponse;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -35,10 +42,14 @@ public class ItemRequestController {
     }
 
     @GetMapping("/{requestId}")
-    @ResponseStatus(HttpStatus.OK)
     public ItemRequestResponseDto getRequest(@RequestHeader(userIdHeader) long userId,
-                                             @PathVariable long requestId) {
+                                             @PathVariable long requestId,
+                                             WebRequest webRequest) {
         log.info("Принят запрос на получение запросов для пользователя {}.", userId);
+        if (EntityTags.isTagRequested(webRequest)
+                && webRequest.checkNotModified(requestService.getRequestTag(userId, requestId))) {
+            return null;
+        }
         return requestService.getRequest(userId, requestId);
     }
 
@@ -46,8 +57,18 @@ public class ItemRequestController {
     @ResponseStatus(HttpStatus.OK)
     public List<ItemRequestResponseDto> searchRequests(@RequestHeader(userIdHeader) long userId,
                                                        @RequestParam(defaultValue = "0", required = false) int from,
-                                                       @RequestParam(defaultValue = "10", required = false) int size) {
+                                                       @RequestParam(defaultValue = "10", required = false) int size,
+                                                       @RequestParam(required = false) String after,
+                                                       @RequestParam(defaultValue = "false", required = false) boolean withTotal,
+                                                       HttpServletResponse response) {
         log.info("Принят запрос от пользователя {} на поиск всех запросов.", userId);
-        return requestService.searchRequests(userId, from, size);
+        Slice<ItemRequestResponseDto> requests = after == null
+                ? requestService.searchRequests(userId, from, size)
+                : requestService.searchRequestsAfter(userId, after, size);
+        if (withTotal) {
+            PageHeaders.writeTotalCount(response, requestService.countRequests(userId));
+        }
+        return PageHeaders.writeSlice(response, requests,
+                last -> PageCursor.encode(LocalDateTime.parse(last.getCreated()), last.getId()));
     }
 }
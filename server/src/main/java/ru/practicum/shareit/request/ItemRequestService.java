@@ -1,5 +1,6 @@
 package ru.practicum.shareit.request;
 
+import org.springframework.data.domain.Slice;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestResponseDto;
 
@@ -11,7 +12,13 @@ public interface ItemRequestService {
 
     ItemRequestResponseDto getRequest(long userId, long requestId);
 
+    String getRequestTag(long userId, long requestId);
+
     List<ItemRequestResponseDto> getRequests(long userId);
 
-    List<ItemRequestResponseDto> searchRequests(long userId, int from, int size);
+    Slice<ItemRequestResponseDto> searchRequests(long userId, int from, int size);
+
+    Slice<ItemRequestResponseDto> searchRequestsAfter(long userId, String after, int size);
+
+    long countRequests(long userId);
 }
@@ -3,15 +3,16 @@ package ru.practicum.shareit.request;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.etag.EntityTags;
 import ru.practicum.shareit.exception.NotFoundException;
-import ru.practicum.shareit.exception.WrongInputDataException;
 import ru.practicum.shareit.item.dto.ItemForResponseDto;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.FromSizeRequest;
+import ru.practicum.shareit.pagination.PageCursor;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestResponseDto;
 import ru.practicum.shareit.request.mapper.ItemRequestMapper;
@@ -23,7 +24,9 @@ import ru.practicum.shareit.user.repository.UserRepository;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -52,9 +55,9 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ItemRequestResponseDto getRequest(long userId, long requestId) {
-        Optional<User> requestor = userRepository.findById(userId);
-        if (requestor.isEmpty()) {
+        if (!userRepository.existsCachedById(userId)) {
             log.info("Невозможно получить request, пользователь с id = " + userId + " не найден.");
             throw new NotFoundException("Невозможно получить request, пользователь с id = " + userId + " не найден.");
         }
@@ -70,48 +73,78 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public String getRequestTag(long userId, long requestId) {
+        if (!userRepository.existsCachedById(userId)) {
+            log.info("Невозможно получить request, пользователь с id = " + userId + " не найден.");
+            throw new NotFoundException("Невозможно получить request, пользователь с id = " + userId + " не найден.");
+        }
+        if (!requestRepository.existsById(requestId)) {
+            log.info("Request id " + requestId + " не найден.");
+            throw new NotFoundException("Request id " + requestId + " не найден.");
+        }
+        return EntityTags.ofRows(itemRepository.findAllVersionsByRequestId(requestId), "request", requestId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<ItemRequestResponseDto> getRequests(long userId) {
-        Optional<User> requestor = userRepository.findById(userId);
-        if (requestor.isEmpty()) {
+        if (!userRepository.existsCachedById(userId)) {
             log.info("Невозможно получить список request, пользователь с id = " + userId + " не найден.");
             throw new NotFoundException("Невозможно получить список request, пользователь с id = " + userId + " не найден.");
         }
-        List<ItemRequest> requests = requestRepository.findByRequesterIdEqualsOrderByCreatedDesc(userId);
-        List<ItemRequestResponseDto> requestResponseList = new ArrayList<>();
-        for (ItemRequest request : requests) {
-            List<ItemForResponseDto> items = itemRepository.findAllByRequestIdEquals(request.getId());
-            requestResponseList.add(ItemRequestMapper.toItemRequestResponseDto(request, items));
-        }
+        List<ItemRequestResponseDto> requestResponseList = fillItems(requestRepository.findAllDtoByRequesterId(userId));
         log.info("Выгружен список request, для пользователя id {} размером {} записей.", userId, requestResponseList.size());
         return requestResponseList;
     }
 
     @Override
-    public List<ItemRequestResponseDto> searchRequests(long userId, int from, int size) {
-        Optional<User> requestor = userRepository.findById(userId);
-        if (requestor.isEmpty()) {
+    @Transactional(readOnly = true)
+    public Slice<ItemRequestResponseDto> searchRequests(long userId, int from, int size) {
+        if (!userRepository.existsCachedById(userId)) {
             log.info("Невозможно получить список request, пользователь с id = " + userId + " не найден.");
             throw new NotFoundException("Невозможно получить список request, пользователь с id = " + userId + " не найден.");
         }
-        Pageable pageParams = PageRequest.of(fromToPage(from, size), size, Sort.by(Sort.Direction.DESC, "created"));
-        Page<ItemRequest> requests = requestRepository.findAllByRequesterIdNotOrderByCreatedDesc(userId, pageParams);
-        List<ItemRequestResponseDto> requestResponseList = new ArrayList<>();
-        for (ItemRequest request : requests) {
-            List<ItemForResponseDto> items = itemRepository.findAllByRequestIdEquals(request.getId());
-            requestResponseList.add(ItemRequestMapper.toItemRequestResponseDto(request, items));
+        Slice<ItemRequestResponseDto> requests = requestRepository.findAllDtoByRequesterIdNot(
+                userId, FromSizeRequest.of(from, size, Sort.unsorted()));
+        fillItems(requests.getContent());
+        log.info("Выгружен список request, доступных для ответа пользователю id {} размером {} записей.",
+                userId, requests.getNumberOfElements());
+        return requests;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<ItemRequestResponseDto> searchRequestsAfter(long userId, String after, int size) {
+        if (!userRepository.existsCachedById(userId)) {
+            log.info("Невозможно получить список request, пользователь с id = " + userId + " не найден.");
+            throw new NotFoundException("Невозможно получить список request, пользователь с id = " + userId + " не найден.");
         }
+        PageCursor cursor = PageCursor.decodeWithSortKey(after);
+        Slice<ItemRequestResponseDto> requests = requestRepository.findAllDtoByRequesterIdNotAfter(
+                userId, cursor.getSortKey(), cursor.getId(), FromSizeRequest.of(0, size, Sort.unsorted()));
+        fillItems(requests.getContent());
         log.info("Выгружен список request, доступных для ответа пользователю id {} размером {} записей.",
-                userId, requestResponseList.size());
-        return requestResponseList;
+                userId, requests.getNumberOfElements());
+        return requests;
     }
 
-    private int fromToPage(int from, int size) {
-        if (from < 0 || size <= 0) {
-            log.info("Переданы некорректные параметры from {} или size {}, проверьте правильность запроса.", from, size);
-            throw new WrongInputDataException(String.format(
-                    "Переданы некорректные параметры from %s или size %s, проверьте правильность запроса.", from, size));
+    @Override
+    @Transactional(readOnly = true)
+    public long countRequests(long userId) {
+        return requestRepository.countByRequesterIdNot(userId);
+    }
+
+    private List<ItemRequestResponseDto> fillItems(List<ItemRequestResponseDto> requests) {
+        if (requests.isEmpty()) {
+            return requests;
+        }
+        List<Long> requestIds = requests.stream().map(ItemRequestResponseDto::getId).collect(Collectors.toList());
+        Map<Long, List<ItemForResponseDto>> itemsByRequest = itemRepository.findAllByRequestIdIn(requestIds).stream()
+                .collect(Collectors.groupingBy(ItemForResponseDto::getRequestId));
+        for (ItemRequestResponseDto request : requests) {
+            request.setItems(itemsByRequest.getOrDefault(request.getId(), new ArrayList<>()));
         }
-        float result = (float) from / size;
-        return (int) Math.ceil(result);
+        return requests;
     }
 }
@@ -7,6 +7,8 @@ import ru.practicum.shareit.item.dto.ItemForResponseDto;
 import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 @Data
@@ -20,4 +22,8 @@ public class ItemRequestResponseDto {
     @NotNull
     private String created;
     private List<ItemForResponseDto> items;
+
+    public ItemRequestResponseDto(long id, String description, long requesterId, LocalDateTime created) {
+        this(id, description, requesterId, created.toString(), new ArrayList<>());
+    }
 }
@@ -3,6 +3,10 @@ package ru.practicum.shareit.request.model;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import ru.practicum.shareit.user.model.User;
 
 import javax.persistence.*;
@@ -11,18 +15,42 @@ import java.time.LocalDateTime;
 @Data
 @Entity
 @Table(name = "requests")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = ItemRequest.CACHE_REGION)
+@BatchSize(size = ItemRequest.BATCH_SIZE)
 @AllArgsConstructor
 @NoArgsConstructor
 public class ItemRequest {
+    public static final String CACHE_REGION = "requests";
+    public static final int BATCH_SIZE = 50;
+
     @Id
     @Column(name = "id")
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "request_seq")
+    @SequenceGenerator(name = "request_seq", sequenceName = "request_seq", allocationSize = 50)
     private long id;
     @Column(name = "description")
     private String description;
-    @ManyToOne
+    @ToString.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "requester_id")
     private User requester;
     @Column(name = "created_datetime")
     private LocalDateTime created;
+
+    /**
+     * id примитивный, у несохранённого запроса он 0, такой запрос равен только себе.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ItemRequest)) return false;
+        ItemRequest request = (ItemRequest) o;
+        return getId() != 0 && getId() == request.getId();
+    }
+
+    @Override
+    public int hashCode() {
+        return ItemRequest.class.hashCode();
+    }
 }
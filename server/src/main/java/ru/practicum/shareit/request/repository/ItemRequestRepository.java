@@ -1,14 +1,33 @@
 package ru.practicum.shareit.request.repository;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.request.dto.ItemRequestResponseDto;
 import ru.practicum.shareit.request.model.ItemRequest;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long> {
-    List<ItemRequest> findByRequesterIdEqualsOrderByCreatedDesc(long userId);
+    String REQUEST_DTO_SELECT = "SELECT new ru.practicum.shareit.request.dto.ItemRequestResponseDto(" +
+            "r.id, r.description, r.requester.id, r.created) FROM ItemRequest r ";
+    String REQUEST_ORDER = "ORDER BY r.created DESC, r.id DESC";
 
-    Page<ItemRequest> findAllByRequesterIdNotOrderByCreatedDesc(long userId, Pageable pageable);
+    @Query(REQUEST_DTO_SELECT + "WHERE r.requester.id = :userId " + REQUEST_ORDER)
+    List<ItemRequestResponseDto> findAllDtoByRequesterId(@Param("userId") long userId);
+
+    @Query(REQUEST_DTO_SELECT + "WHERE r.requester.id <> :userId " + REQUEST_ORDER)
+    Slice<ItemRequestResponseDto> findAllDtoByRequesterIdNot(@Param("userId") long userId, Pageable pageable);
+
+    long countByRequesterIdNot(long userId);
+
+    @Query(REQUEST_DTO_SELECT + "WHERE r.requester.id <> :userId " +
+            "AND (r.created < :afterCreated OR (r.created = :afterCreated AND r.id < :afterId)) " + REQUEST_ORDER)
+    Slice<ItemRequestResponseDto> findAllDtoByRequesterIdNotAfter(@Param("userId") long userId,
+                                                                 @Param("afterCreated") LocalDateTime afterCreated,
+                                                                 @Param("afterId") long afterId,
+                                                                 Pageable pageable);
 }
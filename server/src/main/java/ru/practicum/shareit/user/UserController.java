@@ -5,9 +5,14 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import ru.practicum.shareit.bulk.BulkImportResult;
+import ru.practicum.shareit.etag.EntityTags;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.UserForUpdateDto;
 
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -25,6 +30,16 @@ public class UserController {
         return userService.createUser(user);
     }
 
+    /**
+     * Пакетное создание: тело в формате NDJSON, один пользователь на строку.
+     */
+    @ResponseStatus(HttpStatus.OK)
+    @PostMapping("/bulk")
+    public BulkImportResult importUsers(HttpServletRequest request) throws IOException {
+        log.info("Принят запрос на пакетное создание пользователей.");
+        return userService.importUsers(request.getInputStream());
+    }
+
     @ResponseStatus(HttpStatus.OK)
     @DeleteMapping("/{userId}")
     public void deleteUser(@PathVariable long userId) {
@@ -40,10 +55,12 @@ public class UserController {
         return userService.updateUser(user, userId);
     }
 
-    @ResponseStatus(HttpStatus.OK)
     @GetMapping("/{userId}")
-    public UserDto getUser(@PathVariable long userId) {
+    public UserDto getUser(@PathVariable long userId, WebRequest request) {
         log.info("Принят запрос на получение пользователя с id = {}", userId);
+        if (EntityTags.isTagRequested(request) && request.checkNotModified(userService.getUserTag(userId))) {
+            return null;
+        }
         return userService.getUser(userId);
     }
 
@@ -53,4 +70,14 @@ public class UserController {
         log.info("Принят запрос на получение списка пользователей.");
         return userService.getUsers();
     }
+
+    /**
+     * Несколько пользователей одним запросом: ?ids=3,1,2, ответ в порядке id из запроса.
+     */
+    @ResponseStatus(HttpStatus.OK)
+    @GetMapping(params = "ids")
+    public List<UserDto> getUsersByIds(@RequestParam List<Long> ids) {
+        log.info("Принят запрос на получение пользователей с id {}.", ids);
+        return userService.getUsersByIds(ids);
+    }
 }
@@ -1,8 +1,11 @@
 package ru.practicum.shareit.user;
 
+import ru.practicum.shareit.bulk.BulkImportResult;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.UserForUpdateDto;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 public interface UserService {
@@ -15,5 +18,11 @@ public interface UserService {
 
     UserDto getUser(long id);
 
+    String getUserTag(long id);
+
     List<UserDto> getUsers();
+
+    List<UserDto> getUsersByIds(List<Long> ids);
+
+    BulkImportResult importUsers(InputStream body) throws IOException;
 }
@@ -4,15 +4,28 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.bulk.BulkImportResult;
+import ru.practicum.shareit.bulk.BulkImporter;
+import ru.practicum.shareit.bulk.BulkLine;
+import ru.practicum.shareit.bulk.BulkLineError;
+import ru.practicum.shareit.etag.EntityTags;
 import ru.practicum.shareit.exception.AlreadyExistsException;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.ids.RequestedIds;
+import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.UserForUpdateDto;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
@@ -20,6 +33,10 @@ import java.util.List;
 public class UserServiceImpl implements UserService {
     @Autowired
     private final UserRepository repository;
+    @Autowired
+    private final ItemRepository itemRepository;
+    @Autowired
+    private final BulkImporter bulkImporter;
 
     public UserDto createUser(UserDto user) {
         User newUser = repository.save(UserMapper.mapToNewUser(user));
@@ -36,28 +53,27 @@ public class UserServiceImpl implements UserService {
         log.info("Пользователь с id = {} удалён.", userId);
     }
 
+    @Transactional
     public UserDto updateUser(UserForUpdateDto userUpdate, long userId) {
-        User oldUser = repository.findById(userId).orElseThrow(
+        User user = repository.findById(userId).orElseThrow(
                 () -> new NotFoundException("Невозможно обновить. Пользователь с id = " + userId + " не найден."));
-        UserDto user = UserMapper.mapToUser(userUpdate, userId);
-        if (user.getEmail() != null && !user.getEmail().equals(oldUser.getEmail())) {
-            User sameEmailUser = repository.findByEmailEquals(user.getEmail());
+        if (userUpdate.getEmail() != null && !userUpdate.getEmail().equals(user.getEmail())) {
+            User sameEmailUser = repository.findByEmailEquals(userUpdate.getEmail());
             if (sameEmailUser != null) {
-                log.info("Невозможно создать пользователя {}, email {} занят.", user.getName(), user.getEmail());
-                throw new AlreadyExistsException(
-                        String.format("Невозможно создать пользователя %s, email %s занят.", user.getName(), user.getEmail()));
+                log.info("Невозможно создать пользователя {}, email {} занят.", userUpdate.getName(), userUpdate.getEmail());
+                throw new AlreadyExistsException(String.format(
+                        "Невозможно создать пользователя %s, email %s занят.", userUpdate.getName(), userUpdate.getEmail()));
             }
+            user.setEmail(userUpdate.getEmail());
         }
-        user.setId(oldUser.getId());
-        if (user.getName() == null) {
-            user.setName(oldUser.getName());
+        if (userUpdate.getName() != null && !userUpdate.getName().equals(user.getName())) {
+            user.setName(userUpdate.getName());
+            // Имя автора выводится в комментариях, ETag его предметов должен смениться.
+            itemRepository.findAllForUpdateByCommentAuthorId(userId)
+                    .forEach(item -> item.setCommentsVersion(item.getCommentsVersion() + 1));
         }
-        if (user.getEmail() == null) {
-            user.setEmail(oldUser.getEmail());
-        }
-        User updatedUser = repository.save(UserMapper.mapToNewUser(user));
-        log.info("Пользователь обновлён {}.", updatedUser);
-        return UserMapper.mapToUserDto(updatedUser);
+        log.info("Пользователь обновлён {}.", user);
+        return UserMapper.mapToUserDto(user);
     }
 
     public UserDto getUser(long id) {
@@ -67,9 +83,53 @@ public class UserServiceImpl implements UserService {
         return UserMapper.mapToUserDto(user);
     }
 
+    public String getUserTag(long id) {
+        Long version = repository.findVersionById(id).orElseThrow(
+                () -> new NotFoundException("Невозможно выгрузить. Пользователь с id = " + id + " не найден."));
+        return EntityTags.of("user", id, version);
+    }
+
     public List<UserDto> getUsers() {
         List<User> users = repository.findAll();
         log.info("Выгружен список пользователей размером {} записей.", users.size());
         return UserMapper.mapToUserDto(users);
     }
+
+    public List<UserDto> getUsersByIds(List<Long> ids) {
+        List<Long> requested = RequestedIds.distinct(ids);
+        List<UserDto> users = RequestedIds.inRequestOrder(requested,
+                requested.isEmpty() ? List.of() : repository.findAllDtoByIdIn(requested), UserDto::getId);
+        log.info("Выгружено {} пользователей из {} запрошенных.", users.size(), requested.size());
+        return users;
+    }
+
+    public BulkImportResult importUsers(InputStream body) throws IOException {
+        BulkImportResult result = bulkImporter.importLines(body, UserDto.class, this::saveUsers);
+        log.info("Загружено пользователей: {}, отклонено строк: {}.", result.getImported(), result.getFailed());
+        return result;
+    }
+
+    /**
+     * Занятые email проверяются одним запросом на часть строк, а не ошибкой UNIQUE на каждую.
+     */
+    private List<BulkLineError> saveUsers(List<BulkLine<UserDto>> chunk) {
+        Set<String> takenEmails = repository.findAllEmailsByEmailIn(chunk.stream()
+                .map(line -> line.getValue().getEmail())
+                .collect(Collectors.toSet()));
+        List<BulkLineError> errors = new ArrayList<>();
+        List<User> users = new ArrayList<>(chunk.size());
+        for (BulkLine<UserDto> line : chunk) {
+            UserDto user = line.getValue();
+            if (!takenEmails.add(user.getEmail())) {
+                errors.add(new BulkLineError(line.getLine(), String.format(
+                        "Невозможно создать пользователя %s, email %s занят.", user.getName(), user.getEmail())));
+                continue;
+            }
+            User newUser = UserMapper.mapToNewUser(user);
+            newUser.setId(null);
+            users.add(newUser);
+        }
+        repository.saveAll(users);
+        return errors;
+    }
 }
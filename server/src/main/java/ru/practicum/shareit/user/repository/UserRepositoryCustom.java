@@ -0,0 +1,10 @@
+package ru.practicum.shareit.user.repository;
+
+public interface UserRepositoryCustom {
+
+    /**
+     * Проверка существования пользователя без загрузки сущности: сначала кэш второго уровня,
+     * затем один запрос по первичному ключу.
+     */
+    boolean existsCachedById(long id);
+}
@@ -0,0 +1,23 @@
+package ru.practicum.shareit.user.repository;
+
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public boolean existsCachedById(long id) {
+        if (entityManager.getEntityManagerFactory().getCache().contains(User.class, id)) {
+            return true;
+        }
+        return !entityManager.createQuery("SELECT u.id FROM User u WHERE u.id = :id")
+                .setParameter("id", id)
+                .setMaxResults(1)
+                .getResultList()
+                .isEmpty();
+    }
+}
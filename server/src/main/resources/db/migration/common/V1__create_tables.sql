@@ -1,9 +1,3 @@
-DROP TABLE IF EXISTS users CASCADE;
-DROP TABLE IF EXISTS requests CASCADE;
-DROP TABLE IF EXISTS items CASCADE;
-DROP TABLE IF EXISTS bookings CASCADE;
-DROP TABLE IF EXISTS comments CASCADE;
-
 CREATE TABLE IF NOT EXISTS users (
 id BIGINT GENERATED BY DEFAULT AS IDENTITY,
 name VARCHAR(50) NOT NULL,
@@ -54,4 +48,4 @@ created TIMESTAMP WITHOUT TIME ZONE DEFAULT NOW() NOT NULL,
 CONSTRAINT PK_COMMENTS PRIMARY KEY(id),
 CONSTRAINT FK_COMMENTS_ITEM_ID FOREIGN KEY(item_id) REFERENCES items(id),
 CONSTRAINT FK_AUTHOR_ID FOREIGN KEY(author_id) REFERENCES users(id)
-);
\ No newline at end of file
+);
@@ -0,0 +1,21 @@
+CREATE INDEX IF NOT EXISTS IDX_BOOKINGS_BOOKER_START ON bookings (booker_id, start_datetime DESC);
+
+CREATE INDEX IF NOT EXISTS IDX_BOOKINGS_BOOKER_STATUS_START ON bookings (booker_id, status, start_datetime DESC);
+
+CREATE INDEX IF NOT EXISTS IDX_BOOKINGS_BOOKER_END ON bookings (booker_id, end_datetime DESC);
+
+CREATE INDEX IF NOT EXISTS IDX_BOOKINGS_BOOKER_ITEM_END ON bookings (booker_id, item_id, end_datetime);
+
+CREATE INDEX IF NOT EXISTS IDX_BOOKINGS_ITEM_START ON bookings (item_id, start_datetime DESC);
+
+CREATE INDEX IF NOT EXISTS IDX_BOOKINGS_ITEM_STATUS_START ON bookings (item_id, status, start_datetime);
+
+CREATE INDEX IF NOT EXISTS IDX_ITEMS_OWNER_ID ON items (owner_id, id);
+
+CREATE INDEX IF NOT EXISTS IDX_ITEMS_REQUEST ON items (request_id);
+
+CREATE INDEX IF NOT EXISTS IDX_REQUESTS_REQUESTER_CREATED ON requests (requester_id, created_datetime DESC);
+
+CREATE INDEX IF NOT EXISTS IDX_REQUESTS_CREATED ON requests (created_datetime DESC);
+
+CREATE INDEX IF NOT EXISTS IDX_COMMENTS_ITEM_CREATED ON comments (item_id, created DESC);
@@ -0,0 +1,11 @@
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS owner_id BIGINT;
+
+UPDATE bookings SET owner_id = (SELECT i.owner_id FROM items AS i WHERE i.id = bookings.item_id) WHERE owner_id IS NULL;
+
+ALTER TABLE bookings ALTER COLUMN owner_id SET NOT NULL;
+
+ALTER TABLE bookings ADD CONSTRAINT FK_BOOKING_OWNER_ID FOREIGN KEY(owner_id) REFERENCES users(id);
+
+CREATE INDEX IF NOT EXISTS IDX_BOOKINGS_OWNER_START ON bookings (owner_id, start_datetime DESC);
+
+CREATE INDEX IF NOT EXISTS IDX_BOOKINGS_OWNER_STATUS ON bookings (owner_id, status);
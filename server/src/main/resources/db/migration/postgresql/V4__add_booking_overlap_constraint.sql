@@ -0,0 +1,27 @@
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+-- Предусловие: у одного item нет пересекающихся по времени бронирований в статусах WAITING/APPROVED.
+-- Иначе ограничение не создаётся. Данные миграция не правит: решение, какое из бронирований отклонить,
+-- принимается вручную, пары для разбора выводит запрос ниже. UPDATE старых строк к тому же упрётся
+-- в CHECK на start_datetime > CURRENT_TIMESTAMP.
+DO $$
+DECLARE
+    overlaps BIGINT;
+BEGIN
+    SELECT COUNT(*) INTO overlaps
+    FROM bookings AS b
+    JOIN bookings AS o ON o.item_id = b.item_id AND o.id > b.id
+    WHERE b.status IN ('WAITING', 'APPROVED') AND o.status IN ('WAITING', 'APPROVED')
+    AND tsrange(b.start_datetime, b.end_datetime) && tsrange(o.start_datetime, o.end_datetime);
+    IF overlaps > 0 THEN
+        RAISE EXCEPTION 'Найдено % пар пересекающихся активных бронирований. Перед миграцией отклоните лишние: '
+            'SELECT b.id, o.id FROM bookings b JOIN bookings o ON o.item_id = b.item_id AND o.id > b.id '
+            'WHERE b.status IN (''WAITING'', ''APPROVED'') AND o.status IN (''WAITING'', ''APPROVED'') '
+            'AND tsrange(b.start_datetime, b.end_datetime) && tsrange(o.start_datetime, o.end_datetime)', overlaps;
+    END IF;
+END
+$$;
+
+ALTER TABLE bookings ADD CONSTRAINT EXCL_BOOKINGS_ITEM_PERIOD
+EXCLUDE USING GIST (item_id WITH =, tsrange(start_datetime, end_datetime) WITH &&)
+WHERE (status IN ('WAITING', 'APPROVED'));
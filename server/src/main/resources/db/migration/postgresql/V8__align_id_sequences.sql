@@ -0,0 +1,11 @@
+SELECT setval('user_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM users), false);
+SELECT setval('request_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM requests), false);
+SELECT setval('item_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM items), false);
+SELECT setval('booking_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM bookings), false);
+SELECT setval('comment_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM comments), false);
+
+ALTER TABLE users ALTER COLUMN id DROP IDENTITY IF EXISTS, ALTER COLUMN id SET DEFAULT nextval('user_seq');
+ALTER TABLE requests ALTER COLUMN id DROP IDENTITY IF EXISTS, ALTER COLUMN id SET DEFAULT nextval('request_seq');
+ALTER TABLE items ALTER COLUMN id DROP IDENTITY IF EXISTS, ALTER COLUMN id SET DEFAULT nextval('item_seq');
+ALTER TABLE bookings ALTER COLUMN id DROP IDENTITY IF EXISTS, ALTER COLUMN id SET DEFAULT nextval('booking_seq');
+ALTER TABLE comments ALTER COLUMN id DROP IDENTITY IF EXISTS, ALTER COLUMN id SET DEFAULT nextval('comment_seq');
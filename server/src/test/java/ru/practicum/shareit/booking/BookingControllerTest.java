@@ -7,12 +7,18 @@ import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.booking.export.BookingExportWriter;
 import ru.practicum.shareit.item.ItemService;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.pagination.PageCursor;
+import ru.practicum.shareit.pagination.PageHeaders;
 import ru.practicum.shareit.user.UserService;
 import ru.practicum.shareit.user.dto.UserDto;
 
@@ -21,9 +27,13 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = BookingController.class)
@@ -130,7 +140,7 @@ public class BookingControllerTest {
     void getUserBookingsTest_whenInvoked_returnBookingList() {
         List<BookingDto> bookings = List.of(testBookingDto);
         when(bookingService.getAllUserBookings(testUser1.getId(), "ALL", 0, 10))
-                .thenReturn(bookings);
+                .thenReturn(new SliceImpl<>(bookings));
         String result = mvc.perform(get("/bookings")
                         .header("X-Sharer-User-Id", 1)
                         .characterEncoding(StandardCharsets.UTF_8)
@@ -149,7 +159,7 @@ public class BookingControllerTest {
     void getOwnerBookingsTest_whenInvoked_returnBookingList() {
         List<BookingDto> bookings = List.of(testBookingDto);
         when(bookingService.getAllOwnerBookings(testUser2.getId(), "ALL", 0, 10))
-                .thenReturn(bookings);
+                .thenReturn(new SliceImpl<>(bookings));
         String result = mvc.perform(get("/bookings/owner")
                         .header("X-Sharer-User-Id", 2)
                         .characterEncoding(StandardCharsets.UTF_8)
@@ -162,4 +172,158 @@ public class BookingControllerTest {
 
         assertEquals(mapper.writeValueAsString(bookings), result);
     }
+
+    @SneakyThrows
+    @Test
+    void getOwnerBookingsTest_whenAfterGivenAndPageFull_useKeysetAndReturnNextCursor() {
+        List<BookingDto> bookings = List.of(testBookingDto);
+        String after = PageCursor.encode(LocalDateTime.now().plusDays(2), 9L);
+        when(bookingService.getAllOwnerBookingsAfter(testUser2.getId(), "ALL", after, 1))
+                .thenReturn(new SliceImpl<>(bookings, PageRequest.of(0, 1), true));
+        mvc.perform(get("/bookings/owner")
+                        .param("size", "1")
+                        .param("after", after)
+                        .header("X-Sharer-User-Id", 2)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(PageHeaders.HAS_NEXT_HEADER, "true"))
+                .andExpect(header().string(PageCursor.NEXT_CURSOR_HEADER,
+                        PageCursor.encode(LocalDateTime.parse(testBookingDto.getStart()), testBookingDto.getId())));
+
+        verify(bookingService, never()).getAllOwnerBookings(anyLong(), any(), anyInt(), anyInt());
+    }
+
+    @SneakyThrows
+    @Test
+    void getOwnerBookingsTest_whenLastPage_returnNoCursorAndSkipCount() {
+        when(bookingService.getAllOwnerBookings(testUser2.getId(), "ALL", 0, 1))
+                .thenReturn(new SliceImpl<>(List.of(testBookingDto), PageRequest.of(0, 1), false));
+        mvc.perform(get("/bookings/owner")
+                        .param("size", "1")
+                        .header("X-Sharer-User-Id", 2)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(PageHeaders.HAS_NEXT_HEADER, "false"))
+                .andExpect(header().doesNotExist(PageCursor.NEXT_CURSOR_HEADER))
+                .andExpect(header().doesNotExist(PageHeaders.TOTAL_COUNT_HEADER));
+
+        verify(bookingService, never()).countOwnerBookings(anyLong(), any());
+    }
+
+    @SneakyThrows
+    @Test
+    void getUserBookingsTest_whenWithTotal_returnTotalCountHeader() {
+        when(bookingService.getAllUserBookings(testUser1.getId(), "WAITING", 0, 10))
+                .thenReturn(new SliceImpl<>(List.of(testBookingDto)));
+        when(bookingService.countUserBookings(testUser1.getId(), "WAITING"))
+                .thenReturn(42L);
+        mvc.perform(get("/bookings")
+                        .param("state", "WAITING")
+                        .param("withTotal", "true")
+                        .header("X-Sharer-User-Id", 1)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(PageHeaders.TOTAL_COUNT_HEADER, "42"));
+    }
+
+    @SneakyThrows
+    @Test
+    void getBookingTest_whenTagMatches_returnNotModifiedWithoutLoading() {
+        when(bookingService.getBookingTag(testBookingDto.getId(), testUser1.getId()))
+                .thenReturn("tag1");
+        mvc.perform(get("/bookings/{bookingId}", testBookingDto.getId())
+                        .header("X-Sharer-User-Id", 1)
+                        .header("If-None-Match", "\"tag1\"")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"tag1\""));
+
+        verify(bookingService, never()).getBooking(anyLong(), anyLong());
+    }
+
+    @SneakyThrows
+    @Test
+    void getOwnerBookingsTest_whenTagChanged_returnPageWithNewTag() {
+        when(bookingService.getOwnerBookingsTag(testUser2.getId(), "ALL", 0, 10, null))
+                .thenReturn("tag2");
+        when(bookingService.getAllOwnerBookings(testUser2.getId(), "ALL", 0, 10))
+                .thenReturn(new SliceImpl<>(List.of(testBookingDto)));
+        mvc.perform(get("/bookings/owner")
+                        .header("X-Sharer-User-Id", 2)
+                        .header("If-None-Match", "\"tag1\"")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"tag2\""));
+    }
+
+    @SneakyThrows
+    @Test
+    void getUserBookingsTest_whenTagMatches_returnNotModified() {
+        when(bookingService.getUserBookingsTag(testUser1.getId(), "ALL", 0, 10, null))
+                .thenReturn("tag1");
+        mvc.perform(get("/bookings")
+                        .header("X-Sharer-User-Id", 1)
+                        .header("If-None-Match", "\"tag1\"")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified());
+
+        verify(bookingService, never()).getAllUserBookings(anyLong(), any(), anyInt(), anyInt());
+    }
+
+    @SneakyThrows
+    @Test
+    void exportOwnerBookingsTest_whenNdjson_returnOneBookingPerLine() {
+        when(bookingService.exportOwnerBookings(eq(2L), eq("ALL"), any(BookingExportWriter.class)))
+                .thenAnswer(invocation -> {
+                    BookingExportWriter writer = invocation.getArgument(2);
+                    writer.write(testBookingDto);
+                    writer.write(testBookingDto);
+                    return writer.finish();
+                });
+
+        MvcResult result = mvc.perform(get("/bookings/owner/export")
+                        .header("X-Sharer-User-Id", 2))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/x-ndjson;charset=UTF-8"))
+                .andReturn();
+
+        String[] lines = result.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(testBookingDto, mapper.readValue(lines[0], BookingDto.class));
+    }
+
+    @SneakyThrows
+    @Test
+    void exportOwnerBookingsTest_whenCsv_returnHeaderAndEscapedRows() {
+        BookingDto booking = new BookingDto(7, "2030-01-01T10:00", "2030-01-02T10:00",
+                new ItemDto(3, "Дрель, \"ударная\"", "дрель", true, null, 2), testUser1, BookingStatus.APPROVED);
+        when(bookingService.exportOwnerBookings(eq(2L), eq("PAST"), any(BookingExportWriter.class)))
+                .thenAnswer(invocation -> {
+                    BookingExportWriter writer = invocation.getArgument(2);
+                    writer.write(booking);
+                    return writer.finish();
+                });
+
+        String result = mvc.perform(get("/bookings/owner/export")
+                        .param("state", "PAST")
+                        .param("format", "csv")
+                        .header("X-Sharer-User-Id", 2))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/csv;charset=UTF-8"))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        assertEquals("id,start,end,status,item_id,item_name,booker_id,booker_name,booker_email\n"
+                + "7,2030-01-01T10:00,2030-01-02T10:00,APPROVED,3,\"Дрель, \"\"ударная\"\"\",1,user1,user1@ya.ru\n", result);
+    }
+
+    @SneakyThrows
+    @Test
+    void exportOwnerBookingsTest_whenUnknownFormat_notCallService() {
+        mvc.perform(get("/bookings/owner/export")
+                        .param("format", "xml")
+                        .header("X-Sharer-User-Id", 2))
+                .andExpect(status().isInternalServerError());
+
+        verify(bookingService, never()).exportOwnerBookings(anyLong(), any(), any());
+    }
 }
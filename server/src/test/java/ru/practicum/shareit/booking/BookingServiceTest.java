@@ -1,35 +1,51 @@
 package ru.practicum.shareit.booking;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
+import ru.practicum.shareit.booking.concurrency.BookingConcurrencyGuard;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingShortDto;
 import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.booking.export.BookingExportFormat;
+import ru.practicum.shareit.booking.export.BookingExportWriter;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.etag.RowVersion;
 import ru.practicum.shareit.exception.NoAccessException;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.exception.WrongInputDataException;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.FromSizeRequest;
+import ru.practicum.shareit.pagination.PageCursor;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
@@ -43,8 +59,12 @@ public class BookingServiceTest {
     private UserRepository userRepository;
     @Mock
     private ItemRepository itemRepository;
-    Pageable pageParams = PageRequest.of(
-            fromToPage(0, 10), 10, Sort.by(Sort.Direction.DESC, "start"));
+    @Mock
+    private BookingConcurrencyGuard concurrencyGuard;
+    private static final LocalDateTime MIN_DATE_TIME = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime MAX_DATE_TIME = LocalDateTime.of(9999, 12, 31, 23, 59);
+    private static final List<BookingStatus> ALL_STATUSES = List.of(BookingStatus.values());
+    Pageable pageParams = FromSizeRequest.of(0, 10, Sort.unsorted());
     private final ItemDto testItemDto1 = new ItemDto(1, "predmet", "prosto predmet", true, null, 2);
     private final UserDto testUserDto1 = new UserDto(1L, "user1", "user1@ya.ru");
     User testUser1 = new User(1L, "user1", "user1@ya.ru");
@@ -71,6 +91,12 @@ public class BookingServiceTest {
             dateTimeEnd,
             1);
 
+    @BeforeEach
+    void setUp() {
+        lenient().when(concurrencyGuard.execute(anyLong(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+    }
+
     @Test
     void createBookingTest_whenInvoke_returnNewBooking() {
         long userId = 1;
@@ -82,16 +108,44 @@ public class BookingServiceTest {
                 testItemDto1,
                 testUserDto1,
                 BookingStatus.WAITING);
-        expectedTestBookingDto.getItem().setAvailable(false);
         Booking booking = BookingMapper.toNewBooking(testShortBooking1,testItem1, testUser1);
         when(userRepository.findById(userId)).thenReturn(Optional.of(testUser1));
-        when(itemRepository.findById(itemId)).thenReturn(Optional.of(testItem1));
-        when(bookingRepository.save(booking))
+        when(itemRepository.findForUpdateById(itemId)).thenReturn(Optional.of(testItem1));
+        when(bookingRepository.saveAndFlush(booking))
                 .thenReturn(booking);
 
         BookingDto result = bookingService.createBooking(testShortBooking1, userId);
 
         assertEquals(expectedTestBookingDto, result);
+        assertEquals(1, testItem1.getBookingsVersion());
+    }
+
+    @Test
+    void createBookingTest_whenPeriodOverlapsActiveBooking_thenNoAccessException() {
+        long userId = 1;
+        long itemId = 1;
+        when(userRepository.findById(userId)).thenReturn(Optional.of(testUser1));
+        when(itemRepository.findForUpdateById(itemId)).thenReturn(Optional.of(testItem1));
+        when(bookingRepository.existsByItemIdAndStatusInAndStartBeforeAndEndAfter(
+                itemId, List.of(BookingStatus.WAITING, BookingStatus.APPROVED),
+                LocalDateTime.parse(dateTimeEnd), LocalDateTime.parse(dateTimeStart)))
+                .thenReturn(true);
+
+        assertThrows(NoAccessException.class, () -> bookingService.createBooking(testShortBooking1, userId));
+        verify(bookingRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void createBookingTest_whenOverlapConstraintViolated_thenNoAccessException() {
+        long userId = 1;
+        long itemId = 1;
+        when(userRepository.findById(userId)).thenReturn(Optional.of(testUser1));
+        when(itemRepository.findForUpdateById(itemId)).thenReturn(Optional.of(testItem1));
+        when(bookingRepository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("insert failed",
+                new SQLException("conflicting key value violates exclusion constraint \"excl_bookings_item_period\"")));
+
+        assertThrows(NoAccessException.class, () -> bookingService.createBooking(testShortBooking1, userId));
+        assertEquals(true, testItem1.getAvailable());
     }
 
     @Test
@@ -113,10 +167,24 @@ public class BookingServiceTest {
         long userId = 2;
         long itemId = 1;
         when(userRepository.findById(userId)).thenReturn(Optional.of(testUser2));
-        when(itemRepository.findById(itemId)).thenReturn(Optional.of(testItem1));
+        when(itemRepository.findForUpdateById(itemId)).thenReturn(Optional.of(testItem1));
         assertThrows(NotFoundException.class, () -> bookingService.createBooking(testShortBooking1, userId));
     }
 
+    @Test
+    void createBookingTest_whenStartInPast_thenValidationException() {
+        BookingShortDto pastBooking = new BookingShortDto(dt.minusDays(1).toString(), dateTimeEnd, 1);
+        assertThrows(ValidationException.class, () -> bookingService.createBooking(pastBooking, 1));
+        verifyNoInteractions(itemRepository, bookingRepository);
+    }
+
+    @Test
+    void createBookingTest_whenEndBeforeStart_thenValidationException() {
+        BookingShortDto invertedBooking = new BookingShortDto(dateTimeEnd, dateTimeStart, 1);
+        assertThrows(ValidationException.class, () -> bookingService.createBooking(invertedBooking, 1));
+        verifyNoInteractions(itemRepository, bookingRepository);
+    }
+
     @Test
     void createBookingTest_whenItemNotAvailable_thenNoAccessException() {
         long userId = 1;
@@ -124,7 +192,7 @@ public class BookingServiceTest {
         Item testItemNotAvailable = testItem1;
         testItemNotAvailable.setAvailable(false);
         when(userRepository.findById(userId)).thenReturn(Optional.of(testUser1));
-        when(itemRepository.findById(itemId)).thenReturn(Optional.of(testItemNotAvailable));
+        when(itemRepository.findForUpdateById(itemId)).thenReturn(Optional.of(testItemNotAvailable));
         assertThrows(NoAccessException.class, () -> bookingService.createBooking(testShortBooking1, userId));
     }
 
@@ -141,10 +209,12 @@ public class BookingServiceTest {
         testBooking1Approved.setStatus(BookingStatus.APPROVED);
         when(bookingRepository.findById(1L)).thenReturn(Optional.of(testBooking1));
         when(bookingRepository.save(testBooking1Approved)).thenReturn(testBooking1Approved);
+        when(itemRepository.findForUpdateById(testItem1.getId())).thenReturn(Optional.of(testItem1));
 
         BookingDto result = bookingService.approveOrDenyBooking(1, 2, true);
 
         assertEquals(BookingMapper.toBookingDto(testBooking1Approved), result);
+        assertEquals(1, testItem1.getBookingsVersion());
     }
 
     @Test
@@ -220,9 +290,11 @@ public class BookingServiceTest {
     @Test
     void getAllOwnerBookingsTest_whenOk_returnBookingDtoList() {
         int userId = 1;
-        when(bookingRepository.findAllByItemOwnerIdEquals(userId, pageParams)).thenReturn(new PageImpl<>(List.of(testBooking1)));
+        when(bookingRepository.findAllDtoByItemOwnerId(
+                userId, ALL_STATUSES, MIN_DATE_TIME, MAX_DATE_TIME, MIN_DATE_TIME, MAX_DATE_TIME, pageParams))
+                .thenReturn(new SliceImpl<>(List.of(BookingMapper.toBookingDto(testBooking1))));
 
-        List<BookingDto> result = bookingService.getAllOwnerBookings(userId, "ALL", 0, 10);
+        List<BookingDto> result = bookingService.getAllOwnerBookings(userId, "ALL", 0, 10).getContent();
 
         assertEquals(List.of(BookingMapper.toBookingDto(testBooking1)), result);
     }
@@ -240,10 +312,10 @@ public class BookingServiceTest {
         LocalDateTime currentTime = LocalDateTime.of(
                 dt.getYear(), dt.getMonth(), dt.getDayOfMonth(), dt.getHour(), dt.getMinute(), dt.getSecond());
         when(bookingRepository
-                .findAllByItemOwnerIdEqualsAndStartBeforeAndEndAfter(userId, currentTime, currentTime, pageParams))
-                .thenReturn(new PageImpl<>(List.of(testBooking2)));
+                .findAllDtoByItemOwnerId(userId, ALL_STATUSES, MIN_DATE_TIME, currentTime, currentTime, MAX_DATE_TIME, pageParams))
+                .thenReturn(new SliceImpl<>(List.of(BookingMapper.toBookingDto(testBooking2))));
 
-        List<BookingDto> result = bookingService.getAllOwnerBookings(userId, "CURRENT", 0, 10);
+        List<BookingDto> result = bookingService.getAllOwnerBookings(userId, "CURRENT", 0, 10).getContent();
 
         assertEquals(List.of(BookingMapper.toBookingDto(testBooking2)), result);
     }
@@ -262,10 +334,10 @@ public class BookingServiceTest {
                 dt.getYear(), dt.getMonth(), dt.getDayOfMonth(), dt.getHour(), dt.getMinute(), dt.getSecond());
 
         when(bookingRepository
-                .findAllByItemOwnerIdEqualsAndEndBefore(userId, currentTime, pageParams))
-                .thenReturn(new PageImpl<>(List.of(testBooking2)));
+                .findAllDtoByItemOwnerId(userId, ALL_STATUSES, MIN_DATE_TIME, MAX_DATE_TIME, MIN_DATE_TIME, currentTime, pageParams))
+                .thenReturn(new SliceImpl<>(List.of(BookingMapper.toBookingDto(testBooking2))));
 
-        List<BookingDto> result = bookingService.getAllOwnerBookings(userId, "PAST", 0, 10);
+        List<BookingDto> result = bookingService.getAllOwnerBookings(userId, "PAST", 0, 10).getContent();
 
         assertEquals(List.of(BookingMapper.toBookingDto(testBooking2)), result);
     }
@@ -283,10 +355,10 @@ public class BookingServiceTest {
         LocalDateTime currentTime = LocalDateTime.of(
                 dt.getYear(), dt.getMonth(), dt.getDayOfMonth(), dt.getHour(), dt.getMinute(), dt.getSecond());
         when(bookingRepository
-                .findAllByItemOwnerIdEqualsAndStartAfter(userId, currentTime, pageParams))
-                .thenReturn(new PageImpl<>(List.of(testBooking2)));
+                .findAllDtoByItemOwnerId(userId, ALL_STATUSES, currentTime, MAX_DATE_TIME, MIN_DATE_TIME, MAX_DATE_TIME, pageParams))
+                .thenReturn(new SliceImpl<>(List.of(BookingMapper.toBookingDto(testBooking2))));
 
-        List<BookingDto> result = bookingService.getAllOwnerBookings(userId, "FUTURE", 0, 10);
+        List<BookingDto> result = bookingService.getAllOwnerBookings(userId, "FUTURE", 0, 10).getContent();
 
         assertEquals(List.of(BookingMapper.toBookingDto(testBooking2)), result);
     }
@@ -302,10 +374,11 @@ public class BookingServiceTest {
                 testUser2,
                 BookingStatus.WAITING);
         when(bookingRepository
-                .findAllByItemOwnerIdEqualsAndStatusEquals(userId, BookingStatus.WAITING, pageParams))
-                .thenReturn(new PageImpl<>(List.of(testBooking2)));
+                .findAllDtoByItemOwnerId(userId, List.of(BookingStatus.WAITING),
+                        MIN_DATE_TIME, MAX_DATE_TIME, MIN_DATE_TIME, MAX_DATE_TIME, pageParams))
+                .thenReturn(new SliceImpl<>(List.of(BookingMapper.toBookingDto(testBooking2))));
 
-        List<BookingDto> result = bookingService.getAllOwnerBookings(userId, "WAITING", 0, 10);
+        List<BookingDto> result = bookingService.getAllOwnerBookings(userId, "WAITING", 0, 10).getContent();
 
         assertEquals(List.of(BookingMapper.toBookingDto(testBooking2)), result);
     }
@@ -321,10 +394,11 @@ public class BookingServiceTest {
                 testUser2,
                 BookingStatus.REJECTED);
         when(bookingRepository
-                .findAllByItemOwnerIdEqualsAndStatusEquals(userId, BookingStatus.REJECTED, pageParams))
-                .thenReturn(new PageImpl<>(List.of(testBooking2)));
+                .findAllDtoByItemOwnerId(userId, List.of(BookingStatus.REJECTED),
+                        MIN_DATE_TIME, MAX_DATE_TIME, MIN_DATE_TIME, MAX_DATE_TIME, pageParams))
+                .thenReturn(new SliceImpl<>(List.of(BookingMapper.toBookingDto(testBooking2))));
 
-        List<BookingDto> result = bookingService.getAllOwnerBookings(userId, "REJECTED", 0, 10);
+        List<BookingDto> result = bookingService.getAllOwnerBookings(userId, "REJECTED", 0, 10).getContent();
 
         assertEquals(List.of(BookingMapper.toBookingDto(testBooking2)), result);
     }
@@ -338,8 +412,9 @@ public class BookingServiceTest {
     void getAllOwnerBookingsTest_whenBookingsNotFound_NotFoundException() {
         int userId = 3;
         when(bookingRepository
-                .findAllByItemOwnerIdEqualsAndStatusEquals(userId, BookingStatus.REJECTED, pageParams))
-                .thenReturn(new PageImpl<>(List.of()));
+                .findAllDtoByItemOwnerId(userId, List.of(BookingStatus.REJECTED),
+                        MIN_DATE_TIME, MAX_DATE_TIME, MIN_DATE_TIME, MAX_DATE_TIME, pageParams))
+                .thenReturn(new SliceImpl<>(List.of()));
 
         assertThrows(NotFoundException.class, () -> bookingService.getAllOwnerBookings(3, "REJECTED", 0, 10));
     }
@@ -357,9 +432,11 @@ public class BookingServiceTest {
     @Test
     void getAllUserBookingsTest_whenOk_returnBookingDtoList() {
         int userId = 1;
-        when(bookingRepository.findAllByBookerIdEquals(userId, pageParams)).thenReturn(new PageImpl<>(List.of(testBooking1)));
+        when(bookingRepository.findAllDtoByBookerId(
+                userId, ALL_STATUSES, MIN_DATE_TIME, MAX_DATE_TIME, MIN_DATE_TIME, MAX_DATE_TIME, pageParams))
+                .thenReturn(new SliceImpl<>(List.of(BookingMapper.toBookingDto(testBooking1))));
 
-        List<BookingDto> result = bookingService.getAllUserBookings(1, "ALL", 0, 10);
+        List<BookingDto> result = bookingService.getAllUserBookings(1, "ALL", 0, 10).getContent();
 
         assertEquals(List.of(BookingMapper.toBookingDto(testBooking1)), result);
     }
@@ -377,10 +454,10 @@ public class BookingServiceTest {
         LocalDateTime currentTime = LocalDateTime.of(
                 dt.getYear(), dt.getMonth(), dt.getDayOfMonth(), dt.getHour(), dt.getMinute(), dt.getSecond());
         when(bookingRepository
-                .findAllByBookerIdEqualsAndStartBeforeAndEndAfter(userId, currentTime, currentTime, pageParams))
-                .thenReturn(new PageImpl<>(List.of(testBooking2)));
+                .findAllDtoByBookerId(userId, ALL_STATUSES, MIN_DATE_TIME, currentTime, currentTime, MAX_DATE_TIME, pageParams))
+                .thenReturn(new SliceImpl<>(List.of(BookingMapper.toBookingDto(testBooking2))));
 
-        List<BookingDto> result = bookingService.getAllUserBookings(1, "CURRENT", 0, 10);
+        List<BookingDto> result = bookingService.getAllUserBookings(1, "CURRENT", 0, 10).getContent();
 
         assertEquals(List.of(BookingMapper.toBookingDto(testBooking2)), result);
     }
@@ -399,10 +476,10 @@ public class BookingServiceTest {
                 dt.getYear(), dt.getMonth(), dt.getDayOfMonth(), dt.getHour(), dt.getMinute(), dt.getSecond());
 
         when(bookingRepository
-                .findAllByBookerIdEqualsAndEndBefore(userId, currentTime, pageParams))
-                .thenReturn(new PageImpl<>(List.of(testBooking2)));
+                .findAllDtoByBookerId(userId, ALL_STATUSES, MIN_DATE_TIME, MAX_DATE_TIME, MIN_DATE_TIME, currentTime, pageParams))
+                .thenReturn(new SliceImpl<>(List.of(BookingMapper.toBookingDto(testBooking2))));
 
-        List<BookingDto> result = bookingService.getAllUserBookings(1, "PAST", 0, 10);
+        List<BookingDto> result = bookingService.getAllUserBookings(1, "PAST", 0, 10).getContent();
 
         assertEquals(List.of(BookingMapper.toBookingDto(testBooking2)), result);
     }
@@ -420,10 +497,10 @@ public class BookingServiceTest {
         LocalDateTime currentTime = LocalDateTime.of(
                 dt.getYear(), dt.getMonth(), dt.getDayOfMonth(), dt.getHour(), dt.getMinute(), dt.getSecond());
         when(bookingRepository
-                .findAllByBookerIdEqualsAndStartAfter(userId, currentTime, pageParams))
-                .thenReturn(new PageImpl<>(List.of(testBooking2)));
+                .findAllDtoByBookerId(userId, ALL_STATUSES, currentTime, MAX_DATE_TIME, MIN_DATE_TIME, MAX_DATE_TIME, pageParams))
+                .thenReturn(new SliceImpl<>(List.of(BookingMapper.toBookingDto(testBooking2))));
 
-        List<BookingDto> result = bookingService.getAllUserBookings(1, "FUTURE", 0, 10);
+        List<BookingDto> result = bookingService.getAllUserBookings(1, "FUTURE", 0, 10).getContent();
 
         assertEquals(List.of(BookingMapper.toBookingDto(testBooking2)), result);
     }
@@ -439,10 +516,11 @@ public class BookingServiceTest {
                 testUser2,
                 BookingStatus.WAITING);
         when(bookingRepository
-                .findAllByBookerIdEqualsAndStatusEquals(userId, BookingStatus.WAITING, pageParams))
-                .thenReturn(new PageImpl<>(List.of(testBooking2)));
+                .findAllDtoByBookerId(userId, List.of(BookingStatus.WAITING),
+                        MIN_DATE_TIME, MAX_DATE_TIME, MIN_DATE_TIME, MAX_DATE_TIME, pageParams))
+                .thenReturn(new SliceImpl<>(List.of(BookingMapper.toBookingDto(testBooking2))));
 
-        List<BookingDto> result = bookingService.getAllUserBookings(1, "WAITING", 0, 10);
+        List<BookingDto> result = bookingService.getAllUserBookings(1, "WAITING", 0, 10).getContent();
 
         assertEquals(List.of(BookingMapper.toBookingDto(testBooking2)), result);
     }
@@ -458,10 +536,11 @@ public class BookingServiceTest {
                 testUser2,
                 BookingStatus.REJECTED);
         when(bookingRepository
-                .findAllByBookerIdEqualsAndStatusEquals(userId, BookingStatus.REJECTED, pageParams))
-                .thenReturn(new PageImpl<>(List.of(testBooking2)));
+                .findAllDtoByBookerId(userId, List.of(BookingStatus.REJECTED),
+                        MIN_DATE_TIME, MAX_DATE_TIME, MIN_DATE_TIME, MAX_DATE_TIME, pageParams))
+                .thenReturn(new SliceImpl<>(List.of(BookingMapper.toBookingDto(testBooking2))));
 
-        List<BookingDto> result = bookingService.getAllUserBookings(1, "REJECTED", 0, 10);
+        List<BookingDto> result = bookingService.getAllUserBookings(1, "REJECTED", 0, 10).getContent();
 
         assertEquals(List.of(BookingMapper.toBookingDto(testBooking2)), result);
     }
@@ -475,14 +554,147 @@ public class BookingServiceTest {
     void getAllUserBookingsTest_whenBookingsNotFound_NotFoundException() {
         int userId = 1;
         when(bookingRepository
-                .findAllByBookerIdEqualsAndStatusEquals(userId, BookingStatus.REJECTED, pageParams))
-                .thenReturn(new PageImpl<>(List.of()));
+                .findAllDtoByBookerId(userId, List.of(BookingStatus.REJECTED),
+                        MIN_DATE_TIME, MAX_DATE_TIME, MIN_DATE_TIME, MAX_DATE_TIME, pageParams))
+                .thenReturn(new SliceImpl<>(List.of()));
 
         assertThrows(NotFoundException.class, () -> bookingService.getAllUserBookings(1, "REJECTED", 0, 10));
     }
 
-    private int fromToPage(int from, int size) {
-        float result = (float) from / size;
-        return (int) Math.ceil(result);
+    @Test
+    void getAllUserBookingsAfterTest_whenSearchOfCurrent_returnBookingDtoListAfterCursor() {
+        int userId = 1;
+        LocalDateTime currentTime = LocalDateTime.of(
+                dt.getYear(), dt.getMonth(), dt.getDayOfMonth(), dt.getHour(), dt.getMinute(), dt.getSecond());
+        LocalDateTime cursorStart = currentTime.minusDays(1);
+        String after = PageCursor.encode(cursorStart, 5L);
+        when(bookingRepository.findAllDtoByBookerIdAfter(
+                userId,
+                List.of(BookingStatus.values()),
+                LocalDateTime.of(1970, 1, 1, 0, 0),
+                currentTime,
+                currentTime,
+                LocalDateTime.of(9999, 12, 31, 23, 59),
+                cursorStart,
+                5L,
+                FromSizeRequest.of(0, 10, Sort.unsorted())))
+                .thenReturn(new SliceImpl<>(List.of(BookingMapper.toBookingDto(testBooking1))));
+
+        List<BookingDto> result = bookingService.getAllUserBookingsAfter(userId, "CURRENT", after, 10).getContent();
+
+        assertEquals(List.of(BookingMapper.toBookingDto(testBooking1)), result);
+    }
+
+    @Test
+    void getAllOwnerBookingsAfterTest_whenSearchOfWaiting_returnBookingDtoListAfterCursor() {
+        int userId = 2;
+        LocalDateTime cursorStart = LocalDateTime.parse(dateTimeStart).plusDays(3);
+        String after = PageCursor.encode(cursorStart, 7L);
+        when(bookingRepository.findAllDtoByItemOwnerIdAfter(
+                userId,
+                List.of(BookingStatus.WAITING),
+                LocalDateTime.of(1970, 1, 1, 0, 0),
+                LocalDateTime.of(9999, 12, 31, 23, 59),
+                LocalDateTime.of(1970, 1, 1, 0, 0),
+                LocalDateTime.of(9999, 12, 31, 23, 59),
+                cursorStart,
+                7L,
+                FromSizeRequest.of(0, 10, Sort.unsorted())))
+                .thenReturn(new SliceImpl<>(List.of(BookingMapper.toBookingDto(testBooking1))));
+
+        List<BookingDto> result = bookingService.getAllOwnerBookingsAfter(userId, "WAITING", after, 10).getContent();
+
+        assertEquals(List.of(BookingMapper.toBookingDto(testBooking1)), result);
+    }
+
+    @Test
+    void getAllOwnerBookingsAfterTest_whenCursorIsMalformed_ValidationException() {
+        assertThrows(ValidationException.class,
+                () -> bookingService.getAllOwnerBookingsAfter(1, "ALL", "not-a-cursor", 10));
+        assertThrows(ValidationException.class,
+                () -> bookingService.getAllOwnerBookingsAfter(1, "ALL", PageCursor.encode(5L), 10));
+    }
+
+    @Test
+    void countOwnerBookingsTest_whenSearchOfPast_countWithPastFilter() {
+        int userId = 2;
+        LocalDateTime currentTime = LocalDateTime.of(
+                dt.getYear(), dt.getMonth(), dt.getDayOfMonth(), dt.getHour(), dt.getMinute(), dt.getSecond());
+        when(bookingRepository.countAllByItemOwnerId(
+                userId,
+                List.of(BookingStatus.values()),
+                LocalDateTime.of(1970, 1, 1, 0, 0),
+                LocalDateTime.of(9999, 12, 31, 23, 59),
+                LocalDateTime.of(1970, 1, 1, 0, 0),
+                currentTime))
+                .thenReturn(3L);
+
+        assertEquals(3L, bookingService.countOwnerBookings(userId, "PAST"));
+    }
+
+    @Test
+    void countUserBookingsTest_whenStateIsWrong_WrongArgumentException() {
+        assertThrows(WrongInputDataException.class, () -> bookingService.countUserBookings(1, "WRONG_ARGUMENT"));
+    }
+
+    @Test
+    void getOwnerBookingsTagTest_whenRowVersionChanged_returnNewTag() {
+        int userId = 1;
+        when(bookingRepository.findAllVersionsByItemOwnerId(
+                userId, ALL_STATUSES, MIN_DATE_TIME, MAX_DATE_TIME, MIN_DATE_TIME, MAX_DATE_TIME, pageParams))
+                .thenReturn(new SliceImpl<>(List.of(new RowVersion(1, 0))),
+                        new SliceImpl<>(List.of(new RowVersion(1, 1))));
+
+        String tag = bookingService.getOwnerBookingsTag(userId, "ALL", 0, 10, null);
+
+        assertNotEquals(tag, bookingService.getOwnerBookingsTag(userId, "ALL", 0, 10, null));
+        verify(bookingRepository, never()).findAllDtoByItemOwnerId(
+                anyLong(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void getUserBookingsTagTest_whenNoBookings_NotFoundException() {
+        int userId = 1;
+        when(bookingRepository.findAllVersionsByBookerId(
+                userId, ALL_STATUSES, MIN_DATE_TIME, MAX_DATE_TIME, MIN_DATE_TIME, MAX_DATE_TIME, pageParams))
+                .thenReturn(new SliceImpl<>(List.of()));
+
+        assertThrows(NotFoundException.class, () -> bookingService.getUserBookingsTag(userId, "ALL", 0, 10, null));
+    }
+
+    @Test
+    void getBookingTagTest_whenNotBookerOrOwner_NotFoundException() {
+        when(bookingRepository.findVersionByIdForUser(1, 3)).thenReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class, () -> bookingService.getBookingTag(1, 3));
+    }
+
+    @Test
+    void exportOwnerBookingsTest_whenOk_writeEveryStreamedBooking() throws IOException {
+        int userId = 2;
+        BookingDto bookingDto = BookingMapper.toBookingDto(testBooking1);
+        when(userRepository.existsCachedById(userId)).thenReturn(true);
+        when(bookingRepository.streamAllDtoByItemOwnerId(
+                userId, ALL_STATUSES, MIN_DATE_TIME, MAX_DATE_TIME, MIN_DATE_TIME, MAX_DATE_TIME))
+                .thenReturn(Stream.of(bookingDto, bookingDto));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = bookingService.exportOwnerBookings(userId, "ALL",
+                new BookingExportWriter(BookingExportFormat.NDJSON, out, new ObjectMapper()));
+
+        assertEquals(2L, rows);
+        assertEquals(2, out.toString(StandardCharsets.UTF_8).split("\n").length);
+    }
+
+    @Test
+    void exportOwnerBookingsTest_whenNoSuchUser_NotFoundException() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BookingExportWriter writer = new BookingExportWriter(BookingExportFormat.CSV, out, new ObjectMapper());
+        when(userRepository.existsCachedById(99)).thenReturn(false);
+
+        assertThrows(NotFoundException.class, () -> bookingService.exportOwnerBookings(99, "ALL", writer));
+        assertEquals(0, out.size());
+        verify(bookingRepository, never()).streamAllDtoByItemOwnerId(
+                anyLong(), any(), any(), any(), any(), any());
     }
 }
@@ -0,0 +1,205 @@
+package ru.practicum.shareit.booking.concurrency;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.practicum.shareit.booking.BookingServiceImpl;
+import ru.practicum.shareit.booking.dto.BookingShortDto;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.exception.NoAccessException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+@SpringBootTest
+public class BookingConcurrencyStressTest {
+    private static final int REQUESTS = 2000;
+    private static final int THREADS = 32;
+    private static final int BOOKERS = 10;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    private final List<Long> bookerIds = new ArrayList<>();
+    private long itemId;
+    private LocalDateTime base;
+
+    @BeforeEach
+    void setUp() {
+        User owner = userRepository.save(new User(null, "owner", "stress-owner@ya.ru"));
+        for (int i = 0; i < BOOKERS; i++) {
+            bookerIds.add(userRepository.save(new User(null, "booker" + i, "stress-booker" + i + "@ya.ru")).getId());
+        }
+        itemId = itemRepository.save(new Item(null, "Дрель", "Простая дрель", true, null, owner)).getId();
+        base = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookingRepository.deleteAll();
+        itemRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void createBookingTest_whenOptimisticRetryAndWindowsOverlap_neverDoubleBook() throws Exception {
+        Outcome outcome = fireOverlapping(new OptimisticRetryBookingGuard(transactionManager, 5, 5));
+
+        assertTrue(outcome.created.get() > 0);
+        assertEquals(REQUESTS, outcome.created.get() + outcome.overlapping.get() + outcome.conflicts.get());
+        assertNoDoubleBooking(outcome.created.get());
+    }
+
+    @Test
+    void createBookingTest_whenStripedLockAndWindowsOverlap_neverDoubleBookOrConflict() throws Exception {
+        Outcome outcome = fireOverlapping(new StripedLockBookingGuard(transactionManager, 64));
+
+        assertEquals(0, outcome.conflicts.get());
+        assertEquals(REQUESTS, outcome.created.get() + outcome.overlapping.get());
+        assertNoDoubleBooking(outcome.created.get());
+    }
+
+    @Test
+    void createBookingTest_whenOptimisticRetryAndWindowsDisjoint_createAll() throws Exception {
+        Outcome outcome = fire(new OptimisticRetryBookingGuard(transactionManager, 5, 5),
+                i -> new BookingShortDto(base.plusHours(i).toString(), base.plusHours(i + 1).toString(), itemId));
+
+        assertEquals(0, outcome.conflicts.get());
+        assertEquals(REQUESTS, outcome.created.get());
+        assertNoDoubleBooking(REQUESTS);
+    }
+
+    @Test
+    void createBookingTest_whenStripedLockAndWindowsDisjoint_createAll() throws Exception {
+        Outcome outcome = fire(new StripedLockBookingGuard(transactionManager, 64),
+                i -> new BookingShortDto(base.plusHours(i).toString(), base.plusHours(i + 1).toString(), itemId));
+
+        assertEquals(REQUESTS, outcome.created.get());
+        assertNoDoubleBooking(REQUESTS);
+    }
+
+    /**
+     * Проверка пересечений пропустила конкурента, вставку отклоняет ограничение. На H2 exclusion
+     * constraint из миграции для PostgreSQL заменяет уникальное ограничение с тем же именем.
+     */
+    @Test
+    void createBookingTest_whenOverlapCheckMissed_translateConstraintViolation() {
+        BookingRepository missingCheck = mock(BookingRepository.class, delegatesTo(bookingRepository));
+        doReturn(false).when(missingCheck).existsByItemIdAndStatusInAndStartBeforeAndEndAfter(
+                anyLong(), any(), any(), any());
+        BookingServiceImpl bookingService = new BookingServiceImpl(missingCheck, userRepository, itemRepository,
+                new StripedLockBookingGuard(transactionManager, 64));
+        BookingShortDto booking = new BookingShortDto(base.toString(), base.plusHours(1).toString(), itemId);
+        jdbcTemplate.execute(
+                "ALTER TABLE bookings ADD CONSTRAINT EXCL_BOOKINGS_ITEM_PERIOD UNIQUE (item_id, start_datetime)");
+        try {
+            bookingService.createBooking(booking, bookerIds.get(0));
+
+            assertThrows(NoAccessException.class, () -> bookingService.createBooking(booking, bookerIds.get(1)));
+            assertEquals(1, bookingRepository.count());
+        } finally {
+            jdbcTemplate.execute("ALTER TABLE bookings DROP CONSTRAINT EXCL_BOOKINGS_ITEM_PERIOD");
+        }
+    }
+
+    private Outcome fireOverlapping(BookingConcurrencyGuard guard) throws Exception {
+        Random random = new Random(42);
+        List<BookingShortDto> requests = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            LocalDateTime start = base.plusHours(random.nextInt(REQUESTS / 4));
+            requests.add(new BookingShortDto(start.toString(), start.plusHours(1 + random.nextInt(3)).toString(), itemId));
+        }
+        return fire(guard, requests::get);
+    }
+
+    private Outcome fire(BookingConcurrencyGuard guard, IntFunction<BookingShortDto> request)
+            throws Exception {
+        BookingServiceImpl bookingService = new BookingServiceImpl(
+                bookingRepository, userRepository, itemRepository, guard);
+        Outcome outcome = new Outcome();
+        CountDownLatch startGate = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            BookingShortDto booking = request.apply(i);
+            long bookerId = bookerIds.get(i % BOOKERS);
+            futures.add(executor.submit(() -> {
+                startGate.await();
+                try {
+                    bookingService.createBooking(booking, bookerId);
+                    outcome.created.incrementAndGet();
+                } catch (NoAccessException exception) {
+                    outcome.overlapping.incrementAndGet();
+                } catch (ConcurrencyFailureException exception) {
+                    outcome.conflicts.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        startGate.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        return outcome;
+    }
+
+    private void assertNoDoubleBooking(int expectedCount) {
+        List<Booking> bookings = bookingRepository.findAll().stream()
+                .filter(booking -> booking.getStatus() == BookingStatus.WAITING
+                        || booking.getStatus() == BookingStatus.APPROVED)
+                .sorted(Comparator.comparing(Booking::getStart))
+                .collect(Collectors.toList());
+        assertEquals(expectedCount, bookings.size());
+        for (int i = 1; i < bookings.size(); i++) {
+            assertTrue(!bookings.get(i).getStart().isBefore(bookings.get(i - 1).getEnd()),
+                    "Пересекаются бронирования " + bookings.get(i - 1).getId() + " и " + bookings.get(i).getId());
+        }
+    }
+
+    private static class Outcome {
+        private final AtomicInteger created = new AtomicInteger();
+        private final AtomicInteger overlapping = new AtomicInteger();
+        private final AtomicInteger conflicts = new AtomicInteger();
+    }
+}
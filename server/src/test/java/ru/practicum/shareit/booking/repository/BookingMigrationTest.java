@@ -0,0 +1,70 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class BookingMigrationTest {
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+    private JdbcDataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:migration" + DATABASES.incrementAndGet() + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUser("test");
+        dataSource.setPassword("test");
+    }
+
+    @Test
+    void migrateTest_whenPastBookingsExist_backfillOwnerAndAllowUpdates() throws Exception {
+        flyway("7").migrate();
+        insertPastBooking();
+
+        flyway(null).migrate();
+
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            try (ResultSet rows = statement.executeQuery("SELECT owner_id FROM bookings")) {
+                rows.next();
+                assertEquals(1L, rows.getLong(1));
+            }
+            assertEquals(1, statement.executeUpdate("UPDATE bookings SET status = 'APPROVED'"));
+            assertThrows(SQLException.class, () -> statement.executeUpdate(
+                    "UPDATE bookings SET end_datetime = start_datetime - INTERVAL '1' HOUR"));
+        }
+    }
+
+    private Flyway flyway(String target) {
+        return Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration/common", "classpath:db/migration/h2")
+                .target(target == null ? "latest" : target)
+                .load();
+    }
+
+    // Проверки V1 не дают вставить прошедшие даты, такие строки появляются, когда наступает их время.
+    private void insertPastBooking() throws SQLException, InterruptedException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO users (id, name, email) VALUES (1, 'owner', 'owner@ya.ru')");
+            statement.execute("INSERT INTO users (id, name, email) VALUES (2, 'booker', 'booker@ya.ru')");
+            statement.execute("INSERT INTO items (id, name, description, available, owner_id) "
+                    + "VALUES (1, 'Дрель', 'Простая дрель', TRUE, 1)");
+            statement.execute("INSERT INTO bookings (id, start_datetime, end_datetime, item_id, booker_id, status) "
+                    + "VALUES (1, LOCALTIMESTAMP + INTERVAL '0.2' SECOND, LOCALTIMESTAMP + INTERVAL '0.4' SECOND, "
+                    + "1, 2, 'WAITING')");
+        }
+        Thread.sleep(500);
+    }
+}
@@ -0,0 +1,205 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.etag.RowVersion;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class BookingRepositoryTest {
+    private static final LocalDateTime MIN_DATE_TIME = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime MAX_DATE_TIME = LocalDateTime.of(9999, 12, 31, 23, 59);
+    private static final List<BookingStatus> ALL_STATUSES = List.of(BookingStatus.values());
+    private static final Pageable PAGE = PageRequest.of(0, 10);
+    private static final LocalDateTime NOW = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+    private static final LocalDateTime NEXT_YEAR = NOW.plusYears(1);
+
+    @Autowired
+    private TestEntityManager em;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    private Statistics statistics;
+    private long bookerId;
+    private long ownerId;
+    private long firstBookingId;
+    private long secondBookingId;
+
+    @BeforeEach
+    void setUp() {
+        User owner1 = em.persist(new User(null, "owner1", "owner1@ya.ru"));
+        User owner2 = em.persist(new User(null, "owner2", "owner2@ya.ru"));
+        User booker1 = em.persist(new User(null, "booker1", "booker1@ya.ru"));
+        User booker2 = em.persist(new User(null, "booker2", "booker2@ya.ru"));
+        User requester = em.persist(new User(null, "requester", "requester@ya.ru"));
+        ItemRequest request = em.persist(new ItemRequest(0, "нужна дрель", requester, NOW.minusDays(1)));
+        Item item1 = em.persist(new Item(null, "Дрель", "Простая дрель", true, request, owner1));
+        Item item2 = em.persist(new Item(null, "Отвертка", "Аккумуляторная отвертка", true, null, owner1));
+        Item item3 = em.persist(new Item(null, "Перфоратор", "Мощный перфоратор", true, request, owner2));
+        Booking first = em.persist(new Booking(null, NOW.plusDays(1), NOW.plusDays(2), item1, booker1, BookingStatus.WAITING));
+        Booking second = em.persist(new Booking(null, NOW.plusDays(2), NOW.plusDays(3), item2, booker2, BookingStatus.WAITING));
+        em.persist(new Booking(null, NOW.plusDays(3), NOW.plusDays(4), item3, booker1, BookingStatus.WAITING));
+        em.flush();
+        em.clear();
+        bookerId = booker1.getId();
+        ownerId = owner1.getId();
+        firstBookingId = first.getId();
+        secondBookingId = second.getId();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    static Stream<Arguments> listMethods() {
+        return Stream.of(
+                listMethod("findAllDtoByBookerId", (repository, userId) ->
+                        repository.findAllDtoByBookerId(userId, ALL_STATUSES,
+                                MIN_DATE_TIME, MAX_DATE_TIME, MIN_DATE_TIME, MAX_DATE_TIME, PAGE)),
+                listMethod("findAllDtoByBookerId_future", (repository, userId) ->
+                        repository.findAllDtoByBookerId(userId, List.of(BookingStatus.WAITING),
+                                NOW, MAX_DATE_TIME, MIN_DATE_TIME, NEXT_YEAR, PAGE)),
+                listMethod("findAllDtoByBookerIdAfter", (repository, userId) ->
+                        repository.findAllDtoByBookerIdAfter(userId, ALL_STATUSES,
+                                MIN_DATE_TIME, MAX_DATE_TIME, MIN_DATE_TIME, MAX_DATE_TIME,
+                                MAX_DATE_TIME, Long.MAX_VALUE, PAGE)),
+                listMethod("findAllDtoByItemOwnerId", (repository, userId) ->
+                        repository.findAllDtoByItemOwnerId(userId, ALL_STATUSES,
+                                MIN_DATE_TIME, MAX_DATE_TIME, MIN_DATE_TIME, MAX_DATE_TIME, PAGE)),
+                listMethod("findAllDtoByItemOwnerId_future", (repository, userId) ->
+                        repository.findAllDtoByItemOwnerId(userId, List.of(BookingStatus.WAITING),
+                                NOW, MAX_DATE_TIME, MIN_DATE_TIME, NEXT_YEAR, PAGE)),
+                listMethod("findAllDtoByItemOwnerIdAfter", (repository, userId) ->
+                        repository.findAllDtoByItemOwnerIdAfter(userId, ALL_STATUSES,
+                                MIN_DATE_TIME, MAX_DATE_TIME, MIN_DATE_TIME, MAX_DATE_TIME,
+                                MAX_DATE_TIME, Long.MAX_VALUE, PAGE)));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("listMethods")
+    void listMethodTest_whenProjectedToDto_executeSingleStatement(
+            String name, BiFunction<BookingRepository, Long, Slice<BookingDto>> listMethod) {
+        long userId = name.contains("Owner") ? ownerId : bookerId;
+
+        List<BookingDto> result = listMethod.apply(bookingRepository, userId).getContent();
+
+        assertEquals(2, result.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void listMethodTest_whenItemHasNoRequest_keepBookingInResult() {
+        List<BookingDto> result = bookingRepository.findAllDtoByItemOwnerId(ownerId, ALL_STATUSES,
+                MIN_DATE_TIME, MAX_DATE_TIME, MIN_DATE_TIME, MAX_DATE_TIME, PAGE).getContent();
+
+        assertEquals(List.of(secondBookingId, firstBookingId),
+                result.stream().map(BookingDto::getId).collect(Collectors.toList()));
+        assertNull(result.get(0).getItem().getRequestId());
+        assertEquals(ownerId, result.get(0).getItem().getOwnerId());
+    }
+
+    @Test
+    void streamAllDtoByItemOwnerIdTest_whenStreamed_returnOwnerBookingsInListingOrderWithSingleStatement() {
+        try (Stream<BookingDto> result = bookingRepository.streamAllDtoByItemOwnerId(ownerId, ALL_STATUSES,
+                MIN_DATE_TIME, MAX_DATE_TIME, MIN_DATE_TIME, MAX_DATE_TIME)) {
+            assertEquals(List.of(secondBookingId, firstBookingId),
+                    result.map(BookingDto::getId).collect(Collectors.toList()));
+        }
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void saveTest_whenBookingCreated_copyItemOwnerId() {
+        Booking booking = em.find(Booking.class, firstBookingId);
+
+        assertEquals(ownerId, booking.getOwnerId());
+        assertEquals(ownerId, booking.getItem().getOwner().getId());
+    }
+
+    @Test
+    void findByIdTest_whenMappedToDto_executeSingleStatement() {
+        BookingDto result = BookingMapper.toBookingDto(bookingRepository.findById(firstBookingId).orElseThrow());
+
+        assertEquals(bookerId, result.getBooker().getId());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void existsOverlappingTest_whenPeriodsIntersect_returnTrueOnlyForActiveBookings() {
+        long itemId = em.find(Booking.class, firstBookingId).getItem().getId();
+        List<BookingStatus> active = List.of(BookingStatus.WAITING, BookingStatus.APPROVED);
+
+        assertTrue(bookingRepository.existsByItemIdAndStatusInAndStartBeforeAndEndAfter(
+                itemId, active, NOW.plusDays(1).plusHours(12), NOW.plusHours(12)));
+        assertFalse(bookingRepository.existsByItemIdAndStatusInAndStartBeforeAndEndAfter(
+                itemId, active, NOW.plusDays(3), NOW.plusDays(2)));
+        assertFalse(bookingRepository.existsByItemIdAndStatusInAndStartBeforeAndEndAfter(
+                itemId, List.of(BookingStatus.APPROVED), NOW.plusDays(1).plusHours(12), NOW.plusHours(12)));
+    }
+
+    @Test
+    void findVersionByIdForUserTest_whenBookingUpdated_returnHigherVersionOnlyForParticipants() {
+        long before = bookingRepository.findVersionByIdForUser(firstBookingId, bookerId).orElseThrow();
+        em.find(Booking.class, firstBookingId).setStatus(BookingStatus.APPROVED);
+        em.flush();
+
+        assertEquals(before + 1, bookingRepository.findVersionByIdForUser(firstBookingId, ownerId).orElseThrow());
+        assertTrue(bookingRepository.findVersionByIdForUser(firstBookingId, secondBookingId + 100).isEmpty());
+    }
+
+    @Test
+    void findAllVersionsByItemOwnerIdTest_whenProjected_returnPageRowsInListingOrder() {
+        List<RowVersion> result = bookingRepository.findAllVersionsByItemOwnerId(ownerId, ALL_STATUSES,
+                MIN_DATE_TIME, MAX_DATE_TIME, MIN_DATE_TIME, MAX_DATE_TIME, PAGE).getContent();
+
+        assertEquals(List.of(secondBookingId, firstBookingId),
+                result.stream().map(RowVersion::getId).collect(Collectors.toList()));
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void findLastAndNextBookingsForItemsTest_whenMappedToEntity_returnNextBookingPerItem() {
+        long itemId = em.find(Booking.class, firstBookingId).getItem().getId();
+
+        List<Booking> result = bookingRepository.findLastAndNextBookingsForItems(
+                List.of(itemId), BookingStatus.REJECTED.name(), NOW);
+
+        assertEquals(1, result.size());
+        assertEquals(firstBookingId, result.get(0).getId());
+        assertEquals(0L, result.get(0).getVersion());
+    }
+
+    private static Arguments listMethod(String name, BiFunction<BookingRepository, Long, Slice<BookingDto>> listMethod) {
+        return Arguments.of(name, listMethod);
+    }
+}
@@ -0,0 +1,113 @@
+package ru.practicum.shareit.bulk;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import javax.validation.Validation;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class BulkImporterTest {
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    private BulkImporter importer;
+    private final List<List<Long>> writtenChunks = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        importer = new BulkImporter(new ObjectMapper(),
+                Validation.buildDefaultValidatorFactory().getValidator(), transactionManager);
+    }
+
+    @Test
+    void importLinesTest_whenLinesInvalid_reportErrorsByLineAndSaveOthers() throws Exception {
+        String body = "{\"name\":\"user1\",\"email\":\"user1@ya.ru\"}\n"
+                + "\n"
+                + "{\"name\": broken\n"
+                + "{\"name\":\"user2\",\"email\":\"not-an-email\"}\n"
+                + "null\n"
+                + "{\"name\":\"user3\",\"email\":\"user3@ya.ru\"} {}\n"
+                + "{\"name\":\"user4\",\"email\":\"user4@ya.ru\"}";
+
+        BulkImportResult result = importer.importLines(ndjson(body), UserDto.class, this::recordChunk);
+
+        assertEquals(2, result.getImported());
+        assertEquals(4, result.getFailed());
+        assertEquals(List.of(3L, 4L, 5L, 6L), result.getErrors().stream()
+                .map(BulkLineError::getLine).collect(Collectors.toList()));
+        assertEquals("email: Некорректный email", result.getErrors().get(1).getError());
+        assertEquals(List.of(List.of(1L, 7L)), writtenChunks);
+    }
+
+    @Test
+    void importLinesTest_whenLineTooLong_rejectItAndReadNextLine() throws Exception {
+        String body = "{\"name\":\"" + "a".repeat(BulkImporter.MAX_LINE_LENGTH) + "\",\"email\":\"user1@ya.ru\"}\r\n"
+                + "{\"name\":\"user2\",\"email\":\"user2@ya.ru\"}\r\n";
+
+        BulkImportResult result = importer.importLines(ndjson(body), UserDto.class, this::recordChunk);
+
+        assertEquals(1, result.getImported());
+        assertEquals(List.of(new BulkLineError(1, "Строка длиннее " + BulkImporter.MAX_LINE_LENGTH + " символов.")),
+                result.getErrors());
+        assertEquals(List.of(List.of(2L)), writtenChunks);
+    }
+
+    @Test
+    void importLinesTest_whenMoreThanChunk_saveEachChunkInOwnTransaction() throws Exception {
+        String body = IntStream.rangeClosed(1, BulkImporter.CHUNK_SIZE + 1)
+                .mapToObj(i -> "{\"name\":\"user" + i + "\",\"email\":\"user" + i + "@ya.ru\"}")
+                .collect(Collectors.joining("\n"));
+
+        BulkImportResult result = importer.importLines(ndjson(body), UserDto.class, this::recordChunk);
+
+        assertEquals(BulkImporter.CHUNK_SIZE + 1, result.getImported());
+        assertEquals(List.of(BulkImporter.CHUNK_SIZE, 1),
+                writtenChunks.stream().map(List::size).collect(Collectors.toList()));
+        verify(transactionManager, times(2)).commit(null);
+    }
+
+    @Test
+    void importLinesTest_whenChunkFailsOnConstraint_saveLinesOneByOneAndRejectOnlyFailed() throws Exception {
+        String body = "{\"name\":\"user1\",\"email\":\"user1@ya.ru\"}\n"
+                + "{\"name\":\"user2\",\"email\":\"user2@ya.ru\"}\n"
+                + "{\"name\":\"user3\",\"email\":\"user3@ya.ru\"}";
+
+        BulkImportResult result = importer.importLines(ndjson(body), UserDto.class, chunk -> {
+            if (chunk.size() > 1 || chunk.get(0).getLine() == 2) {
+                throw new DataIntegrityViolationException("UQ_USER_EMAIL");
+            }
+            return recordChunk(chunk);
+        });
+
+        assertEquals(2, result.getImported());
+        assertEquals(1, result.getFailed());
+        assertEquals(2, result.getErrors().get(0).getLine());
+        assertEquals(List.of(List.of(1L), List.of(3L)), writtenChunks);
+    }
+
+    private List<BulkLineError> recordChunk(List<BulkLine<UserDto>> chunk) {
+        writtenChunks.add(chunk.stream().map(BulkLine::getLine).collect(Collectors.toList()));
+        return List.of();
+    }
+
+    private static InputStream ndjson(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -6,9 +6,11 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.booking.dto.BookingForItemDto;
+import ru.practicum.shareit.bulk.BulkImportResult;
 import ru.practicum.shareit.exception.NoAccessException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
@@ -24,9 +26,14 @@ import java.util.Collections;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(ItemController.class)
@@ -186,6 +193,33 @@ public class ItemControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @SneakyThrows
+    @Test
+    void getItemTest_ifTagMatches_responseNotModified() {
+        when(itemService.getItemTag(1, 1)).thenReturn("tag1");
+
+        mvc.perform(get("/items/{itemId}", "1")
+                        .header(userIdHeader, 1)
+                        .header("If-None-Match", "\"tag1\"")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified());
+
+        verify(itemService, never()).getItem(anyLong(), anyLong());
+    }
+
+    @SneakyThrows
+    @Test
+    void getItemTest_ifNoIfNoneMatch_skipTag() {
+        when(itemService.getItem(1, 1)).thenReturn(testItemCommentDto1);
+
+        mvc.perform(get("/items/{itemId}", "1")
+                        .header(userIdHeader, 1)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        verify(itemService, never()).getItemTag(anyLong(), anyLong());
+    }
+
     @SneakyThrows
     @Test
     void getItemTest_ifNoSuchItem_responseNotFound() {
@@ -202,7 +236,7 @@ public class ItemControllerTest {
     @Test
     void getItemsTest_ifInvoked_responseIsOk() {
         when(itemService.getItems(testItemCommentDto1.getId(), 0, 10))
-                .thenReturn(List.of(testItemCommentDto1));
+                .thenReturn(new SliceImpl<>(List.of(testItemCommentDto1)));
 
         String result = mvc.perform(get("/items")
                         .header(userIdHeader, 1)
@@ -234,7 +268,7 @@ public class ItemControllerTest {
     @Test
     void searchItemsTest_ifOk_returnItemDtoList() {
         when(itemService.searchItems("it", 0, 10))
-                .thenReturn(List.of(testItemDto1));
+                .thenReturn(new SliceImpl<>(List.of(testItemDto1)));
 
         String result = mvc.perform(get("/items/search?text=it")
                         .characterEncoding(StandardCharsets.UTF_8)
@@ -252,7 +286,7 @@ public class ItemControllerTest {
     @Test
     void searchItemsTest_ifNoText_returnEmptyList() {
         when(itemService.searchItems("", 0, 10))
-                .thenReturn(Collections.emptyList());
+                .thenReturn(new SliceImpl<>(Collections.emptyList()));
 
         String result = mvc.perform(get("/items/search?text=")
                         .characterEncoding(StandardCharsets.UTF_8)
@@ -324,4 +358,44 @@ public class ItemControllerTest {
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isBadRequest());
     }
+
+    @SneakyThrows
+    @Test
+    void importItemsTest_whenOwnerNotFound_returnNotFound() {
+        when(itemService.importItems(any(), eq(99L))).thenThrow(NotFoundException.class);
+
+        mvc.perform(post("/items/bulk")
+                        .content("{\"name\":\"drel\",\"description\":\"drel\",\"available\":true}\n")
+                        .header(userIdHeader, 99)
+                        .contentType("application/x-ndjson"))
+                .andExpect(status().isNotFound());
+    }
+
+    @SneakyThrows
+    @Test
+    void importItemsTest_whenImported_returnResult() {
+        when(itemService.importItems(any(), eq(1L))).thenReturn(new BulkImportResult(2, 0, List.of()));
+
+        mvc.perform(post("/items/bulk")
+                        .content("{}\n{}\n")
+                        .header(userIdHeader, 1)
+                        .contentType("application/x-ndjson"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2))
+                .andExpect(jsonPath("$.errors").isEmpty());
+    }
+
+    @SneakyThrows
+    @Test
+    void getItemsByIdsTest_whenIdsGiven_returnItemsWithoutPaging() {
+        when(itemService.getItemsByIds(List.of(3L, 1L))).thenReturn(List.of(testItemDto1));
+
+        mvc.perform(get("/items")
+                        .param("ids", "3,1")
+                        .header(userIdHeader, 1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(testItemDto1.getId()));
+
+        verify(itemService, never()).getItems(anyLong(), anyInt(), anyInt());
+    }
 }
@@ -0,0 +1,139 @@
+package ru.practicum.shareit.item;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.booking.BookingService;
+import ru.practicum.shareit.booking.dto.BookingShortDto;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemForUpdate;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.dto.UserForUpdateDto;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+public class ItemSecondLevelCacheTest {
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    private Statistics statistics;
+    private UserDto owner;
+    private UserDto booker;
+    private ItemDto item;
+
+    @BeforeEach
+    void setUp() {
+        owner = userService.createUser(new UserDto(0, "owner", "cache-owner@ya.ru"));
+        booker = userService.createUser(new UserDto(0, "booker", "cache-booker@ya.ru"));
+        item = itemService.createItem(new ItemDto(0, "Дрель", "Простая дрель", true, null, 0), owner.getId());
+        entityManagerFactory.getCache().evictAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookingRepository.deleteAll();
+        itemRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void findByIdTest_whenLoadedBefore_readFromCacheWithoutStatements() {
+        itemRepository.findById(item.getId()).orElseThrow();
+        userRepository.findById(owner.getId()).orElseThrow();
+        long statements = statistics.getPrepareStatementCount();
+
+        itemRepository.findById(item.getId()).orElseThrow();
+        userRepository.findById(owner.getId()).orElseThrow();
+
+        assertEquals(statements, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getDomainDataRegionStatistics(Item.CACHE_REGION).getHitCount());
+        assertEquals(1, statistics.getDomainDataRegionStatistics(User.CACHE_REGION).getHitCount());
+    }
+
+    @Test
+    void existsCachedByIdTest_whenUserCached_answerWithoutStatements() {
+        assertTrue(userRepository.existsCachedById(owner.getId()));
+        assertFalse(userRepository.existsCachedById(Long.MAX_VALUE));
+        long statements = statistics.getPrepareStatementCount();
+        userRepository.findById(owner.getId()).orElseThrow();
+
+        assertTrue(userRepository.existsCachedById(owner.getId()));
+        assertEquals(statements + 1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void updateItemTest_whenBookedAfterCaching_updateWithoutConflictAndKeepCounters() {
+        itemRepository.findById(item.getId()).orElseThrow();
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        bookingService.createBooking(
+                new BookingShortDto(start.toString(), start.plusDays(1).toString(), item.getId()), booker.getId());
+
+        ItemDto updated = itemService.updateItem(
+                new ItemForUpdate("Перфоратор", null, null, null, owner.getId()), item.getId(), owner.getId());
+
+        assertEquals("Перфоратор", updated.getName());
+        Item stored = itemRepository.findById(item.getId()).orElseThrow();
+        assertEquals("Перфоратор", stored.getName());
+        assertEquals(1, stored.getBookingsVersion());
+    }
+
+    @Test
+    void updateItemTest_whenNotOwner_keepOwnerOfItemAndBookings() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        bookingService.createBooking(
+                new BookingShortDto(start.toString(), start.plusDays(1).toString(), item.getId()), booker.getId());
+
+        assertThrows(NotFoundException.class, () -> itemService.updateItem(
+                new ItemForUpdate("Перфоратор", null, null, null, booker.getId()), item.getId(), booker.getId()));
+
+        assertEquals(owner.getId(), itemRepository.findById(item.getId()).orElseThrow().getOwner().getId());
+        assertTrue(bookingRepository.findAll().stream()
+                .allMatch(booking -> booking.getOwnerId().equals(owner.getId())));
+    }
+
+    @Test
+    void findByEmailEqualsTest_whenEmailUpdated_invalidateCachedQuery() {
+        assertEquals(owner.getId(), userRepository.findByEmailEquals("cache-owner@ya.ru").getId());
+        userRepository.findByEmailEquals("cache-owner@ya.ru");
+        assertEquals(1, statistics.getQueryCacheHitCount());
+
+        userService.updateUser(new UserForUpdateDto(null, "cache-owner2@ya.ru"), owner.getId());
+
+        assertNull(userRepository.findByEmailEquals("cache-owner@ya.ru"));
+        User renamed = userRepository.findByEmailEquals("cache-owner2@ya.ru");
+        assertEquals(owner.getId(), renamed.getId());
+    }
+}
@@ -2,17 +2,26 @@ package ru.practicum.shareit.item;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.*;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import ru.practicum.shareit.booking.enums.BookingStatus;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.bulk.BulkChunkWriter;
+import ru.practicum.shareit.bulk.BulkImportResult;
+import ru.practicum.shareit.bulk.BulkImporter;
+import ru.practicum.shareit.bulk.BulkLine;
+import ru.practicum.shareit.bulk.BulkLineError;
 import ru.practicum.shareit.exception.NoAccessException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.ids.RequestedIds;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemCommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
@@ -23,18 +32,29 @@ import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.CommentRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -51,6 +71,10 @@ public class ItemServiceTest {
     private BookingRepository bookingRepository;
     @Mock
     private CommentRepository commentRepository;
+    @Mock
+    private ItemSearchEngine searchEngine;
+    @Mock
+    private BulkImporter bulkImporter;
     LocalDateTime dt = LocalDateTime.now();
     ItemDto testItemDto1 = new ItemDto(1, "predmet", "prosto predmet", true, null, 1);
     ItemForUpdate testItemDtoUpdate1 = new ItemForUpdate("NEWpredmet", "prosto predmet", true, null, 1);
@@ -87,6 +111,23 @@ public class ItemServiceTest {
         ItemDto result = itemService.createItem(testItemDto1, testUserDto1.getId());
 
         assertEquals(testItemDto1, result);
+        verify(searchEngine).index(testItem1);
+    }
+
+    @Test
+    void createItemTest_ifInTransaction_indexAfterCommit() {
+        when(itemRepository.save(testItem1)).thenReturn(testItem1);
+        when(userRepository.findById(testUserDto1.getId())).thenReturn(Optional.ofNullable(user1));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            itemService.createItem(testItemDto1, testUserDto1.getId());
+
+            verifyNoInteractions(searchEngine);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(searchEngine).index(testItem1);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
     }
 
     @Test
@@ -120,11 +161,12 @@ public class ItemServiceTest {
         updateItem.setId(itemId);
         when(userRepository.findById(userId)).thenReturn(Optional.ofNullable(user1));
         when(itemRepository.findById(itemId)).thenReturn(Optional.ofNullable(testItem1));
-        when(itemRepository.save(updateItem)).thenReturn(updateItem);
 
         ItemDto updated = itemService.updateItem(testItemDtoUpdate1, itemId, userId);
 
         assertEquals(updated, ItemMapper.toItemDto(updateItem));
+        assertEquals("NEWpredmet", testItem1.getName());
+        verify(itemRepository, never()).save(any());
     }
 
     @Test
@@ -144,6 +186,17 @@ public class ItemServiceTest {
         assertThrows(NotFoundException.class, () -> itemService.updateItem(testItemDtoUpdate1, itemId, 1));
     }
 
+    @Test
+    void updateItemTest_ifUserIsNotOwner_NotFoundExceptionAndOwnerKept() {
+        User user2 = new User(2L, "user2", "user2@ya.ru");
+        when(userRepository.findById(2L)).thenReturn(Optional.of(user2));
+        when(itemRepository.findById(testItem1.getId())).thenReturn(Optional.ofNullable(testItem1));
+
+        assertThrows(NotFoundException.class, () -> itemService.updateItem(testItemDtoUpdate1, testItem1.getId(), 2));
+        assertEquals(user1, testItem1.getOwner());
+        assertEquals("predmet", testItem1.getName());
+    }
+
     @Test
     void updateItemTest_ifIncorrectRequestId_NotFoundException() {
         ItemForUpdate testItemDtoUpdate2 = testItemDtoUpdate1;
@@ -159,7 +212,7 @@ public class ItemServiceTest {
     void getItemTest_ifOk_returnItemCommentDto() {
         long itemId = 1;
         long userId = 1;
-        when(userRepository.findById(userId)).thenReturn(Optional.ofNullable(user1));
+        when(userRepository.existsCachedById(userId)).thenReturn(true);
         when(itemRepository.findById(itemId)).thenReturn(Optional.ofNullable(testItem1));
         doReturn(testBooking1).when(bookingRepository).findFirstByItemIdEqualsAndStatusIsNotAndStartBeforeOrderByStartDesc(
                 itemId,
@@ -179,7 +232,7 @@ public class ItemServiceTest {
     @Test
     void getItemTest_ifNoSuchUser_NotFoundException() {
         long userId = 0;
-        when(userRepository.findById(userId)).thenReturn(Optional.empty());
+        when(userRepository.existsCachedById(userId)).thenReturn(false);
 
         assertThrows(NotFoundException.class, () -> itemService.getItem(1, userId));
     }
@@ -187,52 +240,64 @@ public class ItemServiceTest {
     @Test
     void getItemTest_ifNoSuchItem_NotFoundException() {
         long itemId = 0;
-        when(userRepository.findById(1L)).thenReturn(Optional.ofNullable(user1));
+        when(userRepository.existsCachedById(1L)).thenReturn(true);
         when(itemRepository.findById(itemId)).thenReturn(Optional.empty());
 
         assertThrows(NotFoundException.class, () -> itemService.getItem(itemId, 1));
     }
 
     @Test
-    void getItemsTest_ifOk_returnItemCommentDtoList() {
-        long itemId = 1;
-        long userId = 1;
-        Pageable pageParams = PageRequest.of(fromToPage(0, 10), 10, Sort.by(Sort.Direction.ASC, "id"));
-        when(userRepository.findById(userId)).thenReturn(Optional.ofNullable(user1));
-        when(itemRepository.findAllByOwnerIdIsOrderByIdAsc(userId, pageParams)).thenReturn(new PageImpl<>(List.of(testItem1)));
-        doReturn(testBooking1).when(bookingRepository).findFirstByItemIdEqualsAndStatusIsNotAndStartBeforeOrderByStartDesc(
-                itemId,
-                BookingStatus.REJECTED,
-                LocalDateTime.of(dt.getYear(), dt.getMonth(), dt.getDayOfMonth(), dt.getHour(), dt.getMinute(), dt.getSecond()));
-        doReturn(null).when(bookingRepository).findFirstByItemIdEqualsAndStatusIsNotAndStartAfterOrderByStartAsc(
-                itemId,
-                BookingStatus.REJECTED,
-                LocalDateTime.of(dt.getYear(), dt.getMonth(), dt.getDayOfMonth(), dt.getHour(), dt.getMinute(), dt.getSecond()));
-        when(commentRepository.findAllByItemIdEqualsOrderByCreatedDesc(itemId)).thenReturn(List.of());
+    void getItemTagTest_ifNotOwner_ignoreBookings() {
+        when(userRepository.existsCachedById(2L)).thenReturn(true);
+        when(itemRepository.findById(1L)).thenReturn(Optional.of(testItem1));
 
-        List<ItemCommentDto> itemCommentDto = itemService.getItems(userId, 0, 10);
+        String tag = itemService.getItemTag(1, 2);
+        testItem1.setBookingsVersion(5);
 
-        assertEquals(List.of(testItemCommentDto1), itemCommentDto);
+        assertEquals(tag, itemService.getItemTag(1, 2));
+        verify(bookingRepository, never()).findNextStartByItemId(anyLong(), any(), any());
     }
 
     @Test
-    void getItemsTest_ifNoSuchUser_NotFoundException() {
-        long userId = 0;
-        when(userRepository.findById(userId)).thenReturn(Optional.empty());
+    void getItemTagTest_ifCommentAdded_returnNewTag() {
+        when(userRepository.existsCachedById(2L)).thenReturn(true);
+        when(itemRepository.findById(1L)).thenReturn(Optional.of(testItem1));
 
-        assertThrows(NotFoundException.class, () -> itemService.getItems(userId, 0, 10));
+        String tag = itemService.getItemTag(1, 2);
+        testItem1.setCommentsVersion(1);
+
+        assertNotEquals(tag, itemService.getItemTag(1, 2));
     }
 
     @Test
-    void searchItemsTest_ifOk_returnItemDtoList() {
-        String text = "1";
-        Pageable pageParams = PageRequest.of(fromToPage(0, 10), 10, Sort.by(Sort.Direction.ASC, "id"));
-        when(itemRepository.findAllByNameOrDescriptionContainingIgnoreCaseAndAvailableTrue(text, text, pageParams))
-                .thenReturn(new PageImpl<>(List.of(testItem1)));
+    void getItemTagTest_ifOwnerAndBookingsChanged_returnNewTag() {
+        when(userRepository.existsCachedById(1L)).thenReturn(true);
+        when(itemRepository.findById(1L)).thenReturn(Optional.of(testItem1));
+        when(bookingRepository.findNextStartByItemId(eq(1L), eq(BookingStatus.REJECTED), any()))
+                .thenReturn(Optional.empty());
+
+        String tag = itemService.getItemTag(1, 1);
+        testItem1.setBookingsVersion(1);
 
-        List<ItemDto> itemDtoList = itemService.searchItems(text, 0, 10);
+        assertNotEquals(tag, itemService.getItemTag(1, 1));
+    }
+
+    @Test
+    void getItemTagTest_ifOwnerAndNextBookingStarted_returnNewTag() {
+        when(userRepository.existsCachedById(1L)).thenReturn(true);
+        when(itemRepository.findById(1L)).thenReturn(Optional.of(testItem1));
+        when(bookingRepository.findNextStartByItemId(eq(1L), eq(BookingStatus.REJECTED), any()))
+                .thenReturn(Optional.of(dt.plusHours(1)), Optional.of(dt.plusDays(1)));
 
-        assertEquals(List.of(testItemDto1), itemDtoList);
+        assertNotEquals(itemService.getItemTag(1, 1), itemService.getItemTag(1, 1));
+    }
+
+    @Test
+    void getItemTagTest_ifNoSuchItem_NotFoundException() {
+        when(userRepository.existsCachedById(1L)).thenReturn(true);
+        when(itemRepository.findById(0L)).thenReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class, () -> itemService.getItemTag(0, 1));
     }
 
     @Test
@@ -242,7 +307,7 @@ public class ItemServiceTest {
         LocalDateTime dateTime = LocalDateTime.of(dt.getYear(), dt.getMonth(), dt.getDayOfMonth(), dt.getHour(), dt.getMinute(), dt.getSecond());
         Comment testComment = CommentMapper.toComment(testCommentDto, testItem1, user1, dateTime);
         when(userRepository.findById(userId)).thenReturn(Optional.ofNullable(user1));
-        when(itemRepository.findById(itemId)).thenReturn(Optional.ofNullable(testItem1));
+        when(itemRepository.findForUpdateById(itemId)).thenReturn(Optional.ofNullable(testItem1));
         when(bookingRepository.findFirstByBookerIdEqualsAndItemIdEqualsAndEndBefore(
                 userId,
                 itemId,
@@ -259,6 +324,7 @@ public class ItemServiceTest {
         CommentDto commentDto = itemService.createComment(testCommentDto, itemId, userId);
 
         assertEquals(CommentMapper.toCommentDto(testComment2), commentDto);
+        assertEquals(1, testItem1.getCommentsVersion());
     }
 
     @Test
@@ -274,7 +340,7 @@ public class ItemServiceTest {
         long itemId = 0;
         long userId = 1;
         when(userRepository.findById(userId)).thenReturn(Optional.of(user1));
-        when(itemRepository.findById(itemId)).thenReturn(Optional.empty());
+        when(itemRepository.findForUpdateById(itemId)).thenReturn(Optional.empty());
 
         assertThrows(NotFoundException.class, () -> itemService.createComment(testCommentDto, itemId, 1));
     }
@@ -284,7 +350,7 @@ public class ItemServiceTest {
         long itemId = 1;
         long userId = 1;
         when(userRepository.findById(userId)).thenReturn(Optional.of(user1));
-        when(itemRepository.findById(itemId)).thenReturn(Optional.of(testItem1));
+        when(itemRepository.findForUpdateById(itemId)).thenReturn(Optional.of(testItem1));
         when(bookingRepository.findFirstByBookerIdEqualsAndItemIdEqualsAndEndBefore(
                 userId,
                 1,
@@ -294,8 +360,58 @@ public class ItemServiceTest {
         assertThrows(NoAccessException.class, () -> itemService.createComment(testCommentDto, 1, userId));
     }
 
-    private int fromToPage(int from, int size) {
-        float result = (float) from / size;
-        return (int) Math.ceil(result);
+    @Test
+    void importItemsTest_whenOwnerNotFound_NotFoundException() {
+        when(userRepository.existsCachedById(99)).thenReturn(false);
+
+        assertThrows(NotFoundException.class, () -> itemService.importItems(InputStream.nullInputStream(), 99));
+        verifyNoInteractions(bulkImporter);
+    }
+
+    @Test
+    void importItemsTest_whenRequestNotFound_rejectLineAndIndexSavedAfterCommit() throws IOException {
+        ItemDto withUnknownRequest = new ItemDto(0, "drel", "prosto drel", true, 5L, 0);
+        when(userRepository.existsCachedById(1)).thenReturn(true);
+        when(userRepository.getReferenceById(1L)).thenReturn(user1);
+        when(requestRepository.findAllById(Set.of(5L))).thenReturn(List.of());
+        when(itemRepository.saveAll(any())).thenReturn(List.of(testItem1));
+        when(bulkImporter.importLines(any(), eq(ItemDto.class), any())).thenAnswer(invocation -> {
+            BulkChunkWriter<ItemDto> writer = invocation.getArgument(2);
+            List<BulkLineError> errors = writer.write(List.of(
+                    new BulkLine<>(1, testItemDto1), new BulkLine<>(2, withUnknownRequest)));
+            return new BulkImportResult(2 - errors.size(), errors.size(), errors);
+        });
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            BulkImportResult result = itemService.importItems(InputStream.nullInputStream(), 1);
+
+            assertEquals(1, result.getImported());
+            assertEquals(2, result.getErrors().get(0).getLine());
+            ArgumentCaptor<List<Item>> saved = ArgumentCaptor.forClass(List.class);
+            verify(itemRepository).saveAll(saved.capture());
+            assertEquals(List.of("predmet"), saved.getValue().stream().map(Item::getName).collect(Collectors.toList()));
+            assertNull(saved.getValue().get(0).getId());
+            verifyNoInteractions(searchEngine);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(searchEngine).index(testItem1);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void getItemsByIdsTest_whenSomeMissingOrRepeated_returnFoundInRequestOrder() {
+        ItemDto second = new ItemDto(2, "drel", "prosto drel", true, null, 1);
+        when(itemRepository.findAllDtoByIdIn(List.of(2L, 5L, 1L))).thenReturn(List.of(testItemDto1, second));
+
+        assertEquals(List.of(second, testItemDto1), itemService.getItemsByIds(List.of(2L, 5L, 2L, 1L)));
+    }
+
+    @Test
+    void getItemsByIdsTest_whenTooManyIds_ValidationException() {
+        List<Long> ids = LongStream.rangeClosed(1, RequestedIds.MAX_IDS + 1).boxed().collect(Collectors.toList());
+
+        assertThrows(ValidationException.class, () -> itemService.getItemsByIds(ids));
+        verifyNoInteractions(itemRepository);
     }
 }
@@ -0,0 +1,119 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class InMemoryItemSearchEngineTest {
+    @InjectMocks
+    InMemoryItemSearchEngine searchEngine;
+    @Mock
+    private ItemRepository itemRepository;
+    User user1 = new User(1L, "user1", "user1@ya.ru");
+    Item drill = new Item(1L, "Дрель", "Простая дрель", true, null, user1);
+    Item screwdriver = new Item(2L, "Отвертка", "Аккумуляторная отвертка", true, null, user1);
+    Item glue = new Item(3L, "Клей Момент", "Тюбик суперклея марки Момент", true, null, user1);
+    Pageable pageParams = PageRequest.of(0, 10, Sort.by(Sort.Direction.ASC, "id"));
+
+    @Test
+    void searchTest_ifSubstringInAnyCase_returnMatchingItems() {
+        when(itemRepository.findAll()).thenReturn(List.of(drill, screwdriver, glue));
+        when(itemRepository.findAllDtoByIdInAndAvailableTrue(List.of(2L)))
+                .thenReturn(List.of(ItemMapper.toItemDto(screwdriver)));
+
+        List<ItemDto> result = searchEngine.search("аккУМУляторная", 0, pageParams).getContent();
+
+        assertEquals(List.of(ItemMapper.toItemDto(screwdriver)), result);
+    }
+
+    @Test
+    void searchTest_ifMatchesNameOrDescription_returnAllMatches() {
+        when(itemRepository.findAll()).thenReturn(List.of(drill, screwdriver, glue));
+        when(itemRepository.findAllDtoByIdInAndAvailableTrue(List.of(1L, 2L, 3L)))
+                .thenReturn(ItemMapper.toItemDto(List.of(drill, screwdriver, glue)));
+
+        List<ItemDto> result = searchEngine.search("р", 0, pageParams).getContent();
+
+        assertEquals(ItemMapper.toItemDto(List.of(drill, screwdriver, glue)), result);
+    }
+
+    @Test
+    void searchTest_ifNoMatches_skipDatabaseLookup() {
+        when(itemRepository.findAll()).thenReturn(List.of(drill, screwdriver, glue));
+
+        List<ItemDto> result = searchEngine.search("пылесос", 0, pageParams).getContent();
+
+        assertEquals(List.of(), result);
+        verify(itemRepository, never()).findAllDtoByIdInAndAvailableTrue(any());
+    }
+
+    @Test
+    void searchTest_ifMatchesOnlyDescriptionBeforeCursor_returnEmptyList() {
+        when(itemRepository.findAll()).thenReturn(List.of(drill, screwdriver, glue));
+
+        List<ItemDto> result = searchEngine.search("суперклея", 3, pageParams).getContent();
+
+        assertEquals(List.of(), result);
+        verify(itemRepository, never()).findAllDtoByIdInAndAvailableTrue(any());
+    }
+
+    @Test
+    void searchTest_ifManyMatches_queryIdsInBatchesUntilPageFilled() {
+        List<Item> items = new ArrayList<>();
+        for (long id = 1; id <= 1200; id++) {
+            items.add(new Item(id, "Дрель " + id, "Простая дрель", true, null, user1));
+        }
+        when(itemRepository.findAll()).thenReturn(items);
+        when(itemRepository.findAllDtoByIdInAndAvailableTrue(any())).thenAnswer(invocation -> {
+            List<Long> ids = invocation.getArgument(0);
+            return ids.stream()
+                    .filter(id -> id > 900)
+                    .map(id -> new ItemDto(id, "Дрель " + id, "Простая дрель", true, null, 1))
+                    .collect(Collectors.toList());
+        });
+
+        Slice<ItemDto> result = searchEngine.search("дрель", 0, PageRequest.of(1, 10));
+
+        assertEquals(911L, result.getContent().get(0).getId());
+        assertEquals(10, result.getNumberOfElements());
+        assertTrue(result.hasNext());
+        ArgumentCaptor<List<Long>> batches = ArgumentCaptor.forClass(List.class);
+        verify(itemRepository, times(2)).findAllDtoByIdInAndAvailableTrue(batches.capture());
+        assertEquals(500, batches.getAllValues().get(0).size());
+        assertEquals(501L, batches.getAllValues().get(1).get(0));
+    }
+
+    @Test
+    void indexTest_ifItemRenamed_replaceOldTokens() {
+        when(itemRepository.findAll()).thenReturn(List.of(drill));
+        when(itemRepository.findAllDtoByIdInAndAvailableTrue(List.of(1L)))
+                .thenReturn(List.of(ItemMapper.toItemDto(drill)));
+
+        searchEngine.index(new Item(1L, "Перфоратор", "Мощный перфоратор", true, null, user1));
+
+        assertEquals(List.of(), searchEngine.search("дрель", 0, pageParams).getContent());
+        assertEquals(List.of(ItemMapper.toItemDto(drill)), searchEngine.search("перфо", 0, pageParams).getContent());
+    }
+}
@@ -0,0 +1,147 @@
+package ru.practicum.shareit.metrics;
+
+import org.hibernate.Cache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.CommentRepository;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Число SQL-запросов на каждый эндпоинт при пустом кэше второго уровня. Рост числа означает
+ * новую ленивую загрузку в цикле или лишний запрос; уменьшение — повод обновить ожидание.
+ */
+@SpringBootTest(properties = "shareit.metrics.sql-statements-header=true")
+@AutoConfigureMockMvc
+public class EndpointSqlStatementsTest {
+    private static final String USER_ID_HEADER = "X-Sharer-User-Id";
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private ItemRequestRepository requestRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    private User owner;
+    private User booker;
+    private ItemRequest request;
+    private ItemDto drill;
+    private ItemDto saw;
+    private Booking waiting;
+
+    @BeforeEach
+    void setUp() {
+        owner = userRepository.save(new User(null, "owner", "statements-owner@ya.ru"));
+        booker = userRepository.save(new User(null, "booker", "statements-booker@ya.ru"));
+        request = requestRepository.save(new ItemRequest(0, "Нужна дрель", booker, LocalDateTime.now()));
+        drill = itemService.createItem(new ItemDto(0, "Дрель", "Простая дрель", true, request.getId(), 0), owner.getId());
+        saw = itemService.createItem(new ItemDto(0, "Пила", "Ручная дрель-пила", true, null, 0), owner.getId());
+        Item drillRef = itemRepository.findById(drill.getId()).orElseThrow();
+        Item sawRef = itemRepository.findById(saw.getId()).orElseThrow();
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        for (Item item : new Item[]{drillRef, sawRef}) {
+            bookingRepository.save(new Booking(null, now.plusDays(3), now.plusDays(4), item, booker,
+                    BookingStatus.APPROVED));
+            commentRepository.save(new Comment(null, "Отличная вещь", item, booker, now.minusDays(1)));
+        }
+        waiting = bookingRepository.save(new Booking(null, now.plusDays(1), now.plusDays(2), drillRef, booker,
+                BookingStatus.WAITING));
+        entityManagerFactory.getCache().unwrap(Cache.class).evictAllRegions();
+    }
+
+    @AfterEach
+    void tearDown() {
+        commentRepository.deleteAll();
+        bookingRepository.deleteAll();
+        itemRepository.deleteAll();
+        requestRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @ParameterizedTest(name = "GET {0} -> {2}")
+    @CsvSource({
+            "/users/{owner},                 owner,  1",
+            "/users,                         owner,  1",
+            "'/users?ids={owner},{booker}',  owner,  1",
+            "/items/{drill},                 owner,  5",
+            "/items/{drill},                 booker, 3",
+            "/items,                         owner,  4",
+            "'/items?ids={drill},{saw}',     owner,  1",
+            "/items/search?text=дрель,       owner,  1",
+            "/requests,                      booker, 3",
+            "/requests/{request},            booker, 3",
+            "/requests/all,                  owner,  3",
+            "/bookings/{waiting},            booker, 1",
+            "/bookings,                      booker, 1",
+            "/bookings/owner,                owner,  1"
+    })
+    void getTest_whenCacheEmpty_executeExpectedStatements(String uri, String user, int expected) throws Exception {
+        assertStatements(expected, get(resolve(uri)).header(USER_ID_HEADER, userId(user)));
+    }
+
+    @Test
+    void approveBookingTest_whenOwner_executeExpectedStatements() throws Exception {
+        assertStatements(4, patch("/bookings/{bookingId}", waiting.getId())
+                .param("approved", "true")
+                .header(USER_ID_HEADER, owner.getId()));
+    }
+
+    private void assertStatements(int expected, RequestBuilder request) throws Exception {
+        String header = mvc.perform(request)
+                .andExpect(status().is2xxSuccessful())
+                .andReturn()
+                .getResponse()
+                .getHeader(SqlStatementCountFilter.HEADER);
+        assertEquals(expected, Integer.parseInt(header));
+    }
+
+    private String resolve(String uri) {
+        return uri.replace("{owner}", String.valueOf(owner.getId()))
+                .replace("{booker}", String.valueOf(booker.getId()))
+                .replace("{drill}", String.valueOf(drill.getId()))
+                .replace("{saw}", String.valueOf(saw.getId()))
+                .replace("{request}", String.valueOf(request.getId()))
+                .replace("{waiting}", String.valueOf(waiting.getId()));
+    }
+
+    private long userId(String user) {
+        return "owner".equals(user) ? owner.getId() : booker.getId();
+    }
+}
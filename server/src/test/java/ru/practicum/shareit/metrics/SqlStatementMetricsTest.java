@@ -0,0 +1,91 @@
+package ru.practicum.shareit.metrics;
+
+import com.jayway.jsonpath.JsonPath;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "shareit.metrics.sql-statements-header=true")
+@AutoConfigureMockMvc
+public class SqlStatementMetricsTest {
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private MeterRegistry registry;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private UserRepository userRepository;
+    private UserDto owner;
+
+    @BeforeEach
+    void setUp() {
+        owner = userService.createUser(new UserDto(0, "owner", "metrics-owner@ya.ru"));
+        itemService.createItem(new ItemDto(0, "Дрель", "Простая дрель", true, null, 0), owner.getId());
+    }
+
+    @AfterEach
+    void tearDown() {
+        itemRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void getItemsTest_whenHeaderEnabled_returnStatementCountAndRecordMetrics() throws Exception {
+        MvcResult result = mvc.perform(get("/items").header("X-Sharer-User-Id", owner.getId()))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        String header = result.getResponse().getHeader(SqlStatementCountFilter.HEADER);
+        assertNotNull(header);
+        assertTrue(Integer.parseInt(header) > 0);
+        assertEquals("Дрель", JsonPath.read(result.getResponse().getContentAsString(StandardCharsets.UTF_8), "$[0].name"));
+
+        DistributionSummary statements = registry.find(SqlStatementCountFilter.METRIC)
+                .tags("method", "GET", "uri", "/items").summary();
+        assertNotNull(statements);
+        assertTrue(statements.count() >= 1);
+        assertNotNull(registry.find("http.server.requests").tag("handler", "ItemController.getItems").timer());
+        assertNotNull(registry.find("spring.data.repository.invocations")
+                .tags("repository", "ItemRepository").timer());
+    }
+
+    @Test
+    void exportTest_whenStreamingPath_skipHeaderAndRecordMetrics() throws Exception {
+        MvcResult result = mvc.perform(get("/bookings/owner/export").header("X-Sharer-User-Id", owner.getId()))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertNull(result.getResponse().getHeader(SqlStatementCountFilter.HEADER));
+        DistributionSummary statements = registry.find(SqlStatementCountFilter.METRIC)
+                .tags("method", "GET", "uri", "/bookings/owner/export").summary();
+        assertNotNull(statements);
+        assertTrue(statements.count() >= 1);
+    }
+}
@@ -6,6 +6,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.exception.NotFoundException;
@@ -119,7 +120,7 @@ public class ItemRequestControllerTest {
     @Test
     void searchRequestTest_ifOk_returnRequestResponseDtoList() {
         when(requestService.searchRequests(1, 0, 10))
-                .thenReturn(List.of(testItemRequestResponseDto));
+                .thenReturn(new SliceImpl<>(List.of(testItemRequestResponseDto)));
 
         String result = mvc.perform(get("/requests/all")
                         .header(userIdHeader, 1)
@@ -146,4 +147,18 @@ public class ItemRequestControllerTest {
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isNotFound());
     }
+
+    @SneakyThrows
+    @Test
+    void getRequestTest_ifTagMatches_responseNotModified() {
+        when(requestService.getRequestTag(1, 1)).thenReturn("tag1");
+
+        mvc.perform(get("/requests/{requestId}", 1)
+                        .header(userIdHeader, 1)
+                        .header("If-None-Match", "\"tag1\"")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified());
+
+        verify(requestService, never()).getRequest(anyLong(), anyLong());
+    }
 }
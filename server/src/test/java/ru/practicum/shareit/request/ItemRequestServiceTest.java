@@ -5,13 +5,14 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.dto.ItemForResponseDto;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.FromSizeRequest;
+import ru.practicum.shareit.pagination.PageCursor;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestResponseDto;
 import ru.practicum.shareit.request.mapper.ItemRequestMapper;
@@ -26,7 +27,8 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 public class ItemRequestServiceTest {
@@ -40,7 +42,7 @@ public class ItemRequestServiceTest {
     private ItemRepository itemRepository;
     LocalDateTime dt = LocalDateTime.now();
     LocalDateTime dateTime = LocalDateTime.of(dt.getYear(), dt.getMonth(), dt.getDayOfMonth(), dt.getHour(), dt.getMinute(), dt.getSecond());
-    ItemForResponseDto itemForResponseDto = new ItemForResponseDto(1, "predmet", "prosto predmet", true, null);
+    ItemForResponseDto itemForResponseDto = new ItemForResponseDto(1, "predmet", "prosto predmet", true, 1L);
     User testUser1 = new User(1L, "user1", "user1@ya.ru");
     ItemRequest testItemRequest1 = new ItemRequest(1, "nuzhen predmet", testUser1, dateTime);
     ItemRequestDto testItemRequestDto1 = ItemRequestMapper.toItemRequestDto(testItemRequest1);
@@ -68,7 +70,7 @@ public class ItemRequestServiceTest {
     void getRequestTest_ifOk_returnItemRequestResponseDto() {
         long userId = 1;
         long requestId = 1;
-        when(userRepository.findById(userId)).thenReturn(Optional.ofNullable(testUser1));
+        when(userRepository.existsCachedById(userId)).thenReturn(true);
         when(requestRepository.findById(requestId)).thenReturn(Optional.ofNullable(testItemRequest1));
         when(itemRepository.findAllByRequestIdEquals(requestId)).thenReturn(List.of(itemForResponseDto));
 
@@ -81,7 +83,7 @@ public class ItemRequestServiceTest {
     void getRequestTest_ifNoSuchUser_NotFoundException() {
         long userId = 0;
         long requestId = 1;
-        when(userRepository.findById(userId)).thenReturn(Optional.empty());
+        when(userRepository.existsCachedById(userId)).thenReturn(false);
 
         assertThrows(NotFoundException.class, () -> requestService.getRequest(userId, requestId));
     }
@@ -90,7 +92,7 @@ public class ItemRequestServiceTest {
     void getRequestTest_ifNoSuchRequest_NotFoundException() {
         long userId = 1;
         long requestId = 0;
-        when(userRepository.findById(userId)).thenReturn(Optional.ofNullable(testUser1));
+        when(userRepository.existsCachedById(userId)).thenReturn(true);
         when(requestRepository.findById(requestId)).thenReturn(Optional.empty());
 
         assertThrows(NotFoundException.class, () -> requestService.getRequest(userId, requestId));
@@ -99,19 +101,48 @@ public class ItemRequestServiceTest {
     @Test
     void getRequestsTest_ifOk_returnItemRequestResponseDto() {
         long userId = 1;
-        when(userRepository.findById(userId)).thenReturn(Optional.ofNullable(testUser1));
-        when(requestRepository.findByRequesterIdEqualsOrderByCreatedDesc(userId)).thenReturn(List.of(testItemRequest1));
-        when(itemRepository.findAllByRequestIdEquals(testItemRequest1.getId())).thenReturn(List.of(itemForResponseDto));
+        when(userRepository.existsCachedById(userId)).thenReturn(true);
+        when(requestRepository.findAllDtoByRequesterId(userId)).thenReturn(List.of(toProjection(testItemRequest1)));
+        when(itemRepository.findAllByRequestIdIn(List.of(testItemRequest1.getId()))).thenReturn(List.of(itemForResponseDto));
 
         List<ItemRequestResponseDto> result = requestService.getRequests(userId);
 
         assertEquals(List.of(testItemRequestResponseDto), result);
+        verify(itemRepository, never()).findAllByRequestIdEquals(anyLong());
+    }
+
+    @Test
+    void getRequestsTest_ifSeveralRequests_groupItemsByRequest() {
+        long userId = 1;
+        ItemRequest testItemRequest2 = new ItemRequest(2, "nuzhen drugoy predmet", testUser1, dateTime.minusDays(1));
+        when(userRepository.existsCachedById(userId)).thenReturn(true);
+        when(requestRepository.findAllDtoByRequesterId(userId))
+                .thenReturn(List.of(toProjection(testItemRequest1), toProjection(testItemRequest2)));
+        when(itemRepository.findAllByRequestIdIn(List.of(1L, 2L))).thenReturn(List.of(itemForResponseDto));
+
+        List<ItemRequestResponseDto> result = requestService.getRequests(userId);
+
+        assertEquals(List.of(
+                testItemRequestResponseDto,
+                ItemRequestMapper.toItemRequestResponseDto(testItemRequest2, List.of())), result);
+    }
+
+    @Test
+    void getRequestsTest_ifNoRequests_skipItemLookup() {
+        long userId = 1;
+        when(userRepository.existsCachedById(userId)).thenReturn(true);
+        when(requestRepository.findAllDtoByRequesterId(userId)).thenReturn(List.of());
+
+        List<ItemRequestResponseDto> result = requestService.getRequests(userId);
+
+        assertEquals(List.of(), result);
+        verifyNoInteractions(itemRepository);
     }
 
     @Test
     void getRequestsTest_ifNoSuchUser_NotFoundException() {
         long userId = 0;
-        when(userRepository.findById(userId)).thenReturn(Optional.empty());
+        when(userRepository.existsCachedById(userId)).thenReturn(false);
 
         assertThrows(NotFoundException.class, () -> requestService.getRequests(userId));
     }
@@ -119,15 +150,14 @@ public class ItemRequestServiceTest {
     @Test
     void searchRequestsTest_ifOk_returnItemRequestResponseDtoList() {
         long userId = 1;
-        Pageable pageParams = PageRequest.of(
-                fromToPage(0, 10), 10, Sort.by(Sort.Direction.DESC, "created"));
-        when(userRepository.findById(userId)).thenReturn(Optional.ofNullable(testUser1));
-        when(requestRepository.findAllByRequesterIdNotOrderByCreatedDesc(userId, pageParams))
-                .thenReturn(new PageImpl<>(List.of(testItemRequest1)));
-        when(itemRepository.findAllByRequestIdEquals(testItemRequest1.getId()))
+        Pageable pageParams = FromSizeRequest.of(0, 10, Sort.unsorted());
+        when(userRepository.existsCachedById(userId)).thenReturn(true);
+        when(requestRepository.findAllDtoByRequesterIdNot(userId, pageParams))
+                .thenReturn(new SliceImpl<>(List.of(toProjection(testItemRequest1))));
+        when(itemRepository.findAllByRequestIdIn(List.of(testItemRequest1.getId())))
                 .thenReturn(List.of(itemForResponseDto));
 
-        List<ItemRequestResponseDto> result = requestService.searchRequests(userId, 0, 10);
+        List<ItemRequestResponseDto> result = requestService.searchRequests(userId, 0, 10).getContent();
 
         assertEquals(List.of(testItemRequestResponseDto), result);
     }
@@ -135,13 +165,30 @@ public class ItemRequestServiceTest {
     @Test
     void searchRequestsTest_ifNoSuchUser_NotFoundException() {
         long userId = 0;
-        when(userRepository.findById(userId)).thenReturn(Optional.empty());
+        when(userRepository.existsCachedById(userId)).thenReturn(false);
 
         assertThrows(NotFoundException.class, () -> requestService.searchRequests(userId, 0, 10));
     }
 
-    private int fromToPage(int from, int size) {
-        float result = (float) from / size;
-        return (int) Math.ceil(result);
+    @Test
+    void searchRequestsAfterTest_ifOk_returnItemRequestResponseDtoListAfterCursor() {
+        long userId = 1;
+        LocalDateTime cursorCreated = dateTime.plusDays(1);
+        when(userRepository.existsCachedById(userId)).thenReturn(true);
+        when(requestRepository.findAllDtoByRequesterIdNotAfter(
+                userId, cursorCreated, 3L, FromSizeRequest.of(0, 10, Sort.unsorted())))
+                .thenReturn(new SliceImpl<>(List.of(toProjection(testItemRequest1))));
+        when(itemRepository.findAllByRequestIdIn(List.of(testItemRequest1.getId())))
+                .thenReturn(List.of(itemForResponseDto));
+
+        List<ItemRequestResponseDto> result = requestService.searchRequestsAfter(
+                userId, PageCursor.encode(cursorCreated, 3L), 10).getContent();
+
+        assertEquals(List.of(testItemRequestResponseDto), result);
+    }
+
+    private ItemRequestResponseDto toProjection(ItemRequest request) {
+        return new ItemRequestResponseDto(
+                request.getId(), request.getDescription(), request.getRequester().getId(), request.getCreated());
     }
 }
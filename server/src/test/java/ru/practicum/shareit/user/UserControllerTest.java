@@ -8,17 +8,23 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.bulk.BulkImportResult;
+import ru.practicum.shareit.bulk.BulkLineError;
+import ru.practicum.shareit.etag.EntityTags;
 import ru.practicum.shareit.exception.AlreadyExistsException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.UserForUpdateDto;
 
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = UserController.class)
@@ -164,4 +170,95 @@ public class UserControllerTest {
 
         assertEquals(mapper.writeValueAsString(List.of(userDto1)), result);
     }
+
+    @SneakyThrows
+    @Test
+    void getUserTest_whenTagMatches_returnNotModifiedWithoutLoading() {
+        when(userService.getUserTag(1)).thenReturn("tag1");
+
+        mvc.perform(get("/users/{userId}", "1")
+                        .header("If-None-Match", "\"tag1\"")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"tag1\""));
+
+        verify(userService, never()).getUser(anyLong());
+    }
+
+    @SneakyThrows
+    @Test
+    void getUserTest_whenNoIfNoneMatch_returnUserWithoutTag() {
+        when(userService.getUser(1)).thenReturn(userDto1);
+
+        mvc.perform(get("/users/{userId}", "1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("ETag"));
+
+        verify(userService, never()).getUserTag(anyLong());
+    }
+
+    @SneakyThrows
+    @Test
+    void getUserTest_whenTagRequested_returnUserWithETag() {
+        when(userService.getUserTag(1)).thenReturn("tag1");
+        when(userService.getUser(1)).thenReturn(userDto1);
+
+        mvc.perform(get("/users/{userId}", "1")
+                        .header(EntityTags.TAG_REQUEST_HEADER, "true")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"tag1\""));
+    }
+
+    @SneakyThrows
+    @Test
+    void getUserTest_whenTagFound_returnUserWithETag() {
+        when(userService.getUserTag(1)).thenReturn("tag2");
+        when(userService.getUser(1)).thenReturn(userDto1);
+
+        mvc.perform(get("/users/{userId}", "1")
+                        .header("If-None-Match", "\"tag1\"")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"tag2\""));
+    }
+
+    @SneakyThrows
+    @Test
+    void importUsersTest_whenNdjson_passBodyToServiceAndReturnResult() {
+        String body = "{\"name\":\"user1\",\"email\":\"user1@ya.ru\"}\n{\"name\":\"user2\"}\n";
+        BulkImportResult expected = new BulkImportResult(1, 1, List.of(new BulkLineError(2, "email: Email не может быть null")));
+        when(userService.importUsers(any())).thenAnswer(invocation -> {
+            InputStream stream = invocation.getArgument(0);
+            assertEquals(body, new String(stream.readAllBytes(), StandardCharsets.UTF_8));
+            return expected;
+        });
+
+        String result = mvc.perform(post("/users/bulk")
+                        .content(body)
+                        .contentType("application/x-ndjson"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8);
+
+        assertEquals(mapper.writeValueAsString(expected), result);
+    }
+
+    @SneakyThrows
+    @Test
+    void getUsersByIdsTest_whenIdsGiven_returnUsersFromService() {
+        UserDto userDto2 = new UserDto(2, "user2", "user2@ya.ru");
+        when(userService.getUsersByIds(List.of(2L, 1L))).thenReturn(List.of(userDto2, userDto1));
+
+        String result = mvc.perform(get("/users").param("ids", "2,1"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8);
+
+        assertEquals(mapper.writeValueAsString(List.of(userDto2, userDto1)), result);
+        verify(userService, never()).getUsers();
+    }
 }
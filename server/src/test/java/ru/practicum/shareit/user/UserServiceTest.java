@@ -2,23 +2,43 @@ package ru.practicum.shareit.user;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.bulk.BulkChunkWriter;
+import ru.practicum.shareit.bulk.BulkImportResult;
+import ru.practicum.shareit.bulk.BulkImporter;
+import ru.practicum.shareit.bulk.BulkLine;
+import ru.practicum.shareit.bulk.BulkLineError;
 import ru.practicum.shareit.exception.AlreadyExistsException;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.UserForUpdateDto;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,6 +47,10 @@ public class UserServiceTest {
     UserServiceImpl userService;
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private ItemRepository itemRepository;
+    @Mock
+    private BulkImporter bulkImporter;
 
     UserDto userDto1 = new UserDto(1, "user1", "user1@ya.ru");
     User user1 = new User(1L, "user1", "user1@ya.ru");
@@ -53,12 +77,33 @@ public class UserServiceTest {
         UserForUpdateDto updateDto = new UserForUpdateDto("user10", "user1@ya.ru");
         when(userRepository.findById(1L))
                 .thenReturn(Optional.of(UserMapper.mapToNewUser(userDto1)));
-        when(userRepository.save(UserMapper.mapToNewUser(update)))
-                .thenReturn(UserMapper.mapToNewUser(update));
 
         UserDto updatedUser = userService.updateUser(updateDto, update.getId());
 
         assertEquals(updatedUser, update);
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    void updateUserTest_ifNameChanged_touchCommentedItems() {
+        Item commented = new Item(1L, "predmet", "prosto predmet", true, null, new User(2L, "user2", "user2@ya.ru"));
+        when(userRepository.findById(1L))
+                .thenReturn(Optional.of(UserMapper.mapToNewUser(userDto1)));
+        when(itemRepository.findAllForUpdateByCommentAuthorId(1L)).thenReturn(List.of(commented));
+
+        userService.updateUser(new UserForUpdateDto("user10", null), 1L);
+
+        assertEquals(1, commented.getCommentsVersion());
+    }
+
+    @Test
+    void updateUserTest_ifOnlyEmailChanged_keepCommentedItems() {
+        when(userRepository.findById(1L))
+                .thenReturn(Optional.of(UserMapper.mapToNewUser(userDto1)));
+
+        userService.updateUser(new UserForUpdateDto(null, "user10@ya.ru"), 1L);
+
+        verifyNoInteractions(itemRepository);
     }
 
     @Test
@@ -100,6 +145,23 @@ public class UserServiceTest {
         assertThrows(NotFoundException.class, () -> userService.getUser(3L));
     }
 
+    @Test
+    void getUserTagTest_ifVersionChanged_returnNewTag() {
+        when(userRepository.findVersionById(1L)).thenReturn(Optional.of(0L), Optional.of(0L), Optional.of(1L));
+
+        String tag = userService.getUserTag(1L);
+
+        assertEquals(tag, userService.getUserTag(1L));
+        assertNotEquals(tag, userService.getUserTag(1L));
+    }
+
+    @Test
+    void getUserTagTest_ifNotExists_NotFoundException() {
+        when(userRepository.findVersionById(3L)).thenReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class, () -> userService.getUserTag(3L));
+    }
+
     @Test
     void getUsersTest_ifInvocated_returnsUsersList() {
         when(userRepository.findAll()).thenReturn(List.of(user1));
@@ -108,4 +170,42 @@ public class UserServiceTest {
 
         assertEquals(List.of(userDto1), users);
     }
+
+    @Test
+    void importUsersTest_whenEmailTakenOrRepeated_rejectLinesAndSaveOthers() throws IOException {
+        when(bulkImporter.importLines(any(), eq(UserDto.class), any())).thenAnswer(invocation -> {
+            BulkChunkWriter<UserDto> writer = invocation.getArgument(2);
+            List<BulkLineError> errors = writer.write(List.of(
+                    new BulkLine<>(1, userDto1),
+                    new BulkLine<>(2, new UserDto(0, "user2", "user2@ya.ru")),
+                    new BulkLine<>(3, new UserDto(0, "user3", "user2@ya.ru"))));
+            return new BulkImportResult(3 - errors.size(), errors.size(), errors);
+        });
+        when(userRepository.findAllEmailsByEmailIn(Set.of("user1@ya.ru", "user2@ya.ru")))
+                .thenReturn(new HashSet<>(Set.of("user1@ya.ru")));
+
+        BulkImportResult result = userService.importUsers(InputStream.nullInputStream());
+
+        assertEquals(1, result.getImported());
+        assertEquals(List.of(1L, 3L), result.getErrors().stream().map(BulkLineError::getLine).collect(Collectors.toList()));
+        ArgumentCaptor<List<User>> saved = ArgumentCaptor.forClass(List.class);
+        verify(userRepository).saveAll(saved.capture());
+        assertEquals(1, saved.getValue().size());
+        assertEquals("user2@ya.ru", saved.getValue().get(0).getEmail());
+        assertNull(saved.getValue().get(0).getId());
+    }
+
+    @Test
+    void getUsersByIdsTest_whenEmpty_returnEmptyWithoutQuery() {
+        assertEquals(List.of(), userService.getUsersByIds(List.of()));
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void getUsersByIdsTest_whenFound_returnInRequestOrder() {
+        UserDto userDto2 = new UserDto(2, "user2", "user2@ya.ru");
+        when(userRepository.findAllDtoByIdIn(List.of(2L, 1L))).thenReturn(List.of(userDto1, userDto2));
+
+        assertEquals(List.of(userDto2, userDto1), userService.getUsersByIds(List.of(2L, 1L)));
+    }
 }
@@ -0,0 +1,107 @@
+package ru.practicum.shareit.user.repository;
+
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "ru.practicum.shareit.user.repository.UserRepositoryTest$InsertCounter"})
+public class UserRepositoryTest {
+    private static final int USERS = 120;
+
+    @Autowired
+    private TestEntityManager em;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        InsertCounter.INSERTS.set(0);
+    }
+
+    @Test
+    void saveAllTest_whenIdsFromSequence_insertInJdbcBatches() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(new User(null, "user" + i, "batch-user" + i + "@ya.ru"));
+        }
+
+        List<User> saved = userRepository.saveAll(users);
+        em.flush();
+
+        assertEquals(USERS, statistics.getEntityInsertCount());
+        // Один INSERT, выполненный пакетами, вместо 120. Обращений к последовательности зависят от того,
+        // сколько id из выделенного блока уже взяли другие тесты, поэтому не считаются.
+        assertEquals(1, InsertCounter.INSERTS.get());
+        for (int i = 1; i < USERS; i++) {
+            assertEquals(saved.get(i - 1).getId() + 1, saved.get(i).getId());
+        }
+    }
+
+    @Test
+    void findAllDtoByIdInTest_whenSeveralIds_loadInOneStatementWithoutEntities() {
+        User first = em.persist(new User(null, "first", "first@ya.ru"));
+        User second = em.persist(new User(null, "second", "second@ya.ru"));
+        em.flush();
+        em.clear();
+        statistics.clear();
+
+        List<UserDto> users = userRepository.findAllDtoByIdIn(List.of(second.getId(), first.getId(), -1L));
+
+        assertEquals(2, users.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void equalsTest_whenLazyProxy_compareByIdWithoutLoading() {
+        User user = em.persistFlushFind(new User(null, "user", "proxy-user@ya.ru"));
+        em.clear();
+        statistics.clear();
+
+        User proxy = em.getEntityManager().getReference(User.class, user.getId());
+
+        assertEquals(user, proxy);
+        assertFalse(Hibernate.isInitialized(proxy));
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertNotEquals(new User(null, "user", "proxy-user@ya.ru"), new User(null, "user", "proxy-user@ya.ru"));
+        // hashCode прокси делегируется сущности и инициализирует его, поэтому проверяется последним.
+        assertEquals(user.hashCode(), proxy.hashCode());
+    }
+
+    public static class InsertCounter implements StatementInspector {
+        private static final AtomicInteger INSERTS = new AtomicInteger();
+
+        @Override
+        public String inspect(String sql) {
+            if (sql.regionMatches(true, 0, "insert", 0, "insert".length())) {
+                INSERTS.incrementAndGet();
+            }
+            return sql;
+        }
+    }
+}